@@ -1,5 +1,6 @@
 package space.maatini.eventsourcing.domain;
 
+import io.vertx.core.json.JsonObject;
 import space.maatini.eventsourcing.entity.CloudEvent;
 import java.util.ArrayList;
 import java.util.List;
@@ -7,6 +8,8 @@ import java.util.List;
 public abstract class AggregateRoot {
     private final String id;
     private int version = 0;
+    private long position = 0;
+    private long streamVersion = 0;
     private final List<CloudEvent> uncommittedEvents = new ArrayList<>();
 
     protected AggregateRoot(String id) {
@@ -15,17 +18,75 @@ public abstract class AggregateRoot {
 
     public String getId() { return id; }
     public int getVersion() { return version; }
+    /** Position of the last applied stored event, 0 if none. */
+    public long getPosition() { return position; }
+    /** Version of the event stream this aggregate is based on, including uncommitted events. */
+    public long getStreamVersion() { return streamVersion; }
     public List<CloudEvent> getUncommittedEvents() { return uncommittedEvents; }
 
+    /**
+     * The stream was at least at this version when the aggregate was loaded.
+     * New events expect to follow it (see V18).
+     */
+    public void observeStreamVersion(long version) {
+        streamVersion = Math.max(streamVersion, version);
+    }
+
     public void apply(CloudEvent event) {
         mutate(event);
         version++;
+        if (event.getPosition() != null) {
+            position = event.getPosition();
+        }
+        if (event.getStreamVersion() != null) {
+            observeStreamVersion(event.getStreamVersion());
+        }
     }
 
     protected void applyNewEvent(CloudEvent event) {
+        event.setStreamVersion(streamVersion + 1);
         apply(event);
         uncommittedEvents.add(event);
     }
 
+    /**
+     * The uncommitted events were stored; the last of them is at {@code position}.
+     */
+    public void markCommitted(long position) {
+        uncommittedEvents.clear();
+        this.position = position;
+    }
+
+    /**
+     * State for a snapshot. Only valid while there are no uncommitted events.
+     */
+    public JsonObject snapshot() {
+        if (!uncommittedEvents.isEmpty()) {
+            throw new IllegalStateException("Aggregate " + id + " has uncommitted events");
+        }
+        return snapshotState();
+    }
+
+    /**
+     * Continue from a snapshot taken at {@code version} and {@code position}.
+     */
+    public void restore(int version, long position, JsonObject state) {
+        restoreState(state);
+        this.version = version;
+        this.position = position;
+    }
+
+    /**
+     * Whether {@link #mutate} reads the event payload. Events are loaded with
+     * only their type, position and stream version otherwise.
+     */
+    public boolean needsEventData() {
+        return true;
+    }
+
     protected abstract void mutate(CloudEvent event);
+
+    protected abstract JsonObject snapshotState();
+
+    protected abstract void restoreState(JsonObject state);
 }
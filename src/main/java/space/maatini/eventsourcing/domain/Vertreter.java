@@ -80,6 +80,11 @@ public class Vertreter extends AggregateRoot {
         applyNewEvent(event);
     }
 
+    @Override
+    public boolean needsEventData() {
+        return false;
+    }
+
     @Override
     protected void mutate(CloudEvent event) {
         switch (event.getType()) {
@@ -91,4 +96,15 @@ public class Vertreter extends AggregateRoot {
                 break;
         }
     }
+
+    @Override
+    protected JsonObject snapshotState() {
+        return new JsonObject().put("created", created).put("deleted", deleted);
+    }
+
+    @Override
+    protected void restoreState(JsonObject state) {
+        this.created = state.getBoolean("created", false);
+        this.deleted = state.getBoolean("deleted", false);
+    }
 }
@@ -0,0 +1,16 @@
+package space.maatini.eventsourcing.dto;
+
+import java.util.List;
+
+import jakarta.validation.constraints.NotEmpty;
+import jakarta.validation.constraints.NotNull;
+
+import org.eclipse.microprofile.openapi.annotations.media.Schema;
+
+/**
+ * DTO for acknowledging polled events of a subscription.
+ */
+@Schema(description = "Positions of processed events")
+public record AckDTO(
+        @Schema(description = "Positions of the events to acknowledge", example = "[1, 2, 3]") @NotEmpty(message = "positions must not be empty") List<@NotNull Long> positions) {
+}
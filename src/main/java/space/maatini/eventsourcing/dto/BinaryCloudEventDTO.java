@@ -0,0 +1,37 @@
+package space.maatini.eventsourcing.dto;
+
+import java.time.OffsetDateTime;
+import java.util.UUID;
+
+/**
+ * CloudEvent received in HTTP binary content mode: attributes from the
+ * {@code ce-*} headers, payload from the raw request body.
+ * <p>
+ * The payload is kept as JSON text and stored without being decoded.
+ */
+public record BinaryCloudEventDTO(
+        UUID id,
+        String source,
+        String specversion,
+        String type,
+        String subject,
+        OffsetDateTime time,
+        String datacontenttype,
+        String dataschema,
+        String data) {
+    /**
+     * Apply defaults for optional fields.
+     */
+    public BinaryCloudEventDTO withDefaults() {
+        return new BinaryCloudEventDTO(
+                id,
+                source,
+                specversion != null ? specversion : "1.0",
+                type,
+                subject,
+                time != null ? time : OffsetDateTime.now(),
+                datacontenttype != null ? datacontenttype : "application/json",
+                dataschema,
+                data);
+    }
+}
@@ -0,0 +1,35 @@
+package space.maatini.eventsourcing.dto;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+
+/**
+ * Continuation token for paginated event queries: the global {@code position}
+ * of the last event of a page.
+ * <p>
+ * Clients treat the encoded form as opaque and pass it back as {@code after}.
+ */
+public record EventCursor(long position) {
+
+    private static final String PREFIX = "p:";
+
+    public String encode() {
+        String raw = PREFIX + position;
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * @throws IllegalArgumentException if the token was not produced by {@link #encode()}
+     */
+    public static EventCursor decode(String token) {
+        String raw = new String(Base64.getUrlDecoder().decode(token), StandardCharsets.UTF_8);
+        if (!raw.startsWith(PREFIX)) {
+            throw new IllegalArgumentException("Invalid cursor: " + token);
+        }
+        long position = Long.parseLong(raw.substring(PREFIX.length()));
+        if (position < 0) {
+            throw new IllegalArgumentException("Invalid cursor: " + token);
+        }
+        return new EventCursor(position);
+    }
+}
@@ -0,0 +1,17 @@
+package space.maatini.eventsourcing.dto;
+
+import java.util.List;
+
+import jakarta.validation.constraints.Min;
+
+import org.eclipse.microprofile.openapi.annotations.media.Schema;
+
+/**
+ * DTO for creating a subscription (consumer group).
+ */
+@Schema(description = "Subscription settings")
+public record SubscriptionDTO(
+        @Schema(description = "First position to deliver; the whole log if omitted", example = "1") @Min(value = 1, message = "fromPosition must be at least 1") Long fromPosition,
+
+        @Schema(description = "Event types to deliver; all types if omitted", example = "[\"space.maatini.vertreter.created\"]") List<String> types) {
+}
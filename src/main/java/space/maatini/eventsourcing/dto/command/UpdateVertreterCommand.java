@@ -1,8 +1,17 @@
 package space.maatini.eventsourcing.dto.command;
 
+/**
+ * @param expectedVersion stream version the update is based on, or null to
+ *                        apply it to whatever the current version is
+ */
 public record UpdateVertreterCommand(
     String id,
     String name,
     String email,
-    VertretenePersonCommandDTO vertretenePerson
-) {}
+    VertretenePersonCommandDTO vertretenePerson,
+    Long expectedVersion
+) {
+    public UpdateVertreterCommand withExpectedVersion(Long expectedVersion) {
+        return new UpdateVertreterCommand(id, name, email, vertretenePerson, expectedVersion);
+    }
+}
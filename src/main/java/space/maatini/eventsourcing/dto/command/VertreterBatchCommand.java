@@ -0,0 +1,31 @@
+package space.maatini.eventsourcing.dto.command;
+
+import jakarta.validation.constraints.NotBlank;
+import jakarta.validation.constraints.NotNull;
+
+/**
+ * One command of a batch request. Create and update use the Vertreter fields,
+ * delete only the id.
+ *
+ * @param expectedVersion stream version an update or delete is based on, or null
+ */
+public record VertreterBatchCommand(
+    @NotNull(message = "Command type is required") Type type,
+    @NotBlank(message = "Command ID is required") String id,
+    String name,
+    String email,
+    VertretenePersonCommandDTO vertretenePerson,
+    Long expectedVersion
+) {
+    public enum Type {
+        CREATE, UPDATE, DELETE
+    }
+
+    public CreateVertreterCommand toCreate() {
+        return new CreateVertreterCommand(id, name, email, vertretenePerson);
+    }
+
+    public UpdateVertreterCommand toUpdate() {
+        return new UpdateVertreterCommand(id, name, email, vertretenePerson, expectedVersion);
+    }
+}
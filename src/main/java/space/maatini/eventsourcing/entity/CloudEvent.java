@@ -1,19 +1,30 @@
 package space.maatini.eventsourcing.entity;
 
 import java.time.OffsetDateTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
 import java.util.UUID;
 
-import org.hibernate.annotations.JdbcTypeCode;
-import org.hibernate.type.SqlTypes;
+import org.hibernate.annotations.ColumnTransformer;
+
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import com.fasterxml.jackson.annotation.JsonProperty;
+import com.fasterxml.jackson.annotation.JsonRawValue;
 
 import io.quarkus.hibernate.reactive.panache.PanacheEntityBase;
+import io.quarkus.panache.common.Parameters;
 import io.smallrye.mutiny.Uni;
 import io.vertx.core.json.JsonObject;
 import jakarta.persistence.Column;
 import jakarta.persistence.Entity;
 import jakarta.persistence.Id;
 import jakarta.persistence.Table;
+import jakarta.persistence.Transient;
 
 /**
  * CloudEvents-compliant event entity.
@@ -25,6 +36,24 @@ import jakarta.persistence.Table;
 @Table(name = "events")
 public class CloudEvent extends PanacheEntityBase {
 
+    /**
+     * Number of bind parameters per row in {@link #insertAll(List)}.
+     * PostgreSQL allows at most 65535 parameters per statement.
+     */
+    public static final int INSERT_COLUMNS = 11;
+
+    /**
+     * Row order of {@link #insertAll(List)}: the insert locks the event_streams
+     * row of each subject until commit, so every writer takes them in subject
+     * order and two overlapping batches cannot deadlock. The sort is stable, so
+     * a subject's events keep their order; events without a subject come last,
+     * ordered by ID.
+     */
+    static final Comparator<CloudEvent> INSERT_ORDER = Comparator
+            .comparing(CloudEvent::getSubject, Comparator.nullsLast(Comparator.<String>naturalOrder()))
+            .thenComparing(e -> e.getSubject() == null ? e.getId() : null,
+                    Comparator.nullsFirst(Comparator.<UUID>naturalOrder()));
+
     @Id
     private UUID id;
 
@@ -46,9 +75,42 @@ public class CloudEvent extends PanacheEntityBase {
 
     private String dataschema;
 
+    /**
+     * Payload as JSON text. Mapped as plain text and cast in SQL, so Hibernate
+     * passes it through without a JSON format mapper; it is only decoded when
+     * {@link #getData()} is called.
+     */
     @Column(nullable = false, columnDefinition = "jsonb")
-    @JdbcTypeCode(SqlTypes.JSON)
-    private java.util.Map<String, Object> data;
+    @ColumnTransformer(read = "CAST(data AS text)", write = "CAST(? AS jsonb)")
+    private String data;
+
+    /**
+     * Decoded payload, cached for the {@link #data} string it was decoded from.
+     */
+    @Transient
+    private JsonObject decodedData;
+
+    @Transient
+    private String decodedFrom;
+
+    /**
+     * Increasing position in the global log, assigned by the database (see
+     * V19). Positions can have gaps and may commit out of order; readers of
+     * the whole log stay below the safe position of
+     * {@link space.maatini.eventsourcing.service.EventLogHead}. Null until the
+     * event has been inserted.
+     */
+    @Column(name = "position", insertable = false, updatable = false)
+    private Long position;
+
+    /**
+     * 1-based version of the event within its subject's stream, assigned together
+     * with {@link #position}. Null for events without a subject. If set before
+     * the insert, the database rejects the event unless it gets exactly this
+     * version (see V18).
+     */
+    @Column(name = "stream_version", updatable = false)
+    private Long streamVersion;
 
     @Column(name = "created_at", nullable = false)
     private OffsetDateTime createdAt = OffsetDateTime.now();
@@ -131,12 +193,61 @@ public class CloudEvent extends PanacheEntityBase {
         this.dataschema = dataschema;
     }
 
+    /**
+     * The decoded payload. Decoded on first access and cached, so handlers reading
+     * several fields pay for one parse. Changes to the returned object are not
+     * written back; use {@link #setData(JsonObject)}.
+     */
+    @JsonIgnore
     public JsonObject getData() {
-        return data != null ? new JsonObject(data) : null;
+        if (data == null) {
+            return null;
+        }
+        if (decodedData == null || decodedFrom != data) {
+            decodedData = new JsonObject(data);
+            decodedFrom = data;
+        }
+        return decodedData;
     }
 
     public void setData(JsonObject data) {
-        this.data = data != null ? data.getMap() : null;
+        this.data = data != null ? data.encode() : null;
+        this.decodedData = data;
+        this.decodedFrom = this.data;
+    }
+
+    /**
+     * The payload as stored, without decoding it. Serialized verbatim as the
+     * {@code data} property of the event.
+     */
+    @JsonProperty("data")
+    @JsonRawValue
+    public String getRawData() {
+        return data;
+    }
+
+    /**
+     * Set the payload from JSON text. The text is stored as-is, so it must be a
+     * valid JSON object.
+     */
+    public void setRawData(String data) {
+        this.data = data;
+    }
+
+    public Long getPosition() {
+        return position;
+    }
+
+    public void setPosition(Long position) {
+        this.position = position;
+    }
+
+    public Long getStreamVersion() {
+        return streamVersion;
+    }
+
+    public void setStreamVersion(Long streamVersion) {
+        this.streamVersion = streamVersion;
     }
 
     public OffsetDateTime getCreatedAt() {
@@ -189,17 +300,164 @@ public class CloudEvent extends PanacheEntityBase {
     }
 
     /**
-     * Find events by type.
+     * Find one page of events by type, in {@code position} order.
+     *
+     * @param from          inclusive lower bound on createdAt, or null
+     * @param to            exclusive upper bound on createdAt, or null
+     * @param afterPosition position of the last event of the previous page, or null for the first page
+     * @param upToPosition  inclusive upper bound on position, normally the
+     *                      {@linkplain space.maatini.eventsourcing.service.EventLogHead safe position}
+     */
+    public static Uni<List<CloudEvent>> findByType(String type, OffsetDateTime from, OffsetDateTime to,
+            Long afterPosition, long upToPosition, int limit) {
+        return findPage("type", type, from, to, afterPosition, upToPosition, limit);
+    }
+
+    /**
+     * Find one page of events by subject (aggregate ID), in {@code position}
+     * order. Parameters as for {@link #findByType}; no upper bound is needed,
+     * a subject's events become visible in position order.
+     */
+    public static Uni<List<CloudEvent>> findBySubject(String subject, OffsetDateTime from, OffsetDateTime to,
+            Long afterPosition, int limit) {
+        return findPage("subject", subject, from, to, afterPosition, null, limit);
+    }
+
+    /**
+     * Events of one aggregate after a global position, in stream order. Pass 0
+     * for the whole stream.
+     * <p>
+     * Only subject, type, position and stream version are read, plus the
+     * payload if {@code withData} is set. The events are not attached to the
+     * session, so they are never dirty-checked; they are meant for replaying
+     * onto an aggregate, not for modification.
+     */
+    public static Uni<List<CloudEvent>> findStream(String subject, long afterPosition, boolean withData) {
+        String sql = "SELECT type, position, stream_version" + (withData ? ", CAST(data AS text)" : "")
+                + " FROM events WHERE subject = ?1 AND position > ?2 ORDER BY stream_version";
+        return getSession().chain(session -> session.createNativeQuery(sql, Object[].class)
+                .setParameter(1, subject)
+                .setParameter(2, afterPosition)
+                .getResultList())
+                .map(rows -> {
+                    List<CloudEvent> events = new ArrayList<>(rows.size());
+                    for (Object[] row : rows) {
+                        CloudEvent event = new CloudEvent();
+                        event.setSubject(subject);
+                        event.setType((String) row[0]);
+                        event.setPosition(((Number) row[1]).longValue());
+                        event.setStreamVersion(row[2] != null ? ((Number) row[2]).longValue() : null);
+                        if (withData) {
+                            event.setRawData((String) row[3]);
+                        }
+                        events.add(event);
+                    }
+                    return events;
+                });
+    }
+
+    /**
+     * Keyset pagination: seeks past the previous page instead of skipping rows,
+     * so every page costs one index range scan on (attribute, position). With a
+     * {@code from} bound the scan starts at the first position inside the
+     * window, looked up on (attribute, created_at) (see V23).
      */
-    public static Uni<List<CloudEvent>> findByType(String type) {
-        return list("type", type);
+    private static Uni<List<CloudEvent>> findPage(String attribute, String value, OffsetDateTime from,
+            OffsetDateTime to, Long afterPosition, Long upToPosition, int limit) {
+        StringBuilder query = new StringBuilder(attribute).append(" = :value").append(window("", from, to));
+        Parameters params = Parameters.with("value", value);
+        if (from != null) {
+            params.and("from", from);
+            query.append(" and position >= (select min(w.position) from CloudEvent w where w.").append(attribute)
+                    .append(" = :value").append(window("w.", from, to)).append(")");
+        }
+        if (to != null) {
+            params.and("to", to);
+        }
+        if (afterPosition != null) {
+            query.append(" and position > :afterPosition");
+            params.and("afterPosition", afterPosition);
+        }
+        if (upToPosition != null) {
+            query.append(" and position <= :upToPosition");
+            params.and("upToPosition", upToPosition);
+        }
+        query.append(" order by position");
+        return CloudEvent.<CloudEvent>find(query.toString(), params).page(0, limit).list();
+    }
+
+    private static String window(String alias, OffsetDateTime from, OffsetDateTime to) {
+        return (from != null ? " and " + alias + "createdAt >= :from" : "")
+                + (to != null ? " and " + alias + "createdAt < :to" : "");
     }
 
     /**
-     * Find events by subject (aggregate ID).
+     * Insert all events with a single multi-row statement. Events whose ID already
+     * exists are skipped (idempotency), so the statement never fails on duplicates.
+     * The primary key includes the partition key, so duplicates across partitions
+     * are caught by the insert trigger rather than by ON CONFLICT (see V21).
+     * Rows are inserted in {@link #INSERT_ORDER}, so positions follow that order
+     * rather than the list order. Inserted events get their assigned {@link #position} and
+     * {@link #streamVersion} set. An event that already carries a stream version
+     * is only appended at exactly that version (see V18).
+     *
+     * @return the IDs of the rows that were actually inserted
      */
-    public static Uni<List<CloudEvent>> findBySubject(String subject) {
-        return list("subject = ?1 ORDER BY time ASC", subject);
+    public static Uni<Set<UUID>> insertAll(List<CloudEvent> events) {
+        if (events.isEmpty()) {
+            return Uni.createFrom().item(Set.of());
+        }
+        // The first event of each ID is the one that can be inserted
+        Map<UUID, CloudEvent> byId = new LinkedHashMap<>();
+        for (CloudEvent e : events) {
+            byId.putIfAbsent(e.getId(), e);
+        }
+        List<CloudEvent> rows = new ArrayList<>(byId.values());
+        rows.sort(INSERT_ORDER);
+
+        StringBuilder sql = new StringBuilder(
+                "WITH inserted AS (INSERT INTO events (id, source, specversion, type, subject, time, datacontenttype, dataschema, data, created_at, stream_version) VALUES ");
+        for (int i = 0; i < rows.size(); i++) {
+            int p = i * INSERT_COLUMNS;
+            sql.append(i == 0 ? "" : ", ")
+                    .append("(?").append(p + 1).append(", ?").append(p + 2).append(", ?").append(p + 3)
+                    .append(", ?").append(p + 4).append(", ?").append(p + 5).append(", ?").append(p + 6)
+                    .append(", ?").append(p + 7).append(", ?").append(p + 8)
+                    .append(", CAST(?").append(p + 9).append(" AS jsonb), ?").append(p + 10)
+                    .append(", CAST(?").append(p + 11).append(" AS bigint))");
+        }
+        sql.append(" ON CONFLICT DO NOTHING RETURNING id, position, stream_version)"
+                + " SELECT id, position, stream_version FROM inserted");
+
+        return getSession().chain(session -> {
+            var query = session.createNativeQuery(sql.toString(), Object[].class);
+            for (int i = 0; i < rows.size(); i++) {
+                CloudEvent e = rows.get(i);
+                int p = i * INSERT_COLUMNS;
+                query.setParameter(p + 1, e.getId())
+                        .setParameter(p + 2, e.getSource())
+                        .setParameter(p + 3, e.getSpecversion())
+                        .setParameter(p + 4, e.getType())
+                        .setParameter(p + 5, e.getSubject())
+                        .setParameter(p + 6, e.getTime())
+                        .setParameter(p + 7, e.getDatacontenttype())
+                        .setParameter(p + 8, e.getDataschema())
+                        .setParameter(p + 9, e.getRawData())
+                        .setParameter(p + 10, e.getCreatedAt())
+                        .setParameter(p + 11, e.getStreamVersion());
+            }
+            return query.getResultList();
+        }).map(result -> {
+            Set<UUID> inserted = new HashSet<>();
+            for (Object[] row : result) {
+                UUID id = (UUID) row[0];
+                CloudEvent e = byId.get(id);
+                e.setPosition(((Number) row[1]).longValue());
+                e.setStreamVersion(row[2] != null ? ((Number) row[2]).longValue() : null);
+                inserted.add(id);
+            }
+            return inserted;
+        });
     }
 
     public static Uni<List<CloudEvent>> findUnprocessed(int limit) {
@@ -207,8 +465,12 @@ public class CloudEvent extends PanacheEntityBase {
         // for multi-instance safety.
         // In Hibernate Reactive Panache, we can use getSession() to execute a native
         // query.
+        // The payload is read as text, like the column transformer on data does for HQL
         return getSession().chain(session -> session.createNativeQuery(
-                "SELECT * FROM events WHERE processed_at IS NULL AND retry_count < 5 ORDER BY created_at ASC FOR UPDATE SKIP LOCKED",
+                "SELECT id, source, specversion, type, subject, time, datacontenttype, dataschema, "
+                        + "CAST(data AS text) AS data, position, stream_version, created_at, processed_at, failed_at, "
+                        + "retry_count, error_message FROM events WHERE processed_at IS NULL AND retry_count < 5 "
+                        + "ORDER BY position ASC FOR UPDATE SKIP LOCKED",
                 CloudEvent.class)
                 .setMaxResults(limit)
                 .getResultList());
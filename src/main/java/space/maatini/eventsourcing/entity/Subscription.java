@@ -0,0 +1,89 @@
+package space.maatini.eventsourcing.entity;
+
+import java.time.OffsetDateTime;
+
+import io.quarkus.hibernate.reactive.panache.PanacheEntityBase;
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.Id;
+import jakarta.persistence.Table;
+
+/**
+ * Named consumer group with its committed position in the event log. Leases of
+ * polled events are kept in {@code subscription_leases}.
+ */
+@Entity
+@Table(name = "subscriptions")
+public class Subscription extends PanacheEntityBase {
+
+    @Id
+    private String name;
+
+    /**
+     * Event types delivered to this subscription, or null for all.
+     */
+    @Column(columnDefinition = "text[]")
+    private String[] types;
+
+    @Column(name = "committed_position", nullable = false)
+    private long committedPosition;
+
+    @Column(name = "leased_position", nullable = false)
+    private long leasedPosition;
+
+    @Column(name = "created_at", nullable = false)
+    private OffsetDateTime createdAt = OffsetDateTime.now();
+
+    @Column(name = "updated_at", nullable = false)
+    private OffsetDateTime updatedAt = OffsetDateTime.now();
+
+    // --- Getters & Setters ---
+
+    public String getName() {
+        return name;
+    }
+
+    public void setName(String name) {
+        this.name = name;
+    }
+
+    public String[] getTypes() {
+        return types;
+    }
+
+    public void setTypes(String[] types) {
+        this.types = types;
+    }
+
+    public long getCommittedPosition() {
+        return committedPosition;
+    }
+
+    public void setCommittedPosition(long committedPosition) {
+        this.committedPosition = committedPosition;
+    }
+
+    public long getLeasedPosition() {
+        return leasedPosition;
+    }
+
+    public void setLeasedPosition(long leasedPosition) {
+        this.leasedPosition = leasedPosition;
+    }
+
+    public OffsetDateTime getCreatedAt() {
+        return createdAt;
+    }
+
+    public void setCreatedAt(OffsetDateTime createdAt) {
+        this.createdAt = createdAt;
+    }
+
+    public OffsetDateTime getUpdatedAt() {
+        return updatedAt;
+    }
+
+    public void setUpdatedAt(OffsetDateTime updatedAt) {
+        this.updatedAt = updatedAt;
+    }
+}
@@ -0,0 +1,13 @@
+package space.maatini.eventsourcing.exception;
+
+/**
+ * The safe read bound of the event log could not be determined in time,
+ * because some transaction in the database cluster stayed open for longer
+ * than the configured timeout.
+ */
+public class LogHeadUnavailableException extends RuntimeException {
+
+    public LogHeadUnavailableException(long timeoutMs) {
+        super("No safe log position within " + timeoutMs + " ms, a long-running transaction is holding it back");
+    }
+}
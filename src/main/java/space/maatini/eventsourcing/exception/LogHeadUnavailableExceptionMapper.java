@@ -0,0 +1,26 @@
+package space.maatini.eventsourcing.exception;
+
+import space.maatini.eventsourcing.dto.ErrorResponse;
+
+import jakarta.ws.rs.core.HttpHeaders;
+import jakarta.ws.rs.core.Response;
+import jakarta.ws.rs.ext.ExceptionMapper;
+import jakarta.ws.rs.ext.Provider;
+
+/**
+ * Maps reads that could not determine the safe log position to 503 Service
+ * Unavailable.
+ */
+@Provider
+public class LogHeadUnavailableExceptionMapper implements ExceptionMapper<LogHeadUnavailableException> {
+
+    private static final String RETRY_AFTER_SECONDS = "5";
+
+    @Override
+    public Response toResponse(LogHeadUnavailableException exception) {
+        return Response.status(Response.Status.SERVICE_UNAVAILABLE)
+                .header(HttpHeaders.RETRY_AFTER, RETRY_AFTER_SECONDS)
+                .entity(new ErrorResponse("Log position unavailable", exception.getMessage()))
+                .build();
+    }
+}
@@ -0,0 +1,49 @@
+package space.maatini.eventsourcing.exception;
+
+/**
+ * An append to an event stream expected a version the stream is no longer at,
+ * either because the caller pinned an outdated version or because another
+ * writer appended concurrently.
+ */
+public class StreamVersionConflictException extends RuntimeException {
+
+    /**
+     * Name under which the database reports the conflict (see V18).
+     */
+    public static final String CONSTRAINT = "uq_events_subject_stream_version";
+
+    private final String subject;
+
+    public StreamVersionConflictException(String subject, String message, Throwable cause) {
+        super(message, cause);
+        this.subject = subject;
+    }
+
+    public StreamVersionConflictException(String subject, long expected, long actual) {
+        this(subject, "Stream " + subject + " is at version " + actual + ", expected " + expected, null);
+    }
+
+    public String getSubject() {
+        return subject;
+    }
+
+    /**
+     * Whether a failure is the database rejecting an append because of its
+     * expected stream version.
+     */
+    public static boolean isConflict(Throwable failure) {
+        for (Throwable t = failure; t != null; t = t.getCause()) {
+            if (t instanceof org.hibernate.exception.ConstraintViolationException violation
+                    && CONSTRAINT.equals(violation.getConstraintName())) {
+                return true;
+            }
+            if (t.getMessage() != null && t.getMessage().contains(CONSTRAINT)) {
+                return true;
+            }
+            if (t.getCause() == t) {
+                break;
+            }
+        }
+        return false;
+    }
+}
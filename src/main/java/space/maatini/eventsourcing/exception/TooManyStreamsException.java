@@ -0,0 +1,12 @@
+package space.maatini.eventsourcing.exception;
+
+/**
+ * A query stream was refused because the configured number of server-side
+ * cursors is already open.
+ */
+public class TooManyStreamsException extends RuntimeException {
+
+    public TooManyStreamsException(int limit) {
+        super("All " + limit + " query streams are in use, try again later");
+    }
+}
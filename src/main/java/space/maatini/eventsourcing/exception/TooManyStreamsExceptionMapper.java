@@ -0,0 +1,25 @@
+package space.maatini.eventsourcing.exception;
+
+import space.maatini.eventsourcing.dto.ErrorResponse;
+
+import jakarta.ws.rs.core.HttpHeaders;
+import jakarta.ws.rs.core.Response;
+import jakarta.ws.rs.ext.ExceptionMapper;
+import jakarta.ws.rs.ext.Provider;
+
+/**
+ * Maps refused query streams to 503 Service Unavailable.
+ */
+@Provider
+public class TooManyStreamsExceptionMapper implements ExceptionMapper<TooManyStreamsException> {
+
+    private static final String RETRY_AFTER_SECONDS = "1";
+
+    @Override
+    public Response toResponse(TooManyStreamsException exception) {
+        return Response.status(Response.Status.SERVICE_UNAVAILABLE)
+                .header(HttpHeaders.RETRY_AFTER, RETRY_AFTER_SECONDS)
+                .entity(new ErrorResponse("Too many streams", exception.getMessage()))
+                .build();
+    }
+}
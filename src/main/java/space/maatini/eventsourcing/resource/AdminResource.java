@@ -1,8 +1,13 @@
 package space.maatini.eventsourcing.resource;
 
 import space.maatini.eventsourcing.dto.ErrorResponse;
+import space.maatini.eventsourcing.service.BulkImportService;
+import space.maatini.eventsourcing.service.BulkImportService.ImportResult;
 import space.maatini.eventsourcing.service.ProjectionService;
+import io.quarkus.logging.Log;
+import io.smallrye.common.annotation.Blocking;
 import io.smallrye.mutiny.Uni;
+import jakarta.ws.rs.Consumes;
 import jakarta.ws.rs.POST;
 import jakarta.ws.rs.Path;
 import jakarta.ws.rs.Produces;
@@ -11,7 +16,10 @@ import jakarta.ws.rs.core.MediaType;
 import jakarta.ws.rs.core.Response;
 import org.eclipse.microprofile.openapi.annotations.Operation;
 import org.eclipse.microprofile.openapi.annotations.tags.Tag;
+import org.jboss.resteasy.reactive.common.util.RestMediaType;
 
+import java.io.InputStream;
+import java.sql.SQLException;
 import java.util.UUID;
 
 /**
@@ -22,10 +30,14 @@ import java.util.UUID;
 @Tag(name = "Admin", description = "Administration and maintenance endpoints")
 public class AdminResource {
 
+    private static final String TEXT_CSV = "text/csv";
+
     private final ProjectionService projectorService;
+    private final BulkImportService bulkImportService;
 
-    public AdminResource(ProjectionService projectorService) {
+    public AdminResource(ProjectionService projectorService, BulkImportService bulkImportService) {
         this.projectorService = projectorService;
+        this.bulkImportService = bulkImportService;
     }
 
     @POST
@@ -40,15 +52,66 @@ public class AdminResource {
     @Path("/replay")
     @Operation(summary = "Replay all events", description = "Deletes all aggregates and re-processes every event from the beginning (full replay). "
             +
-            "Optionally start from a specific event ID.")
+            "Optionally start from a specific event ID, which may be archived; an unknown ID is rejected.")
     public Uni<Response> replayAll(@QueryParam("fromEventId") UUID fromEventId) {
         return projectorService.replayAll(fromEventId)
                 .map(count -> Response.ok(new ReplayResult(count)).build())
+                .onFailure(IllegalArgumentException.class).recoverWithItem(failure -> Response
+                        .status(Response.Status.BAD_REQUEST)
+                        .entity(new ErrorResponse("Replay rejected", failure.getMessage()))
+                        .build())
                 .onFailure().recoverWithItem(failure -> Response.status(Response.Status.INTERNAL_SERVER_ERROR)
                         .entity(new ErrorResponse("Replay failed", failure.getMessage()))
                         .build());
     }
 
+    @POST
+    @Path("/import")
+    @Blocking
+    @Consumes(RestMediaType.APPLICATION_NDJSON)
+    @Operation(summary = "Bulk import events (NDJSON)", description = "Loads newline-delimited CloudEvents via COPY into a staging table and merges them into the event store. "
+            +
+            "Existing event IDs are skipped. Projection is woken up once after the import instead of once per event. "
+            + "The body is only bounded by quarkus.http.limits.max-body-size, not by the regular request limit.")
+    public Response importNdjson(InputStream body) {
+        return runImport(() -> bulkImportService.importNdjson(body));
+    }
+
+    @POST
+    @Path("/import")
+    @Blocking
+    @Consumes(TEXT_CSV)
+    @Operation(summary = "Bulk import events (CSV)", description = "Loads CloudEvents from CSV with header row (id, source, specversion, type, subject, time, datacontenttype, dataschema, data) via COPY. "
+            +
+            "Existing event IDs are skipped. The body is only bounded by quarkus.http.limits.max-body-size.")
+    public Response importCsv(InputStream body) {
+        return runImport(() -> bulkImportService.importCsv(body));
+    }
+
+    private Response runImport(ImportCall call) {
+        try {
+            return Response.ok(call.run()).build();
+        } catch (SQLException e) {
+            Log.warn("Bulk import failed", e);
+            // Class 22 (data exception) and 23 (integrity violation) mean bad input
+            boolean badInput = e.getSQLState() != null
+                    && (e.getSQLState().startsWith("22") || e.getSQLState().startsWith("23"));
+            return Response.status(badInput ? Response.Status.BAD_REQUEST : Response.Status.INTERNAL_SERVER_ERROR)
+                    .entity(new ErrorResponse("Import failed", e.getMessage()))
+                    .build();
+        } catch (Exception e) {
+            Log.warn("Bulk import failed", e);
+            return Response.status(Response.Status.INTERNAL_SERVER_ERROR)
+                    .entity(new ErrorResponse("Import failed", e.getMessage()))
+                    .build();
+        }
+    }
+
+    @FunctionalInterface
+    private interface ImportCall {
+        ImportResult run() throws Exception;
+    }
+
     // ==================== Inner Result Records ====================
 
     /**
@@ -0,0 +1,37 @@
+package space.maatini.eventsourcing.resource;
+
+import jakarta.ws.rs.HttpMethod;
+import jakarta.ws.rs.container.ContainerRequestContext;
+import jakarta.ws.rs.container.ContainerRequestFilter;
+import jakarta.ws.rs.container.PreMatching;
+import jakarta.ws.rs.core.UriInfo;
+import jakarta.ws.rs.ext.Provider;
+
+/**
+ * Routes CloudEvents sent in HTTP binary content mode to the binary endpoint.
+ * <p>
+ * Binary and structured events share {@code POST /events} and usually also the
+ * {@code application/json} content type; only the presence of the
+ * {@code ce-id} header tells them apart, which resource matching cannot do.
+ */
+@Provider
+@PreMatching
+public class CloudEventsBinaryModeFilter implements ContainerRequestFilter {
+
+    static final String CE_ID = "ce-id";
+
+    @Override
+    public void filter(ContainerRequestContext requestContext) {
+        if (!HttpMethod.POST.equals(requestContext.getMethod()) || requestContext.getHeaderString(CE_ID) == null) {
+            return;
+        }
+        UriInfo uriInfo = requestContext.getUriInfo();
+        String path = uriInfo.getPath();
+        if ("/events".equals(path) || "/events/".equals(path)) {
+            requestContext.setRequestUri(uriInfo.getBaseUriBuilder()
+                    .path("events/binary")
+                    .replaceQuery(uriInfo.getRequestUri().getRawQuery())
+                    .build());
+        }
+    }
+}
@@ -1,28 +1,69 @@
 package space.maatini.eventsourcing.resource;
 
+import java.io.IOException;
+import java.io.InputStream;
 import java.net.URI;
+import java.time.OffsetDateTime;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Set;
 import java.util.UUID;
+import java.util.function.Function;
+import java.util.stream.Collectors;
 
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+
+import space.maatini.eventsourcing.dto.BinaryCloudEventDTO;
 import space.maatini.eventsourcing.dto.CloudEventDTO;
+import space.maatini.eventsourcing.dto.ErrorResponse;
+import space.maatini.eventsourcing.dto.EventCursor;
+import space.maatini.eventsourcing.entity.CloudEvent;
 import space.maatini.eventsourcing.service.EventService;
+import space.maatini.eventsourcing.service.EventService.BatchItemResult;
+import space.maatini.eventsourcing.service.EventService.BatchItemStatus;
+import space.maatini.eventsourcing.service.EventService.EventPage;
+import space.maatini.eventsourcing.service.EventStreamReader;
+import space.maatini.eventsourcing.service.EventSubscriptionHub;
+import space.maatini.eventsourcing.service.GroupCommitBuffer;
+import space.maatini.eventsourcing.service.StreamIngestService;
+import space.maatini.eventsourcing.service.StreamIngestService.ChunkAck;
+import io.smallrye.common.annotation.Blocking;
+import io.smallrye.mutiny.Multi;
 import io.smallrye.mutiny.Uni;
 import jakarta.validation.Valid;
+import jakarta.validation.constraints.Max;
+import jakarta.validation.constraints.Min;
+import jakarta.validation.constraints.NotBlank;
+import jakarta.validation.constraints.NotEmpty;
+import jakarta.validation.constraints.NotNull;
+import jakarta.validation.constraints.Size;
 import jakarta.ws.rs.Consumes;
+import jakarta.ws.rs.DefaultValue;
 import jakarta.ws.rs.GET;
+import jakarta.ws.rs.HeaderParam;
 import jakarta.ws.rs.POST;
 import jakarta.ws.rs.Path;
 import jakarta.ws.rs.PathParam;
 import jakarta.ws.rs.Produces;
+import jakarta.ws.rs.QueryParam;
+import jakarta.ws.rs.WebApplicationException;
+import jakarta.ws.rs.core.Context;
 import jakarta.ws.rs.core.MediaType;
 import jakarta.ws.rs.core.Response;
+import jakarta.ws.rs.core.UriInfo;
 
 import org.eclipse.microprofile.openapi.annotations.Operation;
+import org.eclipse.microprofile.openapi.annotations.enums.SchemaType;
 import org.eclipse.microprofile.openapi.annotations.media.Content;
 import org.eclipse.microprofile.openapi.annotations.media.Schema;
 import org.eclipse.microprofile.openapi.annotations.parameters.RequestBody;
 import org.eclipse.microprofile.openapi.annotations.responses.APIResponse;
 import org.eclipse.microprofile.openapi.annotations.responses.APIResponses;
 import org.eclipse.microprofile.openapi.annotations.tags.Tag;
+import org.jboss.resteasy.reactive.RestStreamElementType;
+import org.jboss.resteasy.reactive.common.util.RestMediaType;
 
 /**
  * REST endpoint for CloudEvents ingestion.
@@ -33,10 +74,38 @@ import org.eclipse.microprofile.openapi.annotations.tags.Tag;
 @Tag(name = "Events", description = "CloudEvents ingestion API")
 public class EventResource {
 
+    /**
+     * Media type for CloudEvents batch content mode.
+     */
+    public static final String CLOUDEVENTS_BATCH_JSON = "application/cloudevents-batch+json";
+
+    static final int MAX_BATCH_SIZE = 1000;
+
+    static final String DEFAULT_PAGE_SIZE = "100";
+
+    static final int MAX_PAGE_SIZE = 1000;
+
+    /**
+     * Response header carrying the continuation token of a paginated query.
+     */
+    public static final String NEXT_CURSOR_HEADER = "X-Next-Cursor";
+
+    private static final JsonFactory JSON_FACTORY = new JsonFactory();
+
     private final EventService eventService;
+    private final GroupCommitBuffer groupCommitBuffer;
+    private final StreamIngestService streamIngestService;
+    private final EventStreamReader eventStreamReader;
+    private final EventSubscriptionHub subscriptionHub;
 
-    public EventResource(EventService eventService) {
+    public EventResource(EventService eventService, GroupCommitBuffer groupCommitBuffer,
+            StreamIngestService streamIngestService, EventStreamReader eventStreamReader,
+            EventSubscriptionHub subscriptionHub) {
         this.eventService = eventService;
+        this.groupCommitBuffer = groupCommitBuffer;
+        this.streamIngestService = streamIngestService;
+        this.eventStreamReader = eventStreamReader;
+        this.subscriptionHub = subscriptionHub;
     }
 
     @POST
@@ -48,19 +117,87 @@ public class EventResource {
             @APIResponse(responseCode = "400", description = "Invalid event payload")
     })
     public Uni<Response> createEvent(@Valid CloudEventDTO event) {
-        return eventService.storeEvent(event)
-                .map(result -> {
-                    if (result.alreadyExisted()) {
-                        // Return 200 OK for idempotent duplicate
-                        return Response.ok(result.event()).build();
-                    }
-                    // Return 201 Created for new event
-                    return Response.created(URI.create("/events/" + result.event().getId()))
-                            .entity(result.event())
-                            .build();
+        Uni<EventService.EventResult> stored = groupCommitBuffer.isEnabled()
+                ? groupCommitBuffer.submit(event)
+                : eventService.storeEvent(event);
+        return stored.map(this::toResponse);
+    }
+
+    @POST
+    @Path("/batch")
+    @Consumes({ MediaType.APPLICATION_JSON, CLOUDEVENTS_BATCH_JSON })
+    @Operation(summary = "Ingest a batch of CloudEvents", description = "Store up to 1000 CloudEvents in one request. Idempotent per event - duplicates are reported but not re-processed.")
+    @RequestBody(description = "CloudEvents to store", required = true, content = @Content(schema = @Schema(implementation = CloudEventDTO.class, type = SchemaType.ARRAY)))
+    @APIResponses({
+            @APIResponse(responseCode = "200", description = "Batch stored, status per event"),
+            @APIResponse(responseCode = "400", description = "Invalid event payload")
+    })
+    public Uni<Response> createEvents(
+            @Valid @NotEmpty(message = "Batch must contain at least one event") @Size(max = MAX_BATCH_SIZE, message = "Batch must not contain more than 1000 events") List<@Valid CloudEventDTO> events) {
+        return eventService.storeEvents(events)
+                .map(results -> {
+                    int created = (int) results.stream().filter(r -> r.status() == BatchItemStatus.CREATED).count();
+                    return Response.ok(new BatchResult(created, results.size() - created, results)).build();
                 });
     }
 
+    /**
+     * Binary content mode: attributes in {@code ce-*} headers, payload as body.
+     * {@code POST /events} requests carrying a {@code ce-id} header are routed
+     * here by {@link CloudEventsBinaryModeFilter}.
+     */
+    @POST
+    @Path("/binary")
+    @Consumes(MediaType.WILDCARD)
+    @Operation(summary = "Ingest a CloudEvent in binary content mode", description = "Event attributes are read from ce-* headers, the JSON body is stored as event data without re-encoding. "
+            + "POST /events with a ce-id header is handled by this endpoint. Idempotent like POST /events.")
+    @APIResponses({
+            @APIResponse(responseCode = "201", description = "Event created"),
+            @APIResponse(responseCode = "200", description = "Event already exists (idempotent)"),
+            @APIResponse(responseCode = "400", description = "Missing attributes or body is not a JSON object"),
+            @APIResponse(responseCode = "415", description = "Content type is not JSON")
+    })
+    public Uni<Response> createBinaryEvent(
+            @HeaderParam("ce-id") @NotNull(message = "Event ID is required") UUID id,
+            @HeaderParam("ce-source") @NotBlank(message = "Source is required") String source,
+            @HeaderParam("ce-specversion") String specversion,
+            @HeaderParam("ce-type") @NotBlank(message = "Event type is required") String type,
+            @HeaderParam("ce-subject") String subject,
+            @HeaderParam("ce-time") OffsetDateTime time,
+            @HeaderParam("ce-dataschema") String dataschema,
+            @HeaderParam("Content-Type") MediaType contentType,
+            String data) {
+        if (contentType != null && !isJson(contentType)) {
+            return Uni.createFrom().item(Response.status(Response.Status.UNSUPPORTED_MEDIA_TYPE)
+                    .entity(new ErrorResponse("Unsupported content type",
+                            "Binary mode events must carry JSON data, got " + contentType))
+                    .build());
+        }
+        if (!isJsonObject(data)) {
+            return Uni.createFrom().item(Response.status(Response.Status.BAD_REQUEST)
+                    .entity(new ErrorResponse("Invalid event data", "Event data must be a JSON object"))
+                    .build());
+        }
+        String datacontenttype = contentType != null ? contentType.getType() + "/" + contentType.getSubtype() : null;
+        return eventService.storeBinaryEvent(new BinaryCloudEventDTO(id, source, specversion, type, subject, time,
+                datacontenttype, dataschema, data))
+                .map(this::toResponse);
+    }
+
+    @POST
+    @Path("/stream")
+    @Blocking
+    @Consumes(RestMediaType.APPLICATION_NDJSON)
+    @Produces(RestMediaType.APPLICATION_NDJSON)
+    @RestStreamElementType(MediaType.APPLICATION_JSON)
+    @Operation(summary = "Stream CloudEvents", description = "Bulk load newline-delimited CloudEvents. The body is only bounded by quarkus.http.limits.max-body-size, not by the regular request limit. Events are stored in chunks as they arrive and one acknowledgement line is streamed back per chunk. Idempotent per event; invalid lines are reported and skipped.")
+    @APIResponses({
+            @APIResponse(responseCode = "200", description = "Acknowledgements per stored chunk")
+    })
+    public Multi<ChunkAck> streamEvents(InputStream body) {
+        return streamIngestService.ingest(body);
+    }
+
     @GET
     @Path("/{id}")
     @Operation(summary = "Get event by ID", description = "Retrieve a single CloudEvent by its ID")
@@ -80,17 +217,159 @@ public class EventResource {
 
     @GET
     @Path("/subject/{subject}")
-    @Operation(summary = "Get events by subject", description = "Retrieve all events for a given subject/aggregate ID")
-    public Uni<Response> getEventsBySubject(@PathParam("subject") String subject) {
-        return eventService.findBySubject(subject)
-                .map(events -> Response.ok(events).build());
+    @Operation(summary = "Get events by subject", description = "Retrieve one page of events for a given subject/aggregate ID, oldest first. "
+            + "If more events follow, the X-Next-Cursor header and a Link rel=next header point to the next page.")
+    @APIResponses({
+            @APIResponse(responseCode = "200", description = "Page of events"),
+            @APIResponse(responseCode = "400", description = "Invalid cursor or limit")
+    })
+    public Uni<Response> getEventsBySubject(@PathParam("subject") String subject,
+            @QueryParam("limit") @DefaultValue(DEFAULT_PAGE_SIZE) @Min(value = 1, message = "limit must be at least 1") @Max(value = MAX_PAGE_SIZE, message = "limit must not exceed 1000") int limit,
+            @QueryParam("after") String after,
+            @QueryParam("from") OffsetDateTime from,
+            @QueryParam("to") OffsetDateTime to,
+            @Context UriInfo uriInfo) {
+        return page(after, uriInfo, cursor -> eventService.findBySubject(subject, from, to, cursor, limit));
     }
 
     @GET
     @Path("/type/{type}")
-    @Operation(summary = "Get events by type", description = "Retrieve all events of a given type")
-    public Uni<Response> getEventsByType(@PathParam("type") String type) {
-        return eventService.findByType(type)
-                .map(events -> Response.ok(events).build());
+    @Operation(summary = "Get events by type", description = "Retrieve one page of events of a given type, oldest first. "
+            + "If more events follow, the X-Next-Cursor header and a Link rel=next header point to the next page.")
+    @APIResponses({
+            @APIResponse(responseCode = "200", description = "Page of events"),
+            @APIResponse(responseCode = "400", description = "Invalid cursor or limit")
+    })
+    public Uni<Response> getEventsByType(@PathParam("type") String type,
+            @QueryParam("limit") @DefaultValue(DEFAULT_PAGE_SIZE) @Min(value = 1, message = "limit must be at least 1") @Max(value = MAX_PAGE_SIZE, message = "limit must not exceed 1000") int limit,
+            @QueryParam("after") String after,
+            @QueryParam("from") OffsetDateTime from,
+            @QueryParam("to") OffsetDateTime to,
+            @Context UriInfo uriInfo) {
+        return page(after, uriInfo, cursor -> eventService.findByType(type, from, to, cursor, limit));
+    }
+
+    @GET
+    @Path("/subject/{subject}/stream")
+    @Produces({ RestMediaType.APPLICATION_NDJSON, MediaType.SERVER_SENT_EVENTS })
+    @RestStreamElementType(MediaType.APPLICATION_JSON)
+    @Operation(summary = "Stream events by subject", description = "Stream every event for a subject, oldest first, as NDJSON or server-sent events. "
+            + "GET /events/subject/{subject} with one of these Accept types is served by this endpoint.")
+    public Multi<CloudEvent> streamEventsBySubject(@PathParam("subject") String subject,
+            @QueryParam("after") String after,
+            @QueryParam("from") OffsetDateTime from,
+            @QueryParam("to") OffsetDateTime to) {
+        return eventStreamReader.streamBySubject(subject, from, to, decodeCursor(after));
+    }
+
+    @GET
+    @Path("/type/{type}/stream")
+    @Produces({ RestMediaType.APPLICATION_NDJSON, MediaType.SERVER_SENT_EVENTS })
+    @RestStreamElementType(MediaType.APPLICATION_JSON)
+    @Operation(summary = "Stream events by type", description = "Stream every event of a type, oldest first, as NDJSON or server-sent events. "
+            + "GET /events/type/{type} with one of these Accept types is served by this endpoint.")
+    public Multi<CloudEvent> streamEventsByType(@PathParam("type") String type,
+            @QueryParam("after") String after,
+            @QueryParam("from") OffsetDateTime from,
+            @QueryParam("to") OffsetDateTime to) {
+        return eventStreamReader.streamByType(type, from, to, decodeCursor(after));
+    }
+
+    @GET
+    @Path("/subscribe")
+    @Produces({ RestMediaType.APPLICATION_NDJSON, MediaType.SERVER_SENT_EVENTS })
+    @RestStreamElementType(MediaType.APPLICATION_JSON)
+    @Operation(summary = "Subscribe to events", description = "Stream the events from fromPosition on in log order, then keep the connection open and deliver new events as they are stored. "
+            + "Without fromPosition only new events are delivered. types restricts the stream to some event types (repeated or comma-separated). "
+            + "Subscribers that fall too far behind are disconnected and resume with the position of the last event they received + 1.")
+    @APIResponses({
+            @APIResponse(responseCode = "200", description = "Event stream"),
+            @APIResponse(responseCode = "400", description = "Invalid position")
+    })
+    public Multi<CloudEvent> subscribe(
+            @QueryParam("fromPosition") @Min(value = 1, message = "fromPosition must be at least 1") Long fromPosition,
+            @QueryParam("types") List<String> types) {
+        Set<String> typeFilter = types == null ? Set.of()
+                : types.stream()
+                        .flatMap(value -> Arrays.stream(value.split(",")))
+                        .map(String::trim)
+                        .filter(type -> !type.isEmpty())
+                        .collect(Collectors.toUnmodifiableSet());
+        return subscriptionHub.subscribe(fromPosition, typeFilter);
+    }
+
+    /**
+     * Streams commit to a status before the first element, so a bad cursor has to
+     * be rejected up front.
+     */
+    private static EventCursor decodeCursor(String after) {
+        try {
+            return after != null ? EventCursor.decode(after) : null;
+        } catch (IllegalArgumentException e) {
+            throw new WebApplicationException(Response.status(Response.Status.BAD_REQUEST)
+                    .type(MediaType.APPLICATION_JSON)
+                    .entity(new ErrorResponse("Invalid cursor", e.getMessage()))
+                    .build());
+        }
+    }
+
+    private Uni<Response> page(String after, UriInfo uriInfo, Function<EventCursor, Uni<EventPage>> query) {
+        EventCursor cursor;
+        try {
+            cursor = after != null ? EventCursor.decode(after) : null;
+        } catch (IllegalArgumentException e) {
+            return Uni.createFrom().item(Response.status(Response.Status.BAD_REQUEST)
+                    .entity(new ErrorResponse("Invalid cursor", e.getMessage()))
+                    .build());
+        }
+        return query.apply(cursor).map(page -> {
+            Response.ResponseBuilder response = Response.ok(page.events());
+            if (page.next() != null) {
+                String token = page.next().encode();
+                response.header(NEXT_CURSOR_HEADER, token)
+                        .link(uriInfo.getRequestUriBuilder().replaceQueryParam("after", token).build(), "next");
+            }
+            return response.build();
+        });
+    }
+
+    private Response toResponse(EventService.EventResult result) {
+        if (result.alreadyExisted()) {
+            // Return 200 OK for idempotent duplicate
+            return Response.ok(result.event()).build();
+        }
+        // Return 201 Created for new event
+        return Response.created(URI.create("/events/" + result.event().getId()))
+                .entity(result.event())
+                .build();
+    }
+
+    private static boolean isJson(MediaType mediaType) {
+        return MediaType.APPLICATION_JSON_TYPE.isCompatible(mediaType) || mediaType.getSubtype().endsWith("+json");
+    }
+
+    /**
+     * Checks that the payload is a single well-formed JSON object by streaming over
+     * its tokens, without building a tree or map.
+     */
+    private static boolean isJsonObject(String data) {
+        if (data == null || data.isBlank()) {
+            return false;
+        }
+        try (JsonParser parser = JSON_FACTORY.createParser(data)) {
+            if (parser.nextToken() != JsonToken.START_OBJECT) {
+                return false;
+            }
+            parser.skipChildren();
+            return parser.nextToken() == null;
+        } catch (IOException e) {
+            return false;
+        }
+    }
+
+    /**
+     * Result for batch ingestion.
+     */
+    public record BatchResult(int created, int duplicates, List<BatchItemResult> results) {
     }
 }
@@ -0,0 +1,59 @@
+package space.maatini.eventsourcing.resource;
+
+import jakarta.ws.rs.HttpMethod;
+import jakarta.ws.rs.container.ContainerRequestContext;
+import jakarta.ws.rs.container.ContainerRequestFilter;
+import jakarta.ws.rs.container.PreMatching;
+import jakarta.ws.rs.core.MediaType;
+import jakarta.ws.rs.core.UriInfo;
+import jakarta.ws.rs.ext.Provider;
+
+import java.util.List;
+import java.util.regex.Pattern;
+
+import org.jboss.resteasy.reactive.common.util.RestMediaType;
+
+/**
+ * Routes event queries that prefer a streaming media type to the streaming
+ * endpoints.
+ * <p>
+ * {@code GET /events/type/{type}} and {@code GET /events/subject/{subject}}
+ * answer with a JSON array page by default. If the client's most preferred
+ * {@code Accept} type is NDJSON or server-sent events, the request is forwarded
+ * to the corresponding {@code .../stream} endpoint instead, so that clients
+ * without a wildcard preference never land on the wrong representation.
+ */
+@Provider
+@PreMatching
+public class EventStreamNegotiationFilter implements ContainerRequestFilter {
+
+    private static final Pattern QUERY_PATH = Pattern.compile("/events/(type|subject)/[^/]+/?");
+
+    private static final MediaType NDJSON = MediaType.valueOf(RestMediaType.APPLICATION_NDJSON);
+
+    @Override
+    public void filter(ContainerRequestContext requestContext) {
+        if (!HttpMethod.GET.equals(requestContext.getMethod()) || !prefersStream(requestContext.getAcceptableMediaTypes())) {
+            return;
+        }
+        UriInfo uriInfo = requestContext.getUriInfo();
+        String path = uriInfo.getPath();
+        if (QUERY_PATH.matcher(path).matches()) {
+            String rawPath = uriInfo.getRequestUri().getRawPath();
+            requestContext.setRequestUri(uriInfo.getRequestUriBuilder()
+                    .replacePath(rawPath.endsWith("/") ? rawPath + "stream" : rawPath + "/stream")
+                    .build());
+        }
+    }
+
+    private static boolean prefersStream(List<MediaType> acceptable) {
+        if (acceptable.isEmpty()) {
+            return false;
+        }
+        MediaType preferred = acceptable.get(0);
+        if (preferred.isWildcardType() || preferred.isWildcardSubtype()) {
+            return false;
+        }
+        return NDJSON.isCompatible(preferred) || MediaType.SERVER_SENT_EVENTS_TYPE.isCompatible(preferred);
+    }
+}
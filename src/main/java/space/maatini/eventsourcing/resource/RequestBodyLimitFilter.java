@@ -0,0 +1,64 @@
+package space.maatini.eventsourcing.resource;
+
+import io.quarkus.runtime.configuration.MemorySize;
+import jakarta.inject.Inject;
+import jakarta.ws.rs.HttpMethod;
+import jakarta.ws.rs.container.ContainerRequestContext;
+import jakarta.ws.rs.container.ContainerRequestFilter;
+import jakarta.ws.rs.container.PreMatching;
+import jakarta.ws.rs.core.HttpHeaders;
+import jakarta.ws.rs.core.Response;
+import jakarta.ws.rs.ext.Provider;
+import org.eclipse.microprofile.config.inject.ConfigProperty;
+import space.maatini.eventsourcing.dto.ErrorResponse;
+
+import java.util.regex.Pattern;
+
+/**
+ * Body size limit for every endpoint except the streaming uploads.
+ * <p>
+ * {@code POST /events/stream} and {@code POST /admin/import} read their body
+ * as a stream and store it chunk by chunk, so {@code quarkus.http.limits.max-body-size}
+ * is raised far enough for them. All other requests are rejected with 413 when
+ * their {@code Content-Length} exceeds {@code eventsourcing.http.max-body-size}.
+ * A body sent without a length is only bounded by the global limit.
+ */
+@Provider
+@PreMatching
+public class RequestBodyLimitFilter implements ContainerRequestFilter {
+
+    private static final Pattern UPLOAD_PATH = Pattern.compile("/(events/stream|admin/import)/?");
+
+    private final long maxBodySize;
+
+    @Inject
+    public RequestBodyLimitFilter(
+            @ConfigProperty(name = "eventsourcing.http.max-body-size", defaultValue = "10M") MemorySize maxBodySize) {
+        this.maxBodySize = maxBodySize.asLongValue();
+    }
+
+    @Override
+    public void filter(ContainerRequestContext requestContext) {
+        // getLength() reports -1 for bodies above 2 GB, so read the header itself
+        String contentLength = requestContext.getHeaderString(HttpHeaders.CONTENT_LENGTH);
+        if (contentLength == null || parse(contentLength) <= maxBodySize) {
+            return;
+        }
+        if (HttpMethod.POST.equals(requestContext.getMethod())
+                && UPLOAD_PATH.matcher(requestContext.getUriInfo().getPath()).matches()) {
+            return;
+        }
+        requestContext.abortWith(Response.status(Response.Status.REQUEST_ENTITY_TOO_LARGE)
+                .entity(new ErrorResponse("Request too large", "Request body exceeds " + maxBodySize + " bytes"))
+                .build());
+    }
+
+    private static long parse(String contentLength) {
+        try {
+            return Long.parseLong(contentLength.trim());
+        } catch (NumberFormatException e) {
+            // Rejected by the HTTP layer
+            return -1;
+        }
+    }
+}
@@ -0,0 +1,129 @@
+package space.maatini.eventsourcing.resource;
+
+import java.net.URI;
+
+import space.maatini.eventsourcing.dto.AckDTO;
+import space.maatini.eventsourcing.dto.ErrorResponse;
+import space.maatini.eventsourcing.dto.SubscriptionDTO;
+import space.maatini.eventsourcing.service.SubscriptionService;
+import io.smallrye.mutiny.Uni;
+import jakarta.validation.Valid;
+import jakarta.validation.constraints.Max;
+import jakarta.validation.constraints.Min;
+import jakarta.validation.constraints.NotNull;
+import jakarta.validation.constraints.Pattern;
+import jakarta.ws.rs.Consumes;
+import jakarta.ws.rs.DELETE;
+import jakarta.ws.rs.DefaultValue;
+import jakarta.ws.rs.GET;
+import jakarta.ws.rs.POST;
+import jakarta.ws.rs.PUT;
+import jakarta.ws.rs.Path;
+import jakarta.ws.rs.PathParam;
+import jakarta.ws.rs.Produces;
+import jakarta.ws.rs.QueryParam;
+import jakarta.ws.rs.core.MediaType;
+import jakarta.ws.rs.core.Response;
+
+import org.eclipse.microprofile.openapi.annotations.Operation;
+import org.eclipse.microprofile.openapi.annotations.responses.APIResponse;
+import org.eclipse.microprofile.openapi.annotations.responses.APIResponses;
+import org.eclipse.microprofile.openapi.annotations.tags.Tag;
+
+/**
+ * REST endpoint for server-side consumer groups (pull/ack).
+ */
+@Path("/subscriptions/{name}")
+@Produces(MediaType.APPLICATION_JSON)
+@Consumes(MediaType.APPLICATION_JSON)
+@Tag(name = "Subscriptions", description = "Consumer groups with stored positions")
+public class SubscriptionResource {
+
+    static final String DEFAULT_POLL_SIZE = "100";
+
+    static final int MAX_POLL_SIZE = 1000;
+
+    private static final String NAME_PATTERN = "[A-Za-z0-9._-]{1,255}";
+
+    private final SubscriptionService subscriptionService;
+
+    public SubscriptionResource(SubscriptionService subscriptionService) {
+        this.subscriptionService = subscriptionService;
+    }
+
+    @PUT
+    @Operation(summary = "Create subscription", description = "Create a named subscription, optionally starting at a position and restricted to some event types. "
+            + "Idempotent - an existing subscription is returned unchanged.")
+    @APIResponses({
+            @APIResponse(responseCode = "201", description = "Subscription created"),
+            @APIResponse(responseCode = "200", description = "Subscription already exists"),
+            @APIResponse(responseCode = "400", description = "Invalid name or settings")
+    })
+    public Uni<Response> create(@PathParam("name") @Pattern(regexp = NAME_PATTERN, message = "Invalid subscription name") String name,
+            @Valid SubscriptionDTO settings) {
+        Long fromPosition = settings != null ? settings.fromPosition() : null;
+        return subscriptionService.create(name, fromPosition, settings != null ? settings.types() : null)
+                .map(result -> result.created()
+                        ? Response.created(URI.create("/subscriptions/" + name)).entity(result.subscription()).build()
+                        : Response.ok(result.subscription()).build());
+    }
+
+    @GET
+    @Operation(summary = "Get subscription", description = "Committed and leased position of a subscription")
+    @APIResponses({
+            @APIResponse(responseCode = "200", description = "Subscription found"),
+            @APIResponse(responseCode = "404", description = "Subscription not found")
+    })
+    public Uni<Response> get(@PathParam("name") String name) {
+        return subscriptionService.find(name).map(subscription -> subscription != null
+                ? Response.ok(subscription).build()
+                : notFound(name));
+    }
+
+    @DELETE
+    @Operation(summary = "Delete subscription", description = "Delete a subscription and its open leases")
+    @APIResponses({
+            @APIResponse(responseCode = "204", description = "Subscription deleted"),
+            @APIResponse(responseCode = "404", description = "Subscription not found")
+    })
+    public Uni<Response> delete(@PathParam("name") String name) {
+        return subscriptionService.delete(name).map(deleted -> deleted
+                ? Response.noContent().build()
+                : notFound(name));
+    }
+
+    @POST
+    @Path("/poll")
+    @Operation(summary = "Poll events", description = "Lease up to max events after the committed position. "
+            + "Events not acked before leasedUntil are delivered again, to this or another worker of the group.")
+    @APIResponses({
+            @APIResponse(responseCode = "200", description = "Leased events, possibly none"),
+            @APIResponse(responseCode = "404", description = "Subscription not found")
+    })
+    public Uni<Response> poll(@PathParam("name") String name,
+            @QueryParam("max") @DefaultValue(DEFAULT_POLL_SIZE) @Min(value = 1, message = "max must be at least 1") @Max(value = MAX_POLL_SIZE, message = "max must not exceed 1000") int max) {
+        return subscriptionService.poll(name, max).map(batch -> batch != null
+                ? Response.ok(batch).build()
+                : notFound(name));
+    }
+
+    @POST
+    @Path("/ack")
+    @Operation(summary = "Acknowledge events", description = "Mark leased events as processed. The committed position advances over every contiguously acknowledged event.")
+    @APIResponses({
+            @APIResponse(responseCode = "200", description = "Subscription with its new committed position"),
+            @APIResponse(responseCode = "400", description = "No positions given"),
+            @APIResponse(responseCode = "404", description = "Subscription not found")
+    })
+    public Uni<Response> ack(@PathParam("name") String name, @Valid @NotNull(message = "Request body is required") AckDTO ack) {
+        return subscriptionService.ack(name, ack.positions()).map(subscription -> subscription != null
+                ? Response.ok(subscription).build()
+                : notFound(name));
+    }
+
+    private static Response notFound(String name) {
+        return Response.status(Response.Status.NOT_FOUND)
+                .entity(new ErrorResponse("Subscription not found", "No subscription named: " + name))
+                .build();
+    }
+}
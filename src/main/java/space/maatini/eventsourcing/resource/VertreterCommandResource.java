@@ -1,21 +1,40 @@
 package space.maatini.eventsourcing.resource;
 
 import io.smallrye.mutiny.Uni;
+import jakarta.validation.Valid;
+import jakarta.validation.constraints.NotEmpty;
+import jakarta.validation.constraints.Size;
 import jakarta.ws.rs.*;
+import jakarta.ws.rs.core.EntityTag;
+import jakarta.ws.rs.core.HttpHeaders;
 import jakarta.ws.rs.core.MediaType;
 import jakarta.ws.rs.core.Response;
 import org.eclipse.microprofile.openapi.annotations.Operation;
 import org.eclipse.microprofile.openapi.annotations.tags.Tag;
+import space.maatini.eventsourcing.dto.ErrorResponse;
 import space.maatini.eventsourcing.dto.command.CreateVertreterCommand;
 import space.maatini.eventsourcing.dto.command.UpdateVertreterCommand;
+import space.maatini.eventsourcing.dto.command.VertreterBatchCommand;
+import space.maatini.eventsourcing.exception.StreamVersionConflictException;
 import space.maatini.eventsourcing.service.VertreterCommandService;
+import space.maatini.eventsourcing.service.VertreterCommandService.CommandResult;
+import space.maatini.eventsourcing.service.VertreterCommandService.CommandStatus;
 
+import java.util.List;
+
+/**
+ * Command endpoints. Successful commands return the aggregate's new stream
+ * version as ETag; updates and deletes accept it back as {@code If-Match} (or
+ * {@code expectedVersion}) to fail with 409 if the aggregate changed since.
+ */
 @Path("/commands/vertreter")
 @Produces(MediaType.APPLICATION_JSON)
 @Consumes(MediaType.APPLICATION_JSON)
 @Tag(name = "Command Resource", description = "Endpoints for executing business commands on Vertreter aggregates")
 public class VertreterCommandResource {
 
+    static final int MAX_BATCH_SIZE = 10000;
+
     private final VertreterCommandService commandService;
 
     public VertreterCommandResource(VertreterCommandService commandService) {
@@ -28,35 +47,95 @@ public class VertreterCommandResource {
         if (command == null || command.id() == null) {
             return Uni.createFrom().item(Response.status(Response.Status.BAD_REQUEST).entity("Missing command ID").build());
         }
-        return commandService.createVertreter(command)
-                .map(v -> Response.status(Response.Status.CREATED).build())
-                .onFailure(IllegalStateException.class).recoverWithItem(e -> 
-                        Response.status(Response.Status.BAD_REQUEST).entity(e.getMessage()).build());
+        return handle(commandService.createVertreter(command), Response.Status.CREATED);
     }
 
     @PUT
     @Path("/{id}")
-    @Operation(summary = "Update an existing Vertreter")
-    public Uni<Response> update(@PathParam("id") String id, UpdateVertreterCommand command) {
+    @Operation(summary = "Update an existing Vertreter", description = "Pass the expected stream version as If-Match header or expectedVersion to update only an unchanged aggregate")
+    public Uni<Response> update(@PathParam("id") String id, @HeaderParam(HttpHeaders.IF_MATCH) String ifMatch,
+            UpdateVertreterCommand command) {
         if (command == null) {
             return Uni.createFrom().item(Response.status(Response.Status.BAD_REQUEST).entity("Missing command payload").build());
         }
         if (!id.equals(command.id())) {
             return Uni.createFrom().item(Response.status(Response.Status.BAD_REQUEST).entity("ID mismatch").build());
         }
-        return commandService.updateVertreter(command)
-                .map(v -> Response.ok().build())
-                .onFailure(IllegalStateException.class).recoverWithItem(e -> 
-                        Response.status(Response.Status.BAD_REQUEST).entity(e.getMessage()).build());
+        Long headerVersion;
+        try {
+            headerVersion = parseIfMatch(ifMatch);
+        } catch (NumberFormatException e) {
+            return Uni.createFrom().item(Response.status(Response.Status.BAD_REQUEST).entity("Invalid If-Match header").build());
+        }
+        if (headerVersion != null && command.expectedVersion() != null && !headerVersion.equals(command.expectedVersion())) {
+            return Uni.createFrom().item(Response.status(Response.Status.BAD_REQUEST).entity("If-Match and expectedVersion differ").build());
+        }
+        UpdateVertreterCommand pinned = headerVersion != null ? command.withExpectedVersion(headerVersion) : command;
+        return handle(commandService.updateVertreter(pinned), Response.Status.OK);
     }
 
     @DELETE
     @Path("/{id}")
-    @Operation(summary = "Delete an existing Vertreter")
-    public Uni<Response> delete(@PathParam("id") String id) {
-        return commandService.deleteVertreter(id)
-                .map(v -> Response.ok().build())
-                .onFailure(IllegalStateException.class).recoverWithItem(e -> 
-                        Response.status(Response.Status.BAD_REQUEST).entity(e.getMessage()).build());
+    @Operation(summary = "Delete an existing Vertreter", description = "Pass the expected stream version as If-Match header to delete only an unchanged aggregate")
+    public Uni<Response> delete(@PathParam("id") String id, @HeaderParam(HttpHeaders.IF_MATCH) String ifMatch) {
+        Long expectedVersion;
+        try {
+            expectedVersion = parseIfMatch(ifMatch);
+        } catch (NumberFormatException e) {
+            return Uni.createFrom().item(Response.status(Response.Status.BAD_REQUEST).entity("Invalid If-Match header").build());
+        }
+        return handle(commandService.deleteVertreter(id, expectedVersion), Response.Status.OK);
+    }
+
+    @POST
+    @Path("/batch")
+    @Operation(summary = "Execute a batch of commands", description = "Execute up to 10000 create, update and delete commands. Commands are grouped by Vertreter and applied in order, one transaction per Vertreter; a failure only affects the commands of that Vertreter.")
+    public Uni<Response> batch(
+            @Valid @NotEmpty(message = "Batch must contain at least one command") @Size(max = MAX_BATCH_SIZE, message = "Batch must not contain more than 10000 commands") List<@Valid VertreterBatchCommand> commands) {
+        return commandService.executeAll(commands).map(results -> {
+            int succeeded = (int) results.stream().filter(r -> r.status() == CommandStatus.SUCCEEDED).count();
+            return Response.ok(new BatchResult(succeeded, results.size() - succeeded, results)).build();
+        });
+    }
+
+    private static Uni<Response> handle(Uni<Long> result, Response.Status status) {
+        return result
+                .map(version -> Response.status(status).tag(new EntityTag(Long.toString(version))).build())
+                .onFailure(IllegalStateException.class).recoverWithItem(e ->
+                        Response.status(Response.Status.BAD_REQUEST).entity(e.getMessage()).build())
+                .onFailure(StreamVersionConflictException.class).recoverWithItem(e ->
+                        Response.status(Response.Status.CONFLICT)
+                                .type(MediaType.APPLICATION_JSON)
+                                .entity(new ErrorResponse("Version conflict", e.getMessage()))
+                                .build());
+    }
+
+    /**
+     * The stream version from an If-Match header, or null if absent or {@code *}.
+     *
+     * @throws NumberFormatException if the tag is not a version
+     */
+    static Long parseIfMatch(String ifMatch) {
+        if (ifMatch == null || ifMatch.isBlank() || ifMatch.trim().equals("*")) {
+            return null;
+        }
+        String tag = ifMatch.trim();
+        if (tag.startsWith("W/")) {
+            tag = tag.substring(2);
+        }
+        if (tag.length() >= 2 && tag.startsWith("\"") && tag.endsWith("\"")) {
+            tag = tag.substring(1, tag.length() - 1);
+        }
+        long version = Long.parseLong(tag);
+        if (version < 0) {
+            throw new NumberFormatException("Negative version: " + tag);
+        }
+        return version;
+    }
+
+    /**
+     * Result for batch commands.
+     */
+    public record BatchResult(int succeeded, int failed, List<CommandResult> results) {
     }
 }
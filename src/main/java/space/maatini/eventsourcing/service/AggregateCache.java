@@ -0,0 +1,69 @@
+package space.maatini.eventsourcing.service;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.vertx.core.json.JsonObject;
+import space.maatini.eventsourcing.domain.AggregateRoot;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Bounded LRU cache of command-side aggregate state, keyed by aggregate id.
+ * <p>
+ * Entries hold the snapshot state rather than the aggregate itself, so every
+ * command works on its own instance and a failed command cannot leave a
+ * half-mutated aggregate behind. Each entry records the stream version it was
+ * taken at; {@link AggregateLoader} only trusts it while that is still the
+ * subject's latest version.
+ */
+public class AggregateCache {
+
+    private final int maxEntries;
+    private final Map<String, Entry> entries;
+    private final Counter hits;
+    private final Counter misses;
+
+    public AggregateCache(String aggregateType, int maxEntries, MeterRegistry meterRegistry) {
+        this.maxEntries = Math.max(0, maxEntries);
+        this.entries = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, Entry> eldest) {
+                return size() > AggregateCache.this.maxEntries;
+            }
+        };
+        this.hits = meterRegistry.counter("aggregate.cache.hits", "aggregate", aggregateType);
+        this.misses = meterRegistry.counter("aggregate.cache.misses", "aggregate", aggregateType);
+        Gauge.builder("aggregate.cache.size", this, AggregateCache::size)
+                .tag("aggregate", aggregateType)
+                .register(meterRegistry);
+    }
+
+    synchronized Entry get(String id) {
+        Entry entry = entries.get(id);
+        (entry != null ? hits : misses).increment();
+        return entry;
+    }
+
+    /**
+     * Remember a saved aggregate at the stream version of its last event.
+     */
+    synchronized void put(AggregateRoot aggregate, long streamVersion) {
+        if (maxEntries > 0) {
+            entries.put(aggregate.getId(), new Entry(streamVersion, aggregate.getVersion(), aggregate.getPosition(),
+                    aggregate.snapshot()));
+        }
+    }
+
+    synchronized void invalidate(String id) {
+        entries.remove(id);
+    }
+
+    synchronized int size() {
+        return entries.size();
+    }
+
+    record Entry(long streamVersion, int version, long position, JsonObject state) {
+    }
+}
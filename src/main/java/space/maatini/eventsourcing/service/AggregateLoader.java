@@ -0,0 +1,203 @@
+package space.maatini.eventsourcing.service;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.quarkus.logging.Log;
+import io.smallrye.mutiny.Multi;
+import io.smallrye.mutiny.Uni;
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.inject.Inject;
+import org.eclipse.microprofile.config.inject.ConfigProperty;
+import space.maatini.eventsourcing.domain.AggregateRoot;
+import space.maatini.eventsourcing.entity.CloudEvent;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+import java.util.function.Function;
+
+/**
+ * Rebuilds command-side aggregates from their event stream.
+ * <p>
+ * Loading starts from the latest snapshot and applies only the events after
+ * it, archived ones first. When a load had to apply at least
+ * {@code snapshots.every} events, a snapshot of the loaded state is written in
+ * the caller's transaction. Snapshots only ever cover committed events, so
+ * they stay valid whatever the command does next. The number of events applied
+ * per load is recorded as {@code aggregate.load.events} to tune the interval.
+ * <p>
+ * Stored events are read as a narrow projection that is not attached to the
+ * session, with the payload only if the aggregate {@link
+ * AggregateRoot#needsEventData() needs it}.
+ * <p>
+ * With an {@link AggregateCache}, a load starts from the cached state instead
+ * of the snapshot when the subject's stream has not moved on since.
+ */
+@ApplicationScoped
+public class AggregateLoader {
+
+    private static final String STREAM_VERSION = "SELECT version FROM event_streams WHERE subject = ?1";
+
+    private final EventArchive archive;
+    private final SnapshotStore snapshotStore;
+    private final InlineProjector inlineProjector;
+    private final MeterRegistry meterRegistry;
+    private final int snapshotEvery;
+
+    @Inject
+    public AggregateLoader(EventArchive archive, SnapshotStore snapshotStore, InlineProjector inlineProjector,
+            MeterRegistry meterRegistry,
+            @ConfigProperty(name = "eventsourcing.snapshots.every", defaultValue = "50") int snapshotEvery) {
+        this.archive = archive;
+        this.snapshotStore = snapshotStore;
+        this.inlineProjector = inlineProjector;
+        this.meterRegistry = meterRegistry;
+        this.snapshotEvery = Math.max(0, snapshotEvery);
+    }
+
+    /**
+     * Load an aggregate. Must run inside a session, usually the command's
+     * transaction.
+     *
+     * @param factory creates an empty aggregate for an id
+     */
+    public <A extends AggregateRoot> Uni<A> load(String id, Function<String, A> factory) {
+        return load(id, factory, null);
+    }
+
+    /**
+     * Load an aggregate, starting from the cached state if it is still current.
+     * A cache hit costs one primary-key lookup of the subject's stream version;
+     * if events were added since, only those are applied.
+     * <p>
+     * The stream version is read before the events, so the version that new
+     * events of the aggregate expect to follow is never ahead of the events it
+     * has applied.
+     *
+     * @param cache cache to start from, or null
+     */
+    public <A extends AggregateRoot> Uni<A> load(String id, Function<String, A> factory, AggregateCache cache) {
+        return streamVersion(id).chain(current -> {
+            long version = current != null ? current : 0;
+            AggregateCache.Entry cached = cache != null ? cache.get(id) : null;
+            Uni<A> loaded;
+            if (cached != null && version >= cached.streamVersion()) {
+                A aggregate = factory.apply(id);
+                aggregate.restore(cached.version(), cached.position(), cached.state());
+                aggregate.observeStreamVersion(cached.streamVersion());
+                if (version == cached.streamVersion()) {
+                    recordApplied(aggregate.getClass().getSimpleName(), 0);
+                    loaded = Uni.createFrom().item(aggregate);
+                } else {
+                    loaded = catchUp(aggregate.getClass().getSimpleName(), aggregate);
+                }
+            } else {
+                if (cached != null) {
+                    // The cached state was never committed or the stream was rewritten
+                    cache.invalidate(id);
+                }
+                loaded = loadFromSnapshot(id, factory);
+            }
+            return loaded.invoke(aggregate -> aggregate.observeStreamVersion(version));
+        });
+    }
+
+    /**
+     * Append the uncommitted events of an aggregate and mark them committed.
+     * The events are written with one multi-row insert per
+     * {@link EventService#INSERT_CHUNK_SIZE} events, each expecting its stream
+     * version, and {@link HandlesEvents#inline() inline} handlers run on them.
+     * Must run in the command's transaction.
+     *
+     * @return the stream version of the aggregate's last event
+     */
+    public Uni<Long> save(AggregateRoot aggregate) {
+        List<CloudEvent> events = List.copyOf(aggregate.getUncommittedEvents());
+        if (events.isEmpty()) {
+            return Uni.createFrom().item(aggregate.getStreamVersion());
+        }
+        List<List<CloudEvent>> chunks = new ArrayList<>();
+        for (int i = 0; i < events.size(); i += EventService.INSERT_CHUNK_SIZE) {
+            chunks.add(events.subList(i, Math.min(i + EventService.INSERT_CHUNK_SIZE, events.size())));
+        }
+        return Multi.createFrom().iterable(chunks)
+                .onItem().transformToUniAndConcatenate(CloudEvent::insertAll)
+                .collect().in(HashSet<UUID>::new, Set::addAll)
+                .map(inserted -> {
+                    if (inserted.size() != events.size()) {
+                        // Domain events get random IDs, an existing one means a programming error
+                        throw new IllegalStateException("Events of " + aggregate.getId() + " were already stored");
+                    }
+                    CloudEvent last = events.get(events.size() - 1);
+                    aggregate.markCommitted(last.getPosition());
+                    return last.getStreamVersion();
+                })
+                .call(() -> inlineProjector.project(events));
+    }
+
+    private <A extends AggregateRoot> Uni<A> loadFromSnapshot(String id, Function<String, A> factory) {
+        A empty = factory.apply(id);
+        String type = empty.getClass().getSimpleName();
+        Uni<A> restored = snapshotEvery == 0
+                ? Uni.createFrom().item(empty)
+                : snapshotStore.findLatest(type, id).map(snapshot -> snapshot != null ? restore(id, factory, snapshot) : empty);
+        return restored.chain(aggregate -> catchUp(type, aggregate));
+    }
+
+    private <A extends AggregateRoot> Uni<A> catchUp(String type, A aggregate) {
+        String id = aggregate.getId();
+        long after = aggregate.getPosition();
+        long archived = archive.archivedPosition();
+        return archive.findBySubject(id, after)
+                .chain(archivedEvents -> CloudEvent.findStream(id, Math.max(after, archived), aggregate.needsEventData())
+                        .map(events -> {
+                            archivedEvents.forEach(aggregate::apply);
+                            events.forEach(aggregate::apply);
+                            return archivedEvents.size() + events.size();
+                        }))
+                .chain(applied -> {
+                    recordApplied(type, applied);
+                    if (snapshotEvery == 0 || applied < snapshotEvery) {
+                        return Uni.createFrom().item(aggregate);
+                    }
+                    return snapshotStore.save(type, aggregate)
+                            .invoke(() -> Counter.builder("aggregate.snapshots.written")
+                                    .tag("aggregate", type)
+                                    .register(meterRegistry)
+                                    .increment())
+                            .replaceWith(aggregate);
+                });
+    }
+
+    private void recordApplied(String type, int applied) {
+        DistributionSummary.builder("aggregate.load.events")
+                .description("Events applied per aggregate load, after the snapshot")
+                .tag("aggregate", type)
+                .register(meterRegistry)
+                .record(applied);
+    }
+
+    private static Uni<Long> streamVersion(String subject) {
+        return CloudEvent.getSession().chain(session -> session.createNativeQuery(STREAM_VERSION, Long.class)
+                .setParameter(1, subject)
+                .getResultList())
+                .map(rows -> rows.isEmpty() ? null : rows.get(0));
+    }
+
+    private static <A extends AggregateRoot> A restore(String id, Function<String, A> factory,
+            SnapshotStore.Snapshot snapshot) {
+        A aggregate = factory.apply(id);
+        try {
+            aggregate.restore(snapshot.version(), snapshot.position(), snapshot.state());
+            return aggregate;
+        } catch (RuntimeException e) {
+            // An unreadable snapshot (e.g. after a change of the state format) is replaced on this load
+            Log.warnf(e, "Ignoring snapshot of %s %s at version %d", aggregate.getClass().getSimpleName(), id,
+                    snapshot.version());
+            return factory.apply(id);
+        }
+    }
+}
@@ -0,0 +1,178 @@
+package space.maatini.eventsourcing.service;
+
+import io.agroal.api.AgroalDataSource;
+import io.quarkus.logging.Log;
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.inject.Inject;
+import org.postgresql.PGConnection;
+import org.postgresql.copy.CopyManager;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+
+/**
+ * Bulk import of CloudEvents via PostgreSQL {@code COPY FROM STDIN}.
+ * <p>
+ * The upload is streamed into a temporary staging table and then merged into
+ * {@code events} with a single INSERT ... ON CONFLICT DO NOTHING, so existing
+ * IDs are skipped. Per-row notifications are suppressed for the import
+ * transaction (see V11) and replaced by one wake-up on commit.
+ * <p>
+ * COPY is only available on the JDBC driver, so this service is blocking and
+ * must be called from a worker thread.
+ */
+@ApplicationScoped
+public class BulkImportService {
+
+    private static final String CREATE_STAGING = """
+            CREATE TEMP TABLE events_import (
+                seq BIGSERIAL,
+                id UUID,
+                source VARCHAR(255),
+                specversion VARCHAR(10),
+                type VARCHAR(255),
+                subject VARCHAR(255),
+                time TIMESTAMPTZ,
+                datacontenttype VARCHAR(100),
+                dataschema VARCHAR(255),
+                data JSONB
+            ) ON COMMIT DROP""";
+
+    private static final String CREATE_RAW_STAGING = "CREATE TEMP TABLE events_import_raw (seq BIGSERIAL, doc JSONB) ON COMMIT DROP";
+
+    /**
+     * One JSON document per line. Quote and delimiter are control characters that
+     * cannot occur unescaped in valid JSON, so every line arrives as one verbatim
+     * field (text format would interpret the backslash escapes of JSON strings).
+     */
+    private static final String COPY_NDJSON = "COPY events_import_raw (doc) FROM STDIN WITH (FORMAT csv, QUOTE E'\\x01', DELIMITER E'\\x02')";
+
+    private static final String COPY_CSV = "COPY events_import (id, source, specversion, type, subject, time, datacontenttype, dataschema, data) FROM STDIN WITH (FORMAT csv, HEADER true)";
+
+    private static final String PROJECT_NDJSON = """
+            INSERT INTO events_import (id, source, specversion, type, subject, time, datacontenttype, dataschema, data)
+            SELECT (doc->>'id')::uuid, doc->>'source', doc->>'specversion', doc->>'type', doc->>'subject',
+                   (doc->>'time')::timestamptz, doc->>'datacontenttype', doc->>'dataschema', doc->'data'
+            FROM events_import_raw
+            WHERE doc IS NOT NULL
+            ORDER BY seq""";
+
+    private static final String VALID_ROWS = "id IS NOT NULL AND source <> '' AND type <> '' AND data IS NOT NULL AND data <> 'null'::jsonb";
+
+    /**
+     * Inserts the valid rows and returns count, first and last position of the
+     * events actually created. Rows go in in the same order as
+     * {@code CloudEvent.insertAll} (subjects in byte order, each subject's
+     * events in file order, events without a subject by ID), so the import takes
+     * its event_streams row locks in the same order as every other writer.
+     */
+    private static final String MERGE = """
+            WITH inserted AS (
+                INSERT INTO events (id, source, specversion, type, subject, time, datacontenttype, dataschema, data, created_at)
+                SELECT id, source, COALESCE(specversion, '1.0'), type, subject, COALESCE(time, NOW()),
+                       COALESCE(datacontenttype, 'application/json'), dataschema, data, NOW()
+                FROM events_import
+                WHERE %s
+                ORDER BY subject COLLATE "C" NULLS LAST, CASE WHEN subject IS NULL THEN id END, seq
+                ON CONFLICT DO NOTHING
+                RETURNING position
+            )
+            SELECT count(*), min(position), max(position) FROM inserted""".formatted(VALID_ROWS);
+
+    /**
+     * Same summary format as the statement-level trigger (see V14).
+     */
+    private static final String NOTIFY = "SELECT pg_notify('events_channel', json_build_object('count', ?, 'from', ?, 'to', ?)::text)";
+
+    private final AgroalDataSource dataSource;
+
+    @Inject
+    public BulkImportService(AgroalDataSource dataSource) {
+        this.dataSource = dataSource;
+    }
+
+    /**
+     * Import newline-delimited CloudEvents in the JSON format of {@code POST /events}.
+     */
+    public ImportResult importNdjson(InputStream body) throws SQLException, IOException {
+        return importEvents(body, Format.NDJSON);
+    }
+
+    /**
+     * Import CSV with a header row and the columns {@code id, source, specversion,
+     * type, subject, time, datacontenttype, dataschema, data}; {@code data} holds
+     * the JSON payload.
+     */
+    public ImportResult importCsv(InputStream body) throws SQLException, IOException {
+        return importEvents(body, Format.CSV);
+    }
+
+    private ImportResult importEvents(InputStream body, Format format) throws SQLException, IOException {
+        long start = System.currentTimeMillis();
+        try (Connection connection = dataSource.getConnection()) {
+            connection.setAutoCommit(false);
+            try (Statement statement = connection.createStatement()) {
+                statement.execute(CREATE_STAGING);
+                CopyManager copyManager = connection.unwrap(PGConnection.class).getCopyAPI();
+                if (format == Format.NDJSON) {
+                    statement.execute(CREATE_RAW_STAGING);
+                    copyManager.copyIn(COPY_NDJSON, body);
+                    statement.executeUpdate(PROJECT_NDJSON);
+                } else {
+                    copyManager.copyIn(COPY_CSV, body);
+                }
+
+                long staged = count(statement, "SELECT count(*) FROM events_import");
+                long valid = count(statement, "SELECT count(*) FROM events_import WHERE " + VALID_ROWS);
+
+                statement.execute("SET LOCAL eventsourcing.suppress_notify = 'on'");
+                long created;
+                try (ResultSet rs = statement.executeQuery(MERGE)) {
+                    rs.next();
+                    created = rs.getLong(1);
+                    if (created > 0) {
+                        // Delivered on commit - wakes EventBatchProcessor once for the whole import
+                        try (PreparedStatement notify = connection.prepareStatement(NOTIFY)) {
+                            notify.setLong(1, created);
+                            notify.setLong(2, rs.getLong(2));
+                            notify.setLong(3, rs.getLong(3));
+                            notify.execute();
+                        }
+                    }
+                }
+                connection.commit();
+
+                ImportResult result = new ImportResult(staged, created, valid - created, staged - valid,
+                        System.currentTimeMillis() - start);
+                Log.infof("Bulk import (%s) finished: %s", format, result);
+                return result;
+            } catch (SQLException | IOException | RuntimeException e) {
+                connection.rollback();
+                throw e;
+            }
+        }
+    }
+
+    private static long count(Statement statement, String sql) throws SQLException {
+        try (ResultSet rs = statement.executeQuery(sql)) {
+            rs.next();
+            return rs.getLong(1);
+        }
+    }
+
+    private enum Format {
+        NDJSON, CSV
+    }
+
+    /**
+     * Outcome of a bulk import. {@code rejected} counts rows without the required
+     * id, source, type or data.
+     */
+    public record ImportResult(long rows, long created, long duplicates, long rejected, long durationMs) {
+    }
+}
@@ -0,0 +1,271 @@
+package space.maatini.eventsourcing.service;
+
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.quarkus.vertx.core.runtime.context.VertxContextSafetyToggle;
+import io.smallrye.mutiny.Uni;
+import io.vertx.core.Context;
+import io.vertx.mutiny.core.Vertx;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.function.Consumer;
+
+/**
+ * Single-writer execution of commands per aggregate.
+ * <p>
+ * Aggregate ids are hashed onto a fixed number of lanes. A lane runs one batch
+ * at a time, in submission order, so commands for the same aggregate never
+ * race each other; different lanes run in parallel. Consecutive queued
+ * commands for the same id are handed to the executor as one batch of up to
+ * {@code maxBatch} commands, which can then load the aggregate and commit once
+ * for all of them. Commands submitted together with {@link #submitAll} are
+ * never split over batches, whatever their number.
+ * <p>
+ * Every batch runs on its own duplicated Vert.x context, and every caller is
+ * completed on its own context, so Hibernate Reactive sessions never cross
+ * requests or batches.
+ *
+ * @param <C> command type
+ * @param <R> result type
+ */
+public class CommandLanes<C, R> {
+
+    /**
+     * Executes a batch of commands for one aggregate.
+     */
+    @FunctionalInterface
+    public interface BatchExecutor<C, R> {
+        /**
+         * @return one outcome per command, in order; a failed Uni fails the whole batch
+         */
+        Uni<List<Outcome<R>>> execute(String id, List<C> commands);
+    }
+
+    /**
+     * Result or failure of a single command in a batch.
+     */
+    public record Outcome<R>(R result, Throwable failure) {
+
+        public static <R> Outcome<R> success(R result) {
+            return new Outcome<>(result, null);
+        }
+
+        public static <R> Outcome<R> failure(Throwable failure) {
+            return new Outcome<>(null, failure);
+        }
+    }
+
+    private final Vertx vertx;
+    private final List<Lane> lanes;
+    private final int maxBatch;
+    private final BatchExecutor<C, R> executor;
+    private final AtomicInteger pending = new AtomicInteger();
+    private final AtomicLongArray submitted;
+    private final DistributionSummary batchSizes;
+
+    /**
+     * @param vertx runs the batches; without it (in unit tests) they run on the submitting thread
+     */
+    public CommandLanes(Vertx vertx, String aggregateType, int laneCount, int maxBatch, MeterRegistry meterRegistry,
+            BatchExecutor<C, R> executor) {
+        this.vertx = vertx;
+        this.lanes = new ArrayList<>();
+        for (int i = 0; i < Math.max(1, laneCount); i++) {
+            lanes.add(new Lane());
+        }
+        this.maxBatch = Math.max(1, maxBatch);
+        this.executor = executor;
+        this.submitted = new AtomicLongArray(lanes.size());
+
+        Gauge.builder("commands.lanes.queue.depth", pending, AtomicInteger::get)
+                .description("Commands waiting in or running on a lane")
+                .tag("aggregate", aggregateType)
+                .register(meterRegistry);
+        Gauge.builder("commands.lanes.queue.depth.max", this, CommandLanes::maxLaneDepth)
+                .description("Commands waiting in or running on the busiest lane")
+                .tag("aggregate", aggregateType)
+                .register(meterRegistry);
+        Gauge.builder("commands.lanes.skew", this, CommandLanes::skew)
+                .description("Commands submitted to the busiest lane relative to the average lane (1 = even)")
+                .tag("aggregate", aggregateType)
+                .register(meterRegistry);
+        this.batchSizes = DistributionSummary.builder("commands.lanes.batch.size")
+                .description("Commands executed together in one batch")
+                .tag("aggregate", aggregateType)
+                .register(meterRegistry);
+    }
+
+    /**
+     * Queue a command behind all earlier commands for the same lane.
+     */
+    public Uni<R> submit(String id, C command) {
+        return Uni.createFrom().emitter(emitter -> enqueue(id, List.of(new Pending<C, R>(id, command,
+                io.vertx.core.Vertx.currentContext(), outcome -> {
+                    if (outcome.failure() != null) {
+                        emitter.fail(outcome.failure());
+                    } else {
+                        emitter.complete(outcome.result());
+                    }
+                }))));
+    }
+
+    /**
+     * Queue several commands for one aggregate so they are executed in one
+     * batch, even beyond {@code maxBatch}. Never fails; each command gets its
+     * own outcome.
+     */
+    public Uni<List<Outcome<R>>> submitAll(String id, List<C> commands) {
+        if (commands.isEmpty()) {
+            return Uni.createFrom().item(List.of());
+        }
+        return Uni.createFrom().emitter(emitter -> {
+            Context context = io.vertx.core.Vertx.currentContext();
+            List<Outcome<R>> outcomes = new ArrayList<>(Collections.nCopies(commands.size(), null));
+            AtomicInteger remaining = new AtomicInteger(commands.size());
+            List<Pending<C, R>> batch = new ArrayList<>(commands.size());
+            for (int i = 0; i < commands.size(); i++) {
+                int index = i;
+                batch.add(new Pending<>(id, commands.get(i), context, outcome -> {
+                    synchronized (outcomes) {
+                        outcomes.set(index, outcome);
+                    }
+                    if (remaining.decrementAndGet() == 0) {
+                        synchronized (outcomes) {
+                            emitter.complete(List.copyOf(outcomes));
+                        }
+                    }
+                }));
+            }
+            enqueue(id, batch);
+        });
+    }
+
+    private void enqueue(String id, List<Pending<C, R>> commands) {
+        int index = laneOf(id, lanes.size());
+        submitted.addAndGet(index, commands.size());
+        pending.addAndGet(commands.size());
+        lanes.get(index).enqueue(commands);
+    }
+
+    static int laneOf(String id, int laneCount) {
+        // Spread the hash bits like HashMap does, ids often share prefixes
+        int hash = id.hashCode();
+        return Math.floorMod(hash ^ (hash >>> 16), laneCount);
+    }
+
+    private int maxLaneDepth() {
+        int max = 0;
+        for (Lane lane : lanes) {
+            max = Math.max(max, lane.depth.get());
+        }
+        return max;
+    }
+
+    private double skew() {
+        long max = 0;
+        long total = 0;
+        for (int i = 0; i < submitted.length(); i++) {
+            long count = submitted.get(i);
+            max = Math.max(max, count);
+            total += count;
+        }
+        return total == 0 ? 1.0 : (double) max * submitted.length() / total;
+    }
+
+    private record Pending<C, R>(String id, C command, Context context, Consumer<Outcome<R>> callback) {
+
+        void complete(Outcome<R> outcome) {
+            if (context != null) {
+                context.runOnContext(v -> callback.accept(outcome));
+            } else {
+                callback.accept(outcome);
+            }
+        }
+    }
+
+    private final class Lane {
+
+        /**
+         * One entry per submission, so a submitAll group is never interleaved with other commands.
+         */
+        private final Queue<List<Pending<C, R>>> queue = new ConcurrentLinkedQueue<>();
+        private final AtomicBoolean running = new AtomicBoolean();
+        private final AtomicInteger depth = new AtomicInteger();
+
+        void enqueue(List<Pending<C, R>> commands) {
+            depth.addAndGet(commands.size());
+            queue.add(commands);
+            if (running.compareAndSet(false, true)) {
+                runNext();
+            }
+        }
+
+        private void runNext() {
+            List<Pending<C, R>> batch = nextBatch();
+            if (batch.isEmpty()) {
+                running.set(false);
+                // A command may have been queued after the poll and before the flag was released
+                if (!queue.isEmpty() && running.compareAndSet(false, true)) {
+                    runNext();
+                }
+                return;
+            }
+            if (vertx == null) {
+                execute(batch);
+                return;
+            }
+            // Hibernate Reactive needs a duplicated context flagged as safe
+            io.vertx.core.impl.ContextInternal context = ((io.vertx.core.impl.ContextInternal) vertx
+                    .getDelegate().getOrCreateContext()).duplicate();
+            VertxContextSafetyToggle.setContextSafe(context, true);
+            context.runOnContext(v -> execute(batch));
+        }
+
+        private List<Pending<C, R>> nextBatch() {
+            List<Pending<C, R>> batch = new ArrayList<>();
+            List<Pending<C, R>> head = queue.poll();
+            if (head == null) {
+                return batch;
+            }
+            batch.addAll(head);
+            String id = head.get(0).id();
+            List<Pending<C, R>> next;
+            while ((next = queue.peek()) != null && next.get(0).id().equals(id)
+                    && batch.size() + next.size() <= maxBatch) {
+                batch.addAll(queue.poll());
+            }
+            return batch;
+        }
+
+        private void execute(List<Pending<C, R>> batch) {
+            batchSizes.record(batch.size());
+            Uni<List<Outcome<R>>> result;
+            try {
+                result = executor.execute(batch.get(0).id(), batch.stream().map(Pending::command).toList());
+            } catch (RuntimeException e) {
+                result = Uni.createFrom().failure(e);
+            }
+            result.subscribe().with(
+                    outcomes -> finish(batch, outcomes, null),
+                    failure -> finish(batch, null, failure));
+        }
+
+        private void finish(List<Pending<C, R>> batch, List<Outcome<R>> outcomes, Throwable failure) {
+            for (int i = 0; i < batch.size(); i++) {
+                Outcome<R> outcome = failure != null ? Outcome.failure(failure) : outcomes.get(i);
+                batch.get(i).complete(outcome);
+            }
+            depth.addAndGet(-batch.size());
+            pending.addAndGet(-batch.size());
+            runNext();
+        }
+    }
+}
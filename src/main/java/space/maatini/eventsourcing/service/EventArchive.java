@@ -0,0 +1,198 @@
+package space.maatini.eventsourcing.service;
+
+import io.quarkus.logging.Log;
+import io.quarkus.runtime.StartupEvent;
+import io.smallrye.mutiny.Multi;
+import io.smallrye.mutiny.Uni;
+import io.smallrye.mutiny.infrastructure.Infrastructure;
+import io.vertx.core.Context;
+import io.vertx.core.Vertx;
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.enterprise.event.Observes;
+import jakarta.inject.Inject;
+import org.eclipse.microprofile.config.inject.ConfigProperty;
+import space.maatini.eventsourcing.entity.CloudEvent;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Executor;
+import java.util.function.Predicate;
+import java.util.stream.Stream;
+
+/**
+ * Read side of the cold archive: the segment files written by
+ * {@link EventArchiver}.
+ * <p>
+ * The archive always holds a prefix of the log, positions up to
+ * {@link #archivedPosition()}; the database holds everything after it. Readers
+ * take archived events from here and continue in the database after the
+ * archived position. Segments are immutable and memory-mapped, so reads share
+ * the page cache and need no locking; the catalog itself is swapped atomically
+ * when new segments appear.
+ * <p>
+ * Decompression runs on a worker thread. Results are delivered back on the
+ * caller's Vert.x context, so callers can continue with a Hibernate Reactive
+ * session.
+ */
+@ApplicationScoped
+public class EventArchive {
+
+    private final Path directory;
+
+    private volatile List<EventSegment> segments = List.of();
+
+    @Inject
+    public EventArchive(@ConfigProperty(name = "eventsourcing.archive.dir", defaultValue = "archive") String directory) {
+        this.directory = Path.of(directory);
+    }
+
+    void onStart(@Observes StartupEvent event) {
+        refresh();
+    }
+
+    Path directory() {
+        return directory;
+    }
+
+    /**
+     * Position of the last archived event, or 0 if nothing is archived.
+     */
+    public long archivedPosition() {
+        List<EventSegment> current = segments;
+        return current.isEmpty() ? 0 : current.get(current.size() - 1).lastPosition();
+    }
+
+    /**
+     * Archived events of a subject after a position, in position order.
+     */
+    public Uni<List<CloudEvent>> findBySubject(String subject, long afterPosition) {
+        return findBySubject(subject, afterPosition, event -> true, Integer.MAX_VALUE);
+    }
+
+    /**
+     * The first {@code limit} archived events of a subject after a position
+     * that match a filter, in position order. Stops reading segments once the
+     * limit is reached.
+     */
+    public Uni<List<CloudEvent>> findBySubject(String subject, long afterPosition, Predicate<CloudEvent> filter,
+            int limit) {
+        List<EventSegment> current = segments;
+        if (current.isEmpty() || afterPosition >= current.get(current.size() - 1).lastPosition()) {
+            return Uni.createFrom().item(List.of());
+        }
+        return Uni.createFrom().item(() -> {
+            List<CloudEvent> events = new ArrayList<>();
+            for (EventSegment segment : current) {
+                if (events.size() >= limit) {
+                    break;
+                }
+                if (segment.lastPosition() > afterPosition) {
+                    events.addAll(segment.readBySubject(subject, afterPosition, filter, limit - events.size()));
+                }
+            }
+            return events;
+        })
+                .runSubscriptionOn(Infrastructure.getDefaultWorkerPool())
+                .emitOn(callerContext());
+    }
+
+    /**
+     * Archived events of a subject after a position that match a filter, in
+     * position order. Like {@link #stream(long)}, blocks are decompressed one
+     * at a time as the stream is consumed.
+     */
+    public Multi<CloudEvent> streamBySubject(String subject, long afterPosition, Predicate<CloudEvent> filter) {
+        List<EventSegment> current = segments;
+        return Multi.createFrom().iterable(current)
+                .filter(segment -> segment.lastPosition() > afterPosition)
+                .onItem().transformToIterable(segment -> segment.subjectBlocks(subject, afterPosition).stream()
+                        .map(index -> new Block(segment, index))
+                        .toList())
+                .emitOn(Infrastructure.getDefaultWorkerPool())
+                .onItem().transformToIterable(block -> block.segment().readBlock(block.index()))
+                // The subject index is keyed by hash, so blocks may hold other subjects
+                .filter(event -> event.getPosition() > afterPosition && subject.equals(event.getSubject())
+                        && filter.test(event))
+                .emitOn(callerContext());
+    }
+
+    /**
+     * All archived events after a position, in position order. Blocks are
+     * decompressed one at a time as the stream is consumed.
+     */
+    public Multi<CloudEvent> stream(long afterPosition) {
+        List<EventSegment> current = segments;
+        return Multi.createFrom().iterable(current)
+                .filter(segment -> segment.lastPosition() > afterPosition)
+                .onItem().transformToIterable(segment -> blocksAfter(segment, afterPosition))
+                .emitOn(Infrastructure.getDefaultWorkerPool())
+                .onItem().transformToIterable(block -> block.segment().readBlock(block.index()))
+                .filter(event -> event.getPosition() > afterPosition)
+                .emitOn(callerContext());
+    }
+
+    /**
+     * Pick up segments written since the last call, by this or another instance
+     * sharing the directory.
+     */
+    public synchronized void refresh() {
+        if (!Files.isDirectory(directory)) {
+            return;
+        }
+        List<EventSegment> current = segments;
+        long known = current.isEmpty() ? 0 : current.get(current.size() - 1).lastPosition();
+        List<EventSegment> updated = new ArrayList<>(current);
+        try (Stream<Path> files = Files.list(directory)) {
+            for (Path file : files.filter(f -> f.getFileName().toString().endsWith(EventSegment.SUFFIX)).sorted().toList()) {
+                if (current.stream().noneMatch(s -> s.file().equals(file))) {
+                    EventSegment segment = EventSegment.open(file);
+                    if (segment.firstPosition() > known) {
+                        updated.add(segment);
+                        known = segment.lastPosition();
+                    } else {
+                        Log.warnf("Ignoring archive segment %s: it overlaps position %d", file, known);
+                    }
+                }
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to read event archive " + directory, e);
+        }
+        if (updated.size() != current.size()) {
+            segments = List.copyOf(updated);
+            Log.infof("Event archive: %d segments up to position %d", updated.size(), known);
+        }
+    }
+
+    /**
+     * Register a segment written by this instance.
+     */
+    synchronized void add(EventSegment segment) {
+        List<EventSegment> updated = new ArrayList<>(segments);
+        updated.add(segment);
+        segments = List.copyOf(updated);
+    }
+
+    /**
+     * Executor that runs tasks on the current Vert.x context, or in place off a
+     * context.
+     */
+    private static Executor callerContext() {
+        Context context = Vertx.currentContext();
+        return context != null ? task -> context.runOnContext(v -> task.run()) : Runnable::run;
+    }
+
+    private static List<Block> blocksAfter(EventSegment segment, long afterPosition) {
+        List<Block> blocks = new ArrayList<>();
+        for (int i = segment.firstBlockAfter(afterPosition); i < segment.blockCount(); i++) {
+            blocks.add(new Block(segment, i));
+        }
+        return blocks;
+    }
+
+    private record Block(EventSegment segment, int index) {
+    }
+}
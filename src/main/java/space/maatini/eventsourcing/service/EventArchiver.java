@@ -0,0 +1,265 @@
+package space.maatini.eventsourcing.service;
+
+import io.agroal.api.AgroalDataSource;
+import io.quarkus.logging.Log;
+import io.quarkus.scheduler.Scheduled;
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.inject.Inject;
+import org.eclipse.microprofile.config.inject.ConfigProperty;
+import space.maatini.eventsourcing.entity.CloudEvent;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.OffsetDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * Moves old, fully processed events from {@code events} into the segment files
+ * of the {@link EventArchive}.
+ * <p>
+ * Each segment holds the next {@code segment-size} events after the archived
+ * position. A segment is only written if every one of its events is processed,
+ * older than {@code after-days}, at or below the {@linkplain EventLogHead safe
+ * position} and committed by every consumer group, so the
+ * archive stays a prefix of the log that nothing reads from the database any
+ * more. The rows are deleted one run later, which gives other instances sharing
+ * the archive directory one interval to pick up the segment; until then readers
+ * ignore database rows at or below the archived position. Like the
+ * {@link EventRetentionService}, the rows are deleted in small keyset batches
+ * over {@code position}, each in its own short transaction, with a pause in
+ * between.
+ * <p>
+ * Segment writes are blocking file I/O, so this job uses the JDBC datasource.
+ * Runs on every instance; an advisory lock lets one of them do the work.
+ */
+@ApplicationScoped
+public class EventArchiver {
+
+    /**
+     * Arbitrary key of the session-level advisory lock guarding the archive.
+     */
+    private static final long LOCK_KEY = 0x6576_656e_7473_6172L;
+
+    private static final String SELECT_NEXT = """
+            SELECT id, source, specversion, type, subject, time, datacontenttype, dataschema, data::text AS data,
+                   position, stream_version, created_at, processed_at, failed_at, retry_count, error_message
+            FROM events WHERE position > ? ORDER BY position LIMIT ?""";
+
+    /**
+     * A batch of archived rows: after a position, up to the archived position.
+     */
+    private static final String DELETE_BATCH = """
+            WITH batch AS (
+                SELECT e.id, e.created_at, e.position FROM events e
+                WHERE e.position > ? AND e.position <= ?
+                ORDER BY e.position
+                LIMIT ?
+            )
+            DELETE FROM events d USING batch
+            WHERE d.id = batch.id AND d.created_at = batch.created_at
+            RETURNING d.position""";
+
+    private final AgroalDataSource dataSource;
+    private final EventArchive archive;
+    private final EventLogHead logHead;
+    private final boolean enabled;
+    private final int afterDays;
+    private final int segmentSize;
+    private final int blockSize;
+    private final int maxSegmentsPerRun;
+    private final int purgeBatchSize;
+    private final long purgePauseMs;
+
+    @Inject
+    public EventArchiver(AgroalDataSource dataSource, EventArchive archive, EventLogHead logHead,
+            @ConfigProperty(name = "eventsourcing.archive.enabled", defaultValue = "false") boolean enabled,
+            @ConfigProperty(name = "eventsourcing.archive.after-days", defaultValue = "30") int afterDays,
+            @ConfigProperty(name = "eventsourcing.archive.segment-size", defaultValue = "10000") int segmentSize,
+            @ConfigProperty(name = "eventsourcing.archive.block-size", defaultValue = "256") int blockSize,
+            @ConfigProperty(name = "eventsourcing.archive.max-segments-per-run", defaultValue = "10") int maxSegmentsPerRun,
+            @ConfigProperty(name = "eventsourcing.archive.purge-batch-size", defaultValue = "1000") int purgeBatchSize,
+            @ConfigProperty(name = "eventsourcing.archive.purge-pause-ms", defaultValue = "100") long purgePauseMs) {
+        this.dataSource = dataSource;
+        this.archive = archive;
+        this.logHead = logHead;
+        this.enabled = enabled;
+        this.afterDays = Math.max(0, afterDays);
+        this.segmentSize = Math.max(1, segmentSize);
+        this.blockSize = Math.max(1, blockSize);
+        this.maxSegmentsPerRun = Math.max(1, maxSegmentsPerRun);
+        this.purgeBatchSize = Math.max(1, purgeBatchSize);
+        this.purgePauseMs = Math.max(0, purgePauseMs);
+    }
+
+    @Scheduled(every = "${eventsourcing.archive.check-interval:1h}", concurrentExecution = Scheduled.ConcurrentExecution.SKIP)
+    void scheduled() {
+        archive.refresh();
+        if (!enabled) {
+            return;
+        }
+        try {
+            archiveEvents();
+        } catch (SQLException | IOException | RuntimeException e) {
+            Log.warn("Event archiving failed", e);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * Delete the rows archived by earlier runs and archive the next segments.
+     *
+     * @return the number of events written to new segments
+     */
+    public int archiveEvents() throws SQLException, IOException, InterruptedException {
+        try (Connection connection = dataSource.getConnection()) {
+            connection.setAutoCommit(true);
+            if (!tryLock(connection)) {
+                return 0;
+            }
+            try {
+                long bound = Math.min(logHead.safePosition(connection), committedBound(connection));
+                long archived = archive.archivedPosition();
+                purge(connection, archived);
+
+                Files.createDirectories(archive.directory());
+                OffsetDateTime cutoff = OffsetDateTime.now().minusDays(afterDays);
+                int written = 0;
+                for (int i = 0; i < maxSegmentsPerRun; i++) {
+                    List<CloudEvent> events = readNext(connection, archived);
+                    if (!archivable(events, cutoff, bound)) {
+                        break;
+                    }
+                    EventSegment segment = EventSegment.write(archive.directory(), events, blockSize);
+                    archive.add(segment);
+                    archived = segment.lastPosition();
+                    written += events.size();
+                    Log.infof("Archived events %d to %d into %s", segment.firstPosition(), segment.lastPosition(),
+                            segment.file().getFileName());
+                }
+                return written;
+            } finally {
+                unlock(connection);
+            }
+        }
+    }
+
+    private static boolean tryLock(Connection connection) throws SQLException {
+        try (PreparedStatement statement = connection.prepareStatement("SELECT pg_try_advisory_lock(?)")) {
+            statement.setLong(1, LOCK_KEY);
+            try (ResultSet rs = statement.executeQuery()) {
+                rs.next();
+                return rs.getBoolean(1);
+            }
+        }
+    }
+
+    private static void unlock(Connection connection) throws SQLException {
+        try (PreparedStatement statement = connection.prepareStatement("SELECT pg_advisory_unlock(?)")) {
+            statement.setLong(1, LOCK_KEY);
+            statement.execute();
+        }
+    }
+
+    private void purge(Connection connection, long archived) throws SQLException, InterruptedException {
+        if (archived == 0) {
+            return;
+        }
+        long cursor = 0;
+        long deleted = 0;
+        try (PreparedStatement statement = connection.prepareStatement(DELETE_BATCH)) {
+            while (true) {
+                statement.setLong(1, cursor);
+                statement.setLong(2, archived);
+                statement.setInt(3, purgeBatchSize);
+                int count = 0;
+                try (ResultSet rs = statement.executeQuery()) {
+                    while (rs.next()) {
+                        cursor = Math.max(cursor, rs.getLong(1));
+                        count++;
+                    }
+                }
+                deleted += count;
+                if (count < purgeBatchSize) {
+                    break;
+                }
+                Thread.sleep(purgePauseMs);
+            }
+        }
+        if (deleted > 0) {
+            Log.infof("Deleted %d archived events up to position %d from the database", deleted, archived);
+        }
+    }
+
+    /**
+     * Highest position committed by every consumer group, or no bound without groups.
+     */
+    private static long committedBound(Connection connection) throws SQLException {
+        try (Statement statement = connection.createStatement();
+                ResultSet rs = statement.executeQuery("SELECT MIN(committed_position) FROM subscriptions")) {
+            rs.next();
+            long bound = rs.getLong(1);
+            return rs.wasNull() ? Long.MAX_VALUE : bound;
+        }
+    }
+
+    private List<CloudEvent> readNext(Connection connection, long afterPosition) throws SQLException {
+        try (PreparedStatement statement = connection.prepareStatement(SELECT_NEXT)) {
+            statement.setLong(1, afterPosition);
+            statement.setInt(2, segmentSize);
+            statement.setFetchSize(Math.min(segmentSize, 1000));
+            List<CloudEvent> events = new ArrayList<>(segmentSize);
+            try (ResultSet rs = statement.executeQuery()) {
+                while (rs.next()) {
+                    events.add(toEvent(rs));
+                }
+            }
+            return events;
+        }
+    }
+
+    /**
+     * Only full segments are written, so a segment never has to be extended.
+     */
+    private boolean archivable(List<CloudEvent> events, OffsetDateTime cutoff, long bound) {
+        if (events.size() < segmentSize) {
+            return false;
+        }
+        for (CloudEvent event : events) {
+            if (event.getProcessedAt() == null || !event.getCreatedAt().isBefore(cutoff)
+                    || event.getPosition() > bound) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static CloudEvent toEvent(ResultSet rs) throws SQLException {
+        CloudEvent event = new CloudEvent();
+        event.setId(rs.getObject("id", UUID.class));
+        event.setSource(rs.getString("source"));
+        event.setSpecversion(rs.getString("specversion"));
+        event.setType(rs.getString("type"));
+        event.setSubject(rs.getString("subject"));
+        event.setTime(rs.getObject("time", OffsetDateTime.class));
+        event.setDatacontenttype(rs.getString("datacontenttype"));
+        event.setDataschema(rs.getString("dataschema"));
+        event.setRawData(rs.getString("data"));
+        event.setPosition(rs.getLong("position"));
+        long streamVersion = rs.getLong("stream_version");
+        event.setStreamVersion(rs.wasNull() ? null : streamVersion);
+        event.setCreatedAt(rs.getObject("created_at", OffsetDateTime.class));
+        event.setProcessedAt(rs.getObject("processed_at", OffsetDateTime.class));
+        event.setFailedAt(rs.getObject("failed_at", OffsetDateTime.class));
+        event.setRetryCount(rs.getInt("retry_count"));
+        event.setErrorMessage(rs.getString("error_message"));
+        return event;
+    }
+}
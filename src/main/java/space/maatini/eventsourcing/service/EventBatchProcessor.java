@@ -80,12 +80,7 @@ public class EventBatchProcessor {
     }
 
     private Uni<Void> processEvent(CloudEvent event) {
-        String eventType = event.getType();
-        return handlerRegistry.getHandlers().entrySet().stream()
-                .filter(e -> eventType.startsWith(e.getKey()))
-                .flatMap(e -> e.getValue().stream())
-                .filter(h -> h.canHandle(eventType))
-                .findFirst()
+        return handlerRegistry.findHandler(event.getType())
                 .map(h -> h.handle(event)
                         .chain(() -> markAsProcessed(event))
                         .onFailure().recoverWithUni(t -> handleFailure(event, t)))
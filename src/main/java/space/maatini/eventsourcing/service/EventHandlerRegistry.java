@@ -3,6 +3,7 @@ package space.maatini.eventsourcing.service;
 import jakarta.enterprise.context.ApplicationScoped;
 import jakarta.enterprise.inject.Instance;
 import jakarta.inject.Inject;
+import org.eclipse.microprofile.config.inject.ConfigProperty;
 import space.maatini.eventsourcing.entity.AggregateRoot;
 
 import java.util.ArrayList;
@@ -10,15 +11,23 @@ import java.util.HashMap;
 import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
+import java.util.Optional;
 import java.util.Set;
 
 @ApplicationScoped
 public class EventHandlerRegistry {
     private final Map<String, List<EventHandler>> handlerRegistry = new HashMap<>();
     private final Set<Class<? extends AggregateRoot>> aggregateClasses = new HashSet<>();
+    private final Set<EventHandler> inlineHandlers = new HashSet<>();
 
+    /**
+     * @param inlinePrefixes prefixes whose handlers run inline in addition to
+     *                       those annotated with {@link HandlesEvents#inline()}
+     */
     @Inject
-    public EventHandlerRegistry(Instance<AggregateEventHandler<?>> handlerInstances) {
+    public EventHandlerRegistry(Instance<AggregateEventHandler<?>> handlerInstances,
+            @ConfigProperty(name = "eventsourcing.projections.inline") Optional<List<String>> inlinePrefixes) {
+        Set<String> configured = new HashSet<>(inlinePrefixes.orElse(List.of()));
         handlerInstances.handles().forEach(handle -> {
             AggregateEventHandler<?> handler = handle.get();
             Class<?> beanClass = handle.getBean().getBeanClass();
@@ -27,6 +36,9 @@ public class EventHandlerRegistry {
                 String prefix = annotation.value();
                 handlerRegistry.computeIfAbsent(prefix, k -> new ArrayList<>()).add(handler);
                 aggregateClasses.add(annotation.aggregate());
+                if (annotation.inline() || configured.contains(prefix)) {
+                    inlineHandlers.add(handler);
+                }
             }
         });
     }
@@ -35,6 +47,24 @@ public class EventHandlerRegistry {
         return handlerRegistry;
     }
 
+    /**
+     * The first handler registered for a prefix of the type that accepts it.
+     */
+    public Optional<EventHandler> findHandler(String eventType) {
+        return handlerRegistry.entrySet().stream()
+                .filter(e -> eventType.startsWith(e.getKey()))
+                .flatMap(e -> e.getValue().stream())
+                .filter(h -> h.canHandle(eventType))
+                .findFirst();
+    }
+
+    /**
+     * The handler for the type if it runs inline, see {@link HandlesEvents#inline()}.
+     */
+    public Optional<EventHandler> findInlineHandler(String eventType) {
+        return inlineHandlers.isEmpty() ? Optional.empty() : findHandler(eventType).filter(inlineHandlers::contains);
+    }
+
     public Set<Class<? extends AggregateRoot>> getAggregateClasses() {
         return aggregateClasses;
     }
@@ -0,0 +1,143 @@
+package space.maatini.eventsourcing.service;
+
+import io.smallrye.mutiny.Uni;
+import io.vertx.mutiny.pgclient.PgPool;
+import io.vertx.mutiny.sqlclient.Row;
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.inject.Inject;
+import org.eclipse.microprofile.config.inject.ConfigProperty;
+import space.maatini.eventsourcing.exception.LogHeadUnavailableException;
+
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.SQLTimeoutException;
+import java.sql.Statement;
+import java.time.Duration;
+import java.util.ArrayDeque;
+import java.util.Deque;
+
+/**
+ * Safe read bound of the global event log.
+ * <p>
+ * Positions are drawn from a sequence by concurrent transactions (see V19), so
+ * position 12 may commit while 11 is still in flight. A reader that pages
+ * through the whole log with {@code position > cursor} would skip 11 for good.
+ * Such readers must stay at or below the {@linkplain #safePosition() safe
+ * position}: every event up to it has either committed or will never exist.
+ * <p>
+ * Each probe of {@code event_log_probe()} records a candidate, the last drawn
+ * position together with the xmax of a snapshot taken after it. The candidate
+ * becomes safe once a later snapshot's xmin has reached that xmax, i.e. once
+ * every transaction that could hold one of its positions has ended. The bound
+ * therefore trails the oldest write transaction that was running at the
+ * probe; long write transactions hold it back for their whole duration. The
+ * snapshot covers the whole database cluster, so this includes transactions
+ * of other applications and sessions left idle in a transaction. Until the
+ * first candidate is safe, callers wait at most {@code timeout-ms} and then
+ * fail.
+ * <p>
+ * Single-subject reads do not need the bound: the subject's stream row stays
+ * locked until commit, so its positions become visible in order.
+ */
+@ApplicationScoped
+public class EventLogHead {
+
+    private static final String PROBE = "SELECT last_position, snapshot_xmin, snapshot_xmax FROM event_log_probe()";
+
+    /**
+     * Delay before probing again while no candidate is safe yet.
+     */
+    private static final Duration RETRY_DELAY = Duration.ofMillis(20);
+
+    /**
+     * Beyond this many pending candidates, new probes are merged into the
+     * newest one, which then only becomes safe with the newest probe.
+     */
+    static final int MAX_CANDIDATES = 1024;
+
+    private static final long UNKNOWN = -1;
+
+    private final PgPool pgPool;
+    private final long timeoutMs;
+    private final Deque<Candidate> candidates = new ArrayDeque<>();
+    private long safe = UNKNOWN;
+
+    @Inject
+    public EventLogHead(PgPool pgPool,
+            @ConfigProperty(name = "eventsourcing.log-head.timeout-ms", defaultValue = "10000") long timeoutMs) {
+        this.pgPool = pgPool;
+        this.timeoutMs = Math.max(1, timeoutMs);
+    }
+
+    /**
+     * Highest position up to which the log is final, or 0 for an empty log.
+     * Waits until the transactions running at the first probe have ended.
+     *
+     * @throws LogHeadUnavailableException (as failure) if none is safe within the timeout
+     */
+    public Uni<Long> safePosition() {
+        return probe()
+                .ifNoItem().after(Duration.ofMillis(timeoutMs))
+                .failWith(() -> new LogHeadUnavailableException(timeoutMs));
+    }
+
+    private Uni<Long> probe() {
+        return pgPool.query(PROBE).execute()
+                .map(rows -> {
+                    Row row = rows.iterator().next();
+                    return advance(row.getLong(0), row.getLong(1), row.getLong(2));
+                })
+                .chain(position -> position != UNKNOWN
+                        ? Uni.createFrom().item(position)
+                        : Uni.createFrom().voidItem().onItem().delayIt().by(RETRY_DELAY).chain(() -> probe()));
+    }
+
+    /**
+     * Blocking variant of {@link #safePosition()}. The connection must not
+     * have written in its current transaction.
+     *
+     * @throws SQLTimeoutException if none is safe within the timeout
+     */
+    public long safePosition(Connection connection) throws SQLException, InterruptedException {
+        long deadline = System.nanoTime() + timeoutMs * 1_000_000;
+        while (true) {
+            long position;
+            try (Statement statement = connection.createStatement();
+                    ResultSet rs = statement.executeQuery(PROBE)) {
+                rs.next();
+                position = advance(rs.getLong(1), rs.getLong(2), rs.getLong(3));
+            }
+            if (position != UNKNOWN) {
+                return position;
+            }
+            if (System.nanoTime() - deadline >= 0) {
+                throw new SQLTimeoutException(new LogHeadUnavailableException(timeoutMs).getMessage());
+            }
+            Thread.sleep(RETRY_DELAY.toMillis());
+        }
+    }
+
+    /**
+     * Record a probe and promote every candidate it proves safe.
+     *
+     * @return the safe position, or -1 while none is known
+     */
+    synchronized long advance(long lastPosition, long snapshotXmin, long snapshotXmax) {
+        Candidate last = candidates.peekLast();
+        if (last != null && (last.xmax() == snapshotXmax || candidates.size() >= MAX_CANDIDATES)) {
+            // Waiting for the later xmax covers both positions
+            candidates.pollLast();
+            candidates.addLast(new Candidate(Math.max(last.position(), lastPosition), snapshotXmax));
+        } else {
+            candidates.addLast(new Candidate(lastPosition, snapshotXmax));
+        }
+        while (!candidates.isEmpty() && candidates.peekFirst().xmax() <= snapshotXmin) {
+            safe = Math.max(safe, candidates.pollFirst().position());
+        }
+        return safe;
+    }
+
+    private record Candidate(long position, long xmax) {
+    }
+}
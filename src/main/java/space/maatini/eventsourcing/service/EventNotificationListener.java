@@ -1,5 +1,8 @@
 package space.maatini.eventsourcing.service;
 
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
 import io.quarkus.logging.Log;
 import io.quarkus.runtime.ShutdownEvent;
 import io.quarkus.runtime.StartupEvent;
@@ -10,68 +13,301 @@ import io.vertx.mutiny.sqlclient.SqlConnection;
 import jakarta.enterprise.context.ApplicationScoped;
 import jakarta.enterprise.event.Observes;
 import jakarta.inject.Inject;
+import org.eclipse.microprofile.config.inject.ConfigProperty;
 
 import io.quarkus.arc.profile.UnlessBuildProfile;
 
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Listens on {@code events_channel} and wakes up the {@link EventBatchProcessor}
+ * and the live subscriptions of the {@link EventSubscriptionHub}.
+ * <p>
+ * The insert trigger sends one notification per statement (see V12). A burst of
+ * notifications within {@code debounce-ms} is still coalesced into a single
+ * wake-up, because the processor drains everything that is pending anyway.
+ * <p>
+ * Notifications are not the only wake-up source, so a lost notification or a
+ * broken LISTEN connection cannot stall the projection:
+ * <ul>
+ * <li>while LISTEN is healthy, a low-frequency safety poll runs every
+ * {@code safety-interval-ms};</li>
+ * <li>while it is down, polling starts at {@code fallback-min-ms} and backs off
+ * to {@code fallback-max-ms};</li>
+ * <li>every successful (re)connect runs a catch-up sweep for events inserted
+ * while nobody was listening.</li>
+ * </ul>
+ */
 @ApplicationScoped
 @UnlessBuildProfile("test")
 public class EventNotificationListener {
     private static final long STARTUP_DELAY_MS = 2000;
     private static final long RECONNECT_DELAY_MS = 5000;
 
+    /**
+     * What caused a processor wake-up, exposed as tag {@code source} of
+     * {@code projection.wakeups}.
+     */
+    enum WakeupSource {
+        NOTIFICATION("notification"),
+        SAFETY_POLL("safety-poll"),
+        FALLBACK_POLL("fallback-poll"),
+        RECONNECT("reconnect");
+
+        private final String tag;
+
+        WakeupSource(String tag) {
+            this.tag = tag;
+        }
+    }
+
     private final PgPool pgPool;
     private final Vertx vertx;
     private final EventBatchProcessor batchProcessor;
     private final EventHandlerRegistry handlerRegistry;
+    private final EventSubscriptionHub subscriptionHub;
+    private final long debounceMs;
+    private final long fallbackMinMs;
+    private final long fallbackMaxMs;
+    private final Counter notificationsReceived;
+    private final Map<WakeupSource, Counter> wakeups = new EnumMap<>(WakeupSource.class);
+    private final Debounce debounce = new Debounce();
+    private final PollSchedule pollSchedule;
 
     private volatile SqlConnection listeningConnection;
+    private volatile boolean stopped;
+    private long pollTimerId = -1;
 
     @Inject
-    public EventNotificationListener(PgPool pgPool, Vertx vertx, EventBatchProcessor batchProcessor, EventHandlerRegistry handlerRegistry) {
+    public EventNotificationListener(PgPool pgPool, Vertx vertx, EventBatchProcessor batchProcessor, EventHandlerRegistry handlerRegistry,
+            EventSubscriptionHub subscriptionHub, MeterRegistry meterRegistry,
+            @ConfigProperty(name = "eventsourcing.notify.debounce-ms", defaultValue = "5") long debounceMs,
+            @ConfigProperty(name = "eventsourcing.projection.poll.safety-interval-ms", defaultValue = "30000") long safetyIntervalMs,
+            @ConfigProperty(name = "eventsourcing.projection.poll.fallback-min-ms", defaultValue = "200") long fallbackMinMs,
+            @ConfigProperty(name = "eventsourcing.projection.poll.fallback-max-ms", defaultValue = "5000") long fallbackMaxMs) {
         this.pgPool = pgPool;
         this.vertx = vertx;
         this.batchProcessor = batchProcessor;
         this.handlerRegistry = handlerRegistry;
+        this.subscriptionHub = subscriptionHub;
+        this.debounceMs = debounceMs;
+        this.fallbackMinMs = Math.max(1, fallbackMinMs);
+        this.fallbackMaxMs = Math.max(this.fallbackMinMs, fallbackMaxMs);
+        this.pollSchedule = new PollSchedule(safetyIntervalMs, this.fallbackMinMs, this.fallbackMaxMs);
+        this.notificationsReceived = Counter.builder("events.notifications.received")
+                .description("Notifications received on events_channel")
+                .register(meterRegistry);
+        for (WakeupSource source : WakeupSource.values()) {
+            wakeups.put(source, Counter.builder("projection.wakeups")
+                    .description("Wake-ups of the event batch processor")
+                    .tag("source", source.tag)
+                    .register(meterRegistry));
+        }
+        Gauge.builder("events.listener.healthy", pollSchedule, schedule -> schedule.isListening() ? 1 : 0)
+                .description("1 while LISTEN on events_channel is active, 0 while polling as fallback")
+                .register(meterRegistry);
     }
 
     public void onStart(@Observes StartupEvent ev) {
         Log.infof("EventNotificationListener started with %d aggregate domain(s)", handlerRegistry.size());
-        vertx.setTimer(STARTUP_DELAY_MS, id -> listenForNotifications());
+        vertx.setTimer(STARTUP_DELAY_MS, id -> {
+            listenForNotifications();
+            schedulePoll();
+        });
     }
 
     public void onStop(@Observes ShutdownEvent ev) {
+        stopped = true;
+        vertx.cancelTimer(pollTimerId);
         if (listeningConnection != null) {
             listeningConnection.close()
                     .subscribe().with(v -> Log.info("Closed listener"), f -> Log.warn("Failed to close listener", f));
         }
     }
 
+    /**
+     * Coalesce notifications: the first one arms a short timer, later ones until it
+     * fires are absorbed.
+     */
+    private void scheduleWakeup() {
+        if (!debounce.arm()) {
+            return;
+        }
+        if (debounceMs <= 0) {
+            notificationWakeup();
+        } else {
+            vertx.setTimer(debounceMs, id -> notificationWakeup());
+        }
+    }
+
+    private void notificationWakeup() {
+        // Cleared before triggering, so a notification arriving during processing arms a new wake-up
+        debounce.fired();
+        wakeup(WakeupSource.NOTIFICATION);
+        subscriptionHub.onEventsAppended();
+    }
+
+    private void wakeup(WakeupSource source) {
+        wakeups.get(source).increment();
+        io.vertx.core.impl.ContextInternal context = ((io.vertx.core.impl.ContextInternal) vertx
+                .getDelegate().getOrCreateContext()).duplicate();
+        VertxContextSafetyToggle.setContextSafe(context, true);
+        context.runOnContext(v -> batchProcessor.triggerBackgroundProcessing());
+    }
+
+    /**
+     * Arm the next poll: the safety interval while LISTEN is healthy, the current
+     * fallback delay otherwise. Each fallback poll doubles the delay up to the max.
+     */
+    private synchronized void schedulePoll() {
+        if (stopped) {
+            return;
+        }
+        vertx.cancelTimer(pollTimerId);
+        pollTimerId = vertx.setTimer(pollSchedule.nextDelay(), id -> {
+            wakeup(pollSchedule.poll());
+            schedulePoll();
+        });
+    }
+
+    private void onListening() {
+        Log.info("Listening on 'events_channel'");
+        pollSchedule.listening();
+        // Catch up on everything inserted while nobody was listening
+        wakeup(WakeupSource.RECONNECT);
+        schedulePoll();
+    }
+
+    private void onListenerLost() {
+        if (pollSchedule.lost()) {
+            Log.warnf("LISTEN connection lost, polling every %d-%d ms until it is back", fallbackMinMs, fallbackMaxMs);
+        }
+        schedulePoll();
+    }
+
     private void listenForNotifications() {
+        if (stopped) {
+            return;
+        }
         Log.info("Starting listener for 'events_channel'...");
-        pgPool.getConnection()
-                .invoke(conn -> {
-                    this.listeningConnection = conn;
-                    io.vertx.sqlclient.SqlConnection delegate = conn.getDelegate();
-                    if (delegate instanceof io.vertx.pgclient.PgConnection pgConn) {
-                        pgConn.notificationHandler(notification -> {
-                            Log.debugf("Received notification: %s", notification.getPayload());
-                            io.vertx.core.impl.ContextInternal context = ((io.vertx.core.impl.ContextInternal) vertx
-                                    .getDelegate().getOrCreateContext()).duplicate();
-                            VertxContextSafetyToggle.setContextSafe(context, true);
-                            context.runOnContext(v -> batchProcessor.triggerBackgroundProcessing());
-                        });
+        pgPool.getConnection().subscribe().with(
+                this::listenOn,
+                failure -> {
+                    Log.error("Failed to connect to Postgres. Retrying in 5s...", failure);
+                    onListenerLost();
+                    vertx.setTimer(RECONNECT_DELAY_MS, id -> listenForNotifications());
+                });
+    }
+
+    private void listenOn(SqlConnection conn) {
+        this.listeningConnection = conn;
+        io.vertx.sqlclient.SqlConnection delegate = conn.getDelegate();
+        if (delegate instanceof io.vertx.pgclient.PgConnection pgConn) {
+            pgConn.notificationHandler(notification -> {
+                Log.debugf("Received notification: %s", notification.getPayload());
+                notificationsReceived.increment();
+                scheduleWakeup();
+            });
+        }
+        conn.closeHandler(() -> {
+            onListenerLost();
+            if (!stopped) {
+                Log.warn("Postgres connection closed. Reconnecting in 5s...");
+                vertx.setTimer(RECONNECT_DELAY_MS, id -> listenForNotifications());
+            }
+        });
+        conn.query("LISTEN events_channel").execute()
+                .subscribe().with(item -> onListening(), failure -> {
+                    // A pooled connection handed back need not report its close, so reconnect explicitly
+                    Log.error("Failed to LISTEN. Reconnecting in 5s...", failure);
+                    conn.closeHandler(() -> {
+                    });
+                    conn.close().subscribe().with(
+                            v -> {
+                            },
+                            closeFailure -> Log.warn("Failed to close listener", closeFailure));
+                    onListenerLost();
+                    if (!stopped) {
+                        vertx.setTimer(RECONNECT_DELAY_MS, id -> listenForNotifications());
                     }
-                    conn.query("LISTEN events_channel").execute()
-                            .subscribe().with(item -> Log.info("Listening on 'events_channel'"), failure -> Log.error("Failed to LISTEN", failure));
-                })
-                .subscribe().with(
-                        conn -> conn.closeHandler(() -> {
-                            Log.warn("Postgres connection closed. Reconnecting in 5s...");
-                            vertx.setTimer(RECONNECT_DELAY_MS, id -> listenForNotifications());
-                        }),
-                        failure -> {
-                            Log.error("Failed to connect to Postgres. Retrying in 5s...", failure);
-                            vertx.setTimer(RECONNECT_DELAY_MS, id -> listenForNotifications());
-                        });
+                });
+    }
+
+    /**
+     * Coalesces notifications: the first one arms a wake-up, later ones are
+     * absorbed until it has fired.
+     */
+    static final class Debounce {
+
+        private final AtomicBoolean armed = new AtomicBoolean();
+
+        /**
+         * @return true if the caller must schedule the wake-up
+         */
+        boolean arm() {
+            return armed.compareAndSet(false, true);
+        }
+
+        void fired() {
+            armed.set(false);
+        }
+    }
+
+    /**
+     * Poll delays: the safety interval while LISTEN is healthy; otherwise a
+     * fallback delay that starts at the minimum and doubles with every
+     * fallback poll up to the maximum.
+     */
+    static final class PollSchedule {
+
+        private final long safetyIntervalMs;
+        private final long fallbackMinMs;
+        private final long fallbackMaxMs;
+        private boolean listening;
+        private long fallbackDelayMs;
+
+        PollSchedule(long safetyIntervalMs, long fallbackMinMs, long fallbackMaxMs) {
+            this.safetyIntervalMs = Math.max(1, safetyIntervalMs);
+            this.fallbackMinMs = Math.max(1, fallbackMinMs);
+            this.fallbackMaxMs = Math.max(this.fallbackMinMs, fallbackMaxMs);
+            this.fallbackDelayMs = this.fallbackMinMs;
+        }
+
+        synchronized long nextDelay() {
+            return listening ? safetyIntervalMs : fallbackDelayMs;
+        }
+
+        /**
+         * A poll is due: backs off if it is a fallback poll.
+         */
+        synchronized WakeupSource poll() {
+            if (listening) {
+                return WakeupSource.SAFETY_POLL;
+            }
+            fallbackDelayMs = Math.min(fallbackDelayMs * 2, fallbackMaxMs);
+            return WakeupSource.FALLBACK_POLL;
+        }
+
+        synchronized void listening() {
+            listening = true;
+        }
+
+        /**
+         * Fall back to polling, starting again at the minimum delay.
+         *
+         * @return whether LISTEN was healthy until now
+         */
+        synchronized boolean lost() {
+            boolean wasListening = listening;
+            listening = false;
+            fallbackDelayMs = fallbackMinMs;
+            return wasListening;
+        }
+
+        synchronized boolean isListening() {
+            return listening;
+        }
     }
 }
@@ -0,0 +1,178 @@
+package space.maatini.eventsourcing.service;
+
+import io.quarkus.hibernate.reactive.panache.Panache;
+import io.quarkus.logging.Log;
+import io.quarkus.scheduler.Scheduled;
+import io.smallrye.mutiny.Multi;
+import io.smallrye.mutiny.Uni;
+import io.vertx.mutiny.pgclient.PgPool;
+import io.vertx.mutiny.sqlclient.SqlConnection;
+import io.vertx.mutiny.sqlclient.Tuple;
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.inject.Inject;
+import org.eclipse.microprofile.config.inject.ConfigProperty;
+import org.hibernate.reactive.mutiny.Mutiny;
+import space.maatini.eventsourcing.entity.CloudEvent;
+
+import java.time.YearMonth;
+import java.time.ZoneOffset;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
+import java.util.Optional;
+import java.util.stream.IntStream;
+
+/**
+ * Maintains the monthly partitions of {@code events} (see V16).
+ * <p>
+ * Partitions are created {@code premake-months} ahead. There is no default
+ * partition (see V20): an insert outside the prepared months fails, so
+ * maintenance must keep running. If {@code retention-months} is set, partitions
+ * of older months are detached once all their events are processed, archived
+ * (see {@link EventArchiver}) and committed by every consumer group, so no
+ * reader still needs them from the database; without the archive, only empty
+ * partitions are detached. A detached partition stays in the database as a
+ * plain table and is no longer part of the event log.
+ * <p>
+ * Partitions are detached with {@code DETACH PARTITION ... CONCURRENTLY}, which
+ * does not block reads and writes on {@code events} but cannot run inside a
+ * transaction, so this step uses a connection of the reactive pool directly.
+ * Runs on every instance; an advisory lock lets one of them do the work.
+ */
+@ApplicationScoped
+public class EventPartitionManager {
+
+    static final String PARTITION_PREFIX = "events_p";
+
+    private static final DateTimeFormatter PARTITION_MONTH = DateTimeFormatter.ofPattern("yyyyMM");
+
+    /**
+     * Arbitrary key of the transaction-level advisory lock guarding partition DDL.
+     */
+    private static final long LOCK_KEY = 0x6576_656e_7473_7031L;
+
+    private static final String LIST_PARTITIONS = """
+            SELECT c.relname, i.inhdetachpending FROM pg_inherits i
+            JOIN pg_class c ON c.oid = i.inhrelid
+            JOIN pg_class p ON p.oid = i.inhparent
+            WHERE p.relname = 'events'""";
+
+    private final PgPool pgPool;
+    private final EventArchive archive;
+    private final int premakeMonths;
+    private final int retentionMonths;
+
+    @Inject
+    public EventPartitionManager(PgPool pgPool, EventArchive archive,
+            @ConfigProperty(name = "eventsourcing.partitions.premake-months", defaultValue = "3") int premakeMonths,
+            @ConfigProperty(name = "eventsourcing.partitions.retention-months", defaultValue = "0") int retentionMonths) {
+        this.pgPool = pgPool;
+        this.archive = archive;
+        this.premakeMonths = Math.max(1, premakeMonths);
+        this.retentionMonths = Math.max(0, retentionMonths);
+    }
+
+    @Scheduled(every = "${eventsourcing.partitions.check-interval:1h}", concurrentExecution = Scheduled.ConcurrentExecution.SKIP)
+    Uni<Void> maintain() {
+        return Panache.withTransaction(() -> CloudEvent.getSession().chain(session -> session
+                        .createNativeQuery("SELECT pg_try_advisory_xact_lock(?1)", Boolean.class)
+                        .setParameter(1, LOCK_KEY)
+                        .getSingleResult()
+                        .chain(locked -> locked ? createUpcoming(session) : Uni.createFrom().voidItem())))
+                .chain(this::detachExpired)
+                .onFailure().invoke(failure -> Log.warn("Event partition maintenance failed", failure))
+                .onFailure().recoverWithNull()
+                .replaceWithVoid();
+    }
+
+    private Uni<Void> createUpcoming(Mutiny.Session session) {
+        YearMonth current = YearMonth.now(ZoneOffset.UTC);
+        return Multi.createFrom().items(IntStream.rangeClosed(0, premakeMonths).mapToObj(current::plusMonths))
+                .onItem().transformToUniAndConcatenate(month -> session
+                        .createNativeQuery("SELECT create_events_partition(?1)", String.class)
+                        .setParameter(1, month.atDay(1))
+                        .getSingleResult())
+                .collect().asList()
+                .invoke(names -> Log.debugf("Event partitions present up to %s", names.get(names.size() - 1)))
+                .replaceWithVoid();
+    }
+
+    private Uni<Void> detachExpired() {
+        if (retentionMonths == 0) {
+            return Uni.createFrom().voidItem();
+        }
+        YearMonth oldestKept = YearMonth.now(ZoneOffset.UTC).minusMonths(retentionMonths);
+        // A session-level lock, the connection runs without a transaction block
+        return pgPool.getConnection().chain(connection -> connection
+                .preparedQuery("SELECT pg_try_advisory_lock($1)").execute(Tuple.of(LOCK_KEY))
+                .map(rows -> rows.iterator().next().getBoolean(0))
+                .chain(locked -> locked
+                        ? detachExpired(connection, oldestKept).eventually(() -> connection
+                                .preparedQuery("SELECT pg_advisory_unlock($1)").execute(Tuple.of(LOCK_KEY)))
+                        : Uni.createFrom().voidItem())
+                .eventually(connection::close));
+    }
+
+    private Uni<Void> detachExpired(SqlConnection connection, YearMonth oldestKept) {
+        return connection.query("SELECT MIN(committed_position) FROM subscriptions").execute()
+                .map(rows -> {
+                    Long committed = rows.iterator().next().getLong(0);
+                    // Without consumer groups only the archive bounds the detach
+                    return Math.min(archive.archivedPosition(), committed != null ? committed : Long.MAX_VALUE);
+                })
+                .chain(bound -> connection.query(LIST_PARTITIONS).execute()
+                        .onItem().transformToMulti(rows -> Multi.createFrom().iterable(rows))
+                        .filter(row -> monthOf(row.getString(0)).map(month -> month.isBefore(oldestKept)).orElse(false))
+                        .onItem().transformToUniAndConcatenate(row -> row.getBoolean(1)
+                                ? finishDetach(connection, row.getString(0))
+                                : detachIfDone(connection, row.getString(0), bound))
+                        .collect().last())
+                .replaceWithVoid();
+    }
+
+    private static Uni<Void> detachIfDone(SqlConnection connection, String partition, long bound) {
+        // Partition names come from pg_class and match PARTITION_PREFIX + digits, so they are safe to inline
+        return connection.query("SELECT MAX(position), EXISTS (SELECT 1 FROM " + partition
+                        + " WHERE processed_at IS NULL AND retry_count < 5) FROM " + partition).execute()
+                .map(rows -> rows.iterator().next())
+                .chain(row -> {
+                    if (row.getBoolean(1)) {
+                        Log.infof("Keeping partition %s: it still has unprocessed events", partition);
+                        return Uni.createFrom().voidItem();
+                    }
+                    Long last = row.getLong(0);
+                    if (last != null && last > bound) {
+                        Log.infof("Keeping partition %s: events up to position %d are not yet archived and "
+                                + "committed by every consumer group (at %d)", partition, last, bound);
+                        return Uni.createFrom().voidItem();
+                    }
+                    return connection.query("ALTER TABLE events DETACH PARTITION " + partition + " CONCURRENTLY")
+                            .execute()
+                            .invoke(() -> Log.infof("Detached event partition %s", partition))
+                            .replaceWithVoid();
+                });
+    }
+
+    /**
+     * A concurrent detach that was interrupted leaves the partition pending;
+     * it can only be finalized.
+     */
+    private static Uni<Void> finishDetach(SqlConnection connection, String partition) {
+        return connection.query("ALTER TABLE events DETACH PARTITION " + partition + " FINALIZE").execute()
+                .invoke(() -> Log.infof("Finished detaching event partition %s", partition))
+                .replaceWithVoid();
+    }
+
+    /**
+     * The month of a monthly partition, or empty for other tables.
+     */
+    static Optional<YearMonth> monthOf(String partition) {
+        if (!partition.startsWith(PARTITION_PREFIX) || partition.length() != PARTITION_PREFIX.length() + 6) {
+            return Optional.empty();
+        }
+        try {
+            return Optional.of(YearMonth.parse(partition.substring(PARTITION_PREFIX.length()), PARTITION_MONTH));
+        } catch (DateTimeParseException e) {
+            return Optional.empty();
+        }
+    }
+}
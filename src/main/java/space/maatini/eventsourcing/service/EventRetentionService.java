@@ -0,0 +1,254 @@
+package space.maatini.eventsourcing.service;
+
+import io.agroal.api.AgroalDataSource;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.quarkus.logging.Log;
+import io.quarkus.scheduler.Scheduled;
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.inject.Inject;
+import org.eclipse.microprofile.config.inject.ConfigProperty;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.OffsetDateTime;
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * Deletes processed events according to the configured {@link RetentionPolicy
+ * retention policies}, and old dead-letter entries.
+ * <p>
+ * Deletes run in small keyset batches over {@code position}, each in its own
+ * short transaction, with a pause between batches, so the job never holds many
+ * row locks or produces WAL in bursts. Only processed events are deleted that
+ * every consumer group has committed and that are not archived (the archiver
+ * owns those rows). Runs on every instance; an advisory lock lets one of them
+ * do the work.
+ */
+@ApplicationScoped
+public class EventRetentionService {
+
+    /**
+     * Arbitrary key of the session-level advisory lock guarding the job.
+     */
+    private static final long LOCK_KEY = 0x6576_656e_7473_7270L;
+
+    /**
+     * A batch of events: after a position, up to an upper bound, processed and
+     * of a type governed by the policy. {@code %s} is the policy's own condition.
+     */
+    private static final String DELETE_BATCH = """
+            WITH batch AS (
+                SELECT e.id, e.created_at, e.position FROM events e
+                WHERE e.position > ? AND e.position <= ?
+                  AND e.processed_at IS NOT NULL
+                  AND %s
+                  AND %s
+                ORDER BY e.position
+                LIMIT ?
+            )
+            DELETE FROM events d USING batch
+            WHERE d.id = batch.id AND d.created_at = batch.created_at
+            RETURNING d.position""";
+
+    private static final String DELETE_DEAD_LETTER = """
+            DELETE FROM events_dead_letter WHERE id IN (
+                SELECT id FROM events_dead_letter WHERE moved_at < ? ORDER BY moved_at LIMIT ?
+            )""";
+
+    private final AgroalDataSource dataSource;
+    private final EventArchive archive;
+    private final EventLogHead logHead;
+    private final MeterRegistry meterRegistry;
+    private final List<RetentionPolicy> policies;
+    private final int deadLetterDays;
+    private final int batchSize;
+    private final long pauseMs;
+    private final Counter deadLetterDeleted;
+    private final Timer runTimer;
+
+    @Inject
+    public EventRetentionService(AgroalDataSource dataSource, EventArchive archive, EventLogHead logHead,
+            MeterRegistry meterRegistry,
+            @ConfigProperty(name = "eventsourcing.retention.policies") Optional<List<String>> policies,
+            @ConfigProperty(name = "eventsourcing.retention.dead-letter-days", defaultValue = "0") int deadLetterDays,
+            @ConfigProperty(name = "eventsourcing.retention.batch-size", defaultValue = "1000") int batchSize,
+            @ConfigProperty(name = "eventsourcing.retention.pause-ms", defaultValue = "100") long pauseMs) {
+        this.dataSource = dataSource;
+        this.archive = archive;
+        this.logHead = logHead;
+        this.meterRegistry = meterRegistry;
+        this.policies = RetentionPolicy.parseAll(policies.orElse(List.of()));
+        this.deadLetterDays = Math.max(0, deadLetterDays);
+        this.batchSize = Math.max(1, batchSize);
+        this.pauseMs = Math.max(0, pauseMs);
+        this.deadLetterDeleted = meterRegistry.counter("retention.deleted.deadletter");
+        this.runTimer = Timer.builder("retention.run")
+                .description("Duration of retention runs")
+                .register(meterRegistry);
+    }
+
+    @Scheduled(every = "${eventsourcing.retention.check-interval:1h}", concurrentExecution = Scheduled.ConcurrentExecution.SKIP)
+    void scheduled() {
+        if (deadLetterDays == 0 && policies.stream().allMatch(p -> p.kind() == RetentionPolicy.Kind.FOREVER)) {
+            return;
+        }
+        try {
+            purge();
+        } catch (SQLException e) {
+            Log.warn("Event retention run failed", e);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * Apply all policies once.
+     *
+     * @return the number of deleted events and dead-letter entries
+     */
+    public long purge() throws SQLException, InterruptedException {
+        try (Connection connection = dataSource.getConnection()) {
+            connection.setAutoCommit(true);
+            if (!tryLock(connection)) {
+                return 0;
+            }
+            Timer.Sample sample = Timer.start(meterRegistry);
+            try {
+                long deleted = 0;
+                long lower = archive.archivedPosition();
+                long upper = Math.min(logHead.safePosition(connection), committedBound(connection));
+                for (RetentionPolicy policy : policies) {
+                    if (policy.kind() != RetentionPolicy.Kind.FOREVER) {
+                        deleted += apply(connection, policy, lower, upper);
+                    }
+                }
+                if (deadLetterDays > 0) {
+                    deleted += purgeDeadLetters(connection);
+                }
+                return deleted;
+            } finally {
+                sample.stop(runTimer);
+                unlock(connection);
+            }
+        }
+    }
+
+    private long apply(Connection connection, RetentionPolicy policy, long lower, long upper)
+            throws SQLException, InterruptedException {
+        Counter counter = meterRegistry.counter("retention.deleted.events", "policy", policy.typePrefix());
+        String[] overrides = policy.overriddenBy(policies).toArray(String[]::new);
+        String condition = switch (policy.kind()) {
+            case DAYS -> "e.created_at < ?";
+            case LATEST_PER_SUBJECT -> "e.subject IS NOT NULL AND EXISTS (SELECT 1 FROM events n "
+                    + "WHERE n.subject = e.subject AND n.position > e.position AND " + governedBy("n") + ")";
+            case FOREVER -> throw new IllegalArgumentException("Nothing to delete for " + policy);
+        };
+        String sql = DELETE_BATCH.formatted(governedBy("e"), condition);
+        OffsetDateTime cutoff = OffsetDateTime.now().minusDays(policy.days());
+
+        long cursor = lower;
+        long deleted = 0;
+        try (PreparedStatement statement = connection.prepareStatement(sql)) {
+            while (true) {
+                int p = 1;
+                statement.setLong(p++, cursor);
+                statement.setLong(p++, upper);
+                statement.setString(p++, policy.typePrefix());
+                statement.setArray(p++, connection.createArrayOf("text", overrides));
+                if (policy.kind() == RetentionPolicy.Kind.DAYS) {
+                    statement.setObject(p++, cutoff);
+                } else {
+                    statement.setString(p++, policy.typePrefix());
+                    statement.setArray(p++, connection.createArrayOf("text", overrides));
+                }
+                statement.setInt(p, batchSize);
+
+                int count = 0;
+                try (ResultSet rs = statement.executeQuery()) {
+                    while (rs.next()) {
+                        cursor = Math.max(cursor, rs.getLong(1));
+                        count++;
+                    }
+                }
+                deleted += count;
+                counter.increment(count);
+                if (count < batchSize) {
+                    break;
+                }
+                Log.debugf("Retention %s: %d events deleted, at position %d of %d", policy.typePrefix(), deleted,
+                        cursor, upper);
+                Thread.sleep(pauseMs);
+            }
+        }
+        if (deleted > 0) {
+            Log.infof("Retention %s (%s): deleted %d events", policy.typePrefix(), policy.kind(), deleted);
+        }
+        return deleted;
+    }
+
+    private long purgeDeadLetters(Connection connection) throws SQLException, InterruptedException {
+        OffsetDateTime cutoff = OffsetDateTime.now().minusDays(deadLetterDays);
+        long deleted = 0;
+        try (PreparedStatement statement = connection.prepareStatement(DELETE_DEAD_LETTER)) {
+            while (true) {
+                statement.setObject(1, cutoff);
+                statement.setInt(2, batchSize);
+                int count = statement.executeUpdate();
+                deleted += count;
+                deadLetterDeleted.increment(count);
+                if (count < batchSize) {
+                    break;
+                }
+                Thread.sleep(pauseMs);
+            }
+        }
+        if (deleted > 0) {
+            Log.infof("Retention: deleted %d dead-letter entries older than %d days", deleted, deadLetterDays);
+        }
+        return deleted;
+    }
+
+    /**
+     * Condition matching the policy's prefix but none of the longer prefixes
+     * that override it. Takes the prefix and the overriding prefixes as parameters.
+     */
+    private static String governedBy(String alias) {
+        return "starts_with(" + alias + ".type, ?) AND NOT EXISTS (SELECT 1 FROM unnest(?::text[]) AS o(prefix) "
+                + "WHERE starts_with(" + alias + ".type, o.prefix))";
+    }
+
+    private static boolean tryLock(Connection connection) throws SQLException {
+        try (PreparedStatement statement = connection.prepareStatement("SELECT pg_try_advisory_lock(?)")) {
+            statement.setLong(1, LOCK_KEY);
+            try (ResultSet rs = statement.executeQuery()) {
+                rs.next();
+                return rs.getBoolean(1);
+            }
+        }
+    }
+
+    private static void unlock(Connection connection) throws SQLException {
+        try (PreparedStatement statement = connection.prepareStatement("SELECT pg_advisory_unlock(?)")) {
+            statement.setLong(1, LOCK_KEY);
+            statement.execute();
+        }
+    }
+
+    /**
+     * Highest position committed by every consumer group, or no bound without groups.
+     */
+    private static long committedBound(Connection connection) throws SQLException {
+        try (Statement statement = connection.createStatement();
+                ResultSet rs = statement.executeQuery("SELECT MIN(committed_position) FROM subscriptions")) {
+            rs.next();
+            long bound = rs.getLong(1);
+            return rs.wasNull() ? Long.MAX_VALUE : bound;
+        }
+    }
+}
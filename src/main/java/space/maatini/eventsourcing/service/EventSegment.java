@@ -0,0 +1,410 @@
+package space.maatini.eventsourcing.service;
+
+import space.maatini.eventsourcing.entity.CloudEvent;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.time.OffsetDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.function.Predicate;
+import java.util.zip.DataFormatException;
+import java.util.zip.Deflater;
+import java.util.zip.Inflater;
+
+/**
+ * Immutable archive file holding a contiguous range of the event log.
+ * <p>
+ * Layout: deflate-compressed blocks of events in position order, followed by a
+ * block index (first position, offset and length per block), a subject index
+ * (64-bit subject hash and block number, sorted) and a fixed-size trailer. The
+ * file is memory-mapped for reading; a lookup decompresses only the blocks it
+ * needs.
+ */
+final class EventSegment {
+
+    static final String SUFFIX = ".seg";
+
+    private static final int MAGIC = 0x45534547; // "ESEG"
+    private static final int VERSION = 1;
+    private static final int TRAILER_SIZE = 52;
+    private static final int BLOCK_ENTRY_SIZE = 28;
+    private static final int SUBJECT_ENTRY_SIZE = 12;
+
+    private final Path file;
+    private final MappedByteBuffer buffer;
+    private final long firstPosition;
+    private final long lastPosition;
+    private final int eventCount;
+    private final int blockCount;
+    private final long blockIndexOffset;
+    private final int subjectEntries;
+    private final long subjectIndexOffset;
+
+    private EventSegment(Path file, MappedByteBuffer buffer) {
+        this.file = file;
+        this.buffer = buffer;
+        int trailer = buffer.capacity() - TRAILER_SIZE;
+        if (trailer < 0 || buffer.getInt(trailer + 48) != MAGIC || buffer.getInt(trailer + 44) != VERSION) {
+            throw new IllegalStateException("Not an event segment: " + file);
+        }
+        this.blockIndexOffset = buffer.getLong(trailer);
+        this.blockCount = buffer.getInt(trailer + 8);
+        this.subjectIndexOffset = buffer.getLong(trailer + 12);
+        this.subjectEntries = buffer.getInt(trailer + 20);
+        this.firstPosition = buffer.getLong(trailer + 24);
+        this.lastPosition = buffer.getLong(trailer + 32);
+        this.eventCount = buffer.getInt(trailer + 40);
+    }
+
+    /**
+     * Map an existing segment file.
+     */
+    static EventSegment open(Path file) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            return new EventSegment(file, channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size()));
+        }
+    }
+
+    /**
+     * Write events (in position order) as a new segment in {@code dir}. The file
+     * is written under a temporary name, forced to disk and then renamed, so a
+     * segment is either complete or absent.
+     */
+    static EventSegment write(Path dir, List<CloudEvent> events, int blockSize) throws IOException {
+        if (events.isEmpty()) {
+            throw new IllegalArgumentException("A segment needs at least one event");
+        }
+        long first = events.get(0).getPosition();
+        long last = events.get(events.size() - 1).getPosition();
+        Path target = dir.resolve(fileName(first));
+        Path temp = dir.resolve(fileName(first) + ".tmp");
+
+        ByteArrayOutputStream blockIndex = new ByteArrayOutputStream();
+        DataOutputStream blockIndexOut = new DataOutputStream(blockIndex);
+        List<long[]> subjects = new ArrayList<>();
+
+        try (FileChannel channel = FileChannel.open(temp, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.TRUNCATE_EXISTING)) {
+            long offset = 0;
+            Deflater deflater = new Deflater();
+            try {
+                for (int block = 0, start = 0; start < events.size(); block++, start += blockSize) {
+                    List<CloudEvent> slice = events.subList(start, Math.min(start + blockSize, events.size()));
+                    ByteArrayOutputStream raw = new ByteArrayOutputStream();
+                    DataOutputStream out = new DataOutputStream(raw);
+                    for (CloudEvent event : slice) {
+                        writeEvent(out, event);
+                        if (event.getSubject() != null) {
+                            subjects.add(new long[] { hash(event.getSubject()), block });
+                        }
+                    }
+                    byte[] compressed = deflate(deflater, raw.toByteArray());
+                    offset += writeFully(channel, ByteBuffer.wrap(compressed));
+
+                    blockIndexOut.writeLong(slice.get(0).getPosition());
+                    blockIndexOut.writeLong(offset - compressed.length);
+                    blockIndexOut.writeInt(compressed.length);
+                    blockIndexOut.writeInt(raw.size());
+                    blockIndexOut.writeInt(slice.size());
+                }
+            } finally {
+                deflater.end();
+            }
+
+            long blockIndexOffset = offset;
+            offset += writeFully(channel, ByteBuffer.wrap(blockIndex.toByteArray()));
+
+            subjects.sort((a, b) -> a[0] != b[0] ? Long.compare(a[0], b[0]) : Long.compare(a[1], b[1]));
+            ByteBuffer subjectIndex = ByteBuffer.allocate(subjects.size() * SUBJECT_ENTRY_SIZE);
+            int subjectCount = 0;
+            long[] previous = null;
+            for (long[] entry : subjects) {
+                if (previous == null || previous[0] != entry[0] || previous[1] != entry[1]) {
+                    subjectIndex.putLong(entry[0]).putInt((int) entry[1]);
+                    subjectCount++;
+                }
+                previous = entry;
+            }
+            long subjectIndexOffset = offset;
+            offset += writeFully(channel, subjectIndex.flip());
+
+            ByteBuffer trailer = ByteBuffer.allocate(TRAILER_SIZE)
+                    .putLong(blockIndexOffset)
+                    .putInt((events.size() + blockSize - 1) / blockSize)
+                    .putLong(subjectIndexOffset)
+                    .putInt(subjectCount)
+                    .putLong(first)
+                    .putLong(last)
+                    .putInt(events.size())
+                    .putInt(VERSION)
+                    .putInt(MAGIC);
+            writeFully(channel, trailer.flip());
+            channel.force(true);
+        }
+        Files.move(temp, target, StandardCopyOption.ATOMIC_MOVE);
+        return open(target);
+    }
+
+    static String fileName(long firstPosition) {
+        return String.format("%020d", firstPosition) + SUFFIX;
+    }
+
+    Path file() {
+        return file;
+    }
+
+    long firstPosition() {
+        return firstPosition;
+    }
+
+    long lastPosition() {
+        return lastPosition;
+    }
+
+    int eventCount() {
+        return eventCount;
+    }
+
+    int blockCount() {
+        return blockCount;
+    }
+
+    /**
+     * Events of a subject after a position, in position order.
+     */
+    List<CloudEvent> readBySubject(String subject, long afterPosition) {
+        return readBySubject(subject, afterPosition, event -> true, Integer.MAX_VALUE);
+    }
+
+    /**
+     * The first {@code limit} events of a subject after a position that match
+     * a filter, in position order. No further blocks are decompressed once the
+     * limit is reached.
+     */
+    List<CloudEvent> readBySubject(String subject, long afterPosition, Predicate<CloudEvent> filter, int limit) {
+        List<CloudEvent> result = new ArrayList<>();
+        for (int block : subjectBlocks(subject, afterPosition)) {
+            for (CloudEvent event : readBlock(block)) {
+                // The hash may collide, the subject comparison may not
+                if (event.getPosition() > afterPosition && subject.equals(event.getSubject()) && filter.test(event)) {
+                    result.add(event);
+                    if (result.size() == limit) {
+                        return result;
+                    }
+                }
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Blocks that may hold events of a subject after a position, in block
+     * order. Only reads the subject index; the blocks may also hold other
+     * subjects with the same hash.
+     */
+    List<Integer> subjectBlocks(String subject, long afterPosition) {
+        List<Integer> blocks = new ArrayList<>();
+        if (afterPosition >= lastPosition) {
+            return blocks;
+        }
+        long hash = hash(subject);
+        int lastBlock = -1;
+        for (int i = firstSubjectEntry(hash); i < subjectEntries; i++) {
+            int entry = (int) subjectIndexOffset + i * SUBJECT_ENTRY_SIZE;
+            if (buffer.getLong(entry) != hash) {
+                break;
+            }
+            int block = buffer.getInt(entry + 8);
+            if (block == lastBlock || (block + 1 < blockCount && blockFirstPosition(block + 1) <= afterPosition)) {
+                continue;
+            }
+            lastBlock = block;
+            blocks.add(block);
+        }
+        return blocks;
+    }
+
+    /**
+     * Index of the first block that may contain events after the position.
+     */
+    int firstBlockAfter(long afterPosition) {
+        int low = 0;
+        int high = blockCount - 1;
+        while (low < high) {
+            int mid = (low + high + 1) >>> 1;
+            if (blockFirstPosition(mid) <= afterPosition + 1) {
+                low = mid;
+            } else {
+                high = mid - 1;
+            }
+        }
+        return low;
+    }
+
+    /**
+     * Decompress and decode one block.
+     */
+    List<CloudEvent> readBlock(int block) {
+        int entry = (int) blockIndexOffset + block * BLOCK_ENTRY_SIZE;
+        long offset = buffer.getLong(entry + 8);
+        int compressedLength = buffer.getInt(entry + 16);
+        int rawLength = buffer.getInt(entry + 20);
+        int count = buffer.getInt(entry + 24);
+
+        byte[] raw = new byte[rawLength];
+        Inflater inflater = new Inflater();
+        try {
+            inflater.setInput(buffer.slice((int) offset, compressedLength));
+            int read = 0;
+            while (read < rawLength && !inflater.finished()) {
+                read += inflater.inflate(raw, read, rawLength - read);
+            }
+        } catch (DataFormatException e) {
+            throw new IllegalStateException("Corrupt block " + block + " in " + file, e);
+        } finally {
+            inflater.end();
+        }
+
+        List<CloudEvent> events = new ArrayList<>(count);
+        try (DataInputStream in = new DataInputStream(new ByteArrayInputStream(raw))) {
+            for (int i = 0; i < count; i++) {
+                events.add(readEvent(in));
+            }
+        } catch (IOException e) {
+            throw new IllegalStateException("Corrupt block " + block + " in " + file, e);
+        }
+        return events;
+    }
+
+    private long blockFirstPosition(int block) {
+        return buffer.getLong((int) blockIndexOffset + block * BLOCK_ENTRY_SIZE);
+    }
+
+    private int firstSubjectEntry(long hash) {
+        int low = 0;
+        int high = subjectEntries;
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (buffer.getLong((int) subjectIndexOffset + mid * SUBJECT_ENTRY_SIZE) < hash) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        return low;
+    }
+
+    /**
+     * 64-bit FNV-1a over the UTF-8 bytes of the subject.
+     */
+    static long hash(String subject) {
+        long hash = 0xcbf29ce484222325L;
+        for (byte b : subject.getBytes(StandardCharsets.UTF_8)) {
+            hash ^= b & 0xff;
+            hash *= 0x100000001b3L;
+        }
+        return hash;
+    }
+
+    private static byte[] deflate(Deflater deflater, byte[] raw) {
+        deflater.reset();
+        deflater.setInput(raw);
+        deflater.finish();
+        ByteArrayOutputStream out = new ByteArrayOutputStream(Math.max(64, raw.length / 4));
+        byte[] chunk = new byte[8192];
+        while (!deflater.finished()) {
+            out.write(chunk, 0, deflater.deflate(chunk));
+        }
+        return out.toByteArray();
+    }
+
+    private static int writeFully(FileChannel channel, ByteBuffer data) throws IOException {
+        int length = data.remaining();
+        while (data.hasRemaining()) {
+            channel.write(data);
+        }
+        return length;
+    }
+
+    private static void writeEvent(DataOutputStream out, CloudEvent event) throws IOException {
+        out.writeLong(event.getPosition());
+        out.writeLong(event.getStreamVersion() != null ? event.getStreamVersion() : -1);
+        out.writeLong(event.getId().getMostSignificantBits());
+        out.writeLong(event.getId().getLeastSignificantBits());
+        writeString(out, event.getSource());
+        writeString(out, event.getSpecversion());
+        writeString(out, event.getType());
+        writeString(out, event.getSubject());
+        writeTimestamp(out, event.getTime());
+        writeString(out, event.getDatacontenttype());
+        writeString(out, event.getDataschema());
+        writeString(out, event.getRawData());
+        writeTimestamp(out, event.getCreatedAt());
+        writeTimestamp(out, event.getProcessedAt());
+        writeTimestamp(out, event.getFailedAt());
+        out.writeInt(event.getRetryCount() != null ? event.getRetryCount() : 0);
+        writeString(out, event.getErrorMessage());
+    }
+
+    private static CloudEvent readEvent(DataInputStream in) throws IOException {
+        CloudEvent event = new CloudEvent();
+        event.setPosition(in.readLong());
+        long streamVersion = in.readLong();
+        event.setStreamVersion(streamVersion >= 0 ? streamVersion : null);
+        event.setId(new UUID(in.readLong(), in.readLong()));
+        event.setSource(readString(in));
+        event.setSpecversion(readString(in));
+        event.setType(readString(in));
+        event.setSubject(readString(in));
+        event.setTime(readTimestamp(in));
+        event.setDatacontenttype(readString(in));
+        event.setDataschema(readString(in));
+        event.setRawData(readString(in));
+        event.setCreatedAt(readTimestamp(in));
+        event.setProcessedAt(readTimestamp(in));
+        event.setFailedAt(readTimestamp(in));
+        event.setRetryCount(in.readInt());
+        event.setErrorMessage(readString(in));
+        return event;
+    }
+
+    private static void writeString(DataOutputStream out, String value) throws IOException {
+        if (value == null) {
+            out.writeInt(-1);
+            return;
+        }
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        out.writeInt(bytes.length);
+        out.write(bytes);
+    }
+
+    private static String readString(DataInputStream in) throws IOException {
+        int length = in.readInt();
+        if (length < 0) {
+            return null;
+        }
+        return new String(in.readNBytes(length), StandardCharsets.UTF_8);
+    }
+
+    private static void writeTimestamp(DataOutputStream out, OffsetDateTime value) throws IOException {
+        writeString(out, value != null ? value.toString() : null);
+    }
+
+    private static OffsetDateTime readTimestamp(DataInputStream in) throws IOException {
+        String value = readString(in);
+        return value != null ? OffsetDateTime.parse(value) : null;
+    }
+}
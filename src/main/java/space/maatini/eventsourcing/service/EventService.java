@@ -1,13 +1,22 @@
 package space.maatini.eventsourcing.service;
 
+import java.time.OffsetDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
 import java.util.UUID;
 
+import space.maatini.eventsourcing.dto.BinaryCloudEventDTO;
 import space.maatini.eventsourcing.dto.CloudEventDTO;
+import space.maatini.eventsourcing.dto.EventCursor;
 import space.maatini.eventsourcing.entity.CloudEvent;
 import io.quarkus.hibernate.reactive.panache.common.WithTransaction;
+import io.smallrye.mutiny.Multi;
 import io.smallrye.mutiny.Uni;
-import io.vertx.core.json.JsonObject;
+import io.vertx.core.json.Json;
 import jakarta.enterprise.context.ApplicationScoped;
 
 import org.jboss.logging.Logger;
@@ -15,19 +24,35 @@ import org.jboss.logging.Logger;
 /**
  * Service for storing and retrieving CloudEvents.
  * The aggregation is handled by the ProjectionService, not this
- * service.
+ * service, except for handlers that run {@link HandlesEvents#inline() inline}.
  */
 @ApplicationScoped
 public class EventService {
 
+    /**
+     * Rows per multi-row INSERT. Keeps every statement well below the
+     * PostgreSQL limit of 65535 bind parameters.
+     */
+    static final int INSERT_CHUNK_SIZE = 500;
+
     private final Logger log;
+    private final EventArchive archive;
+    private final InlineProjector inlineProjector;
+    private final EventLogHead logHead;
 
-    public EventService(Logger log) {
+    public EventService(Logger log, EventArchive archive, InlineProjector inlineProjector, EventLogHead logHead) {
         this.log = log;
+        this.archive = archive;
+        this.inlineProjector = inlineProjector;
+        this.logHead = logHead;
     }
 
     /**
      * Store a new event. Idempotent - returns existing event if already stored.
+     * <p>
+     * The event is written with a single INSERT ... ON CONFLICT DO NOTHING, so two
+     * concurrent requests with the same ID cannot both pass an existence check;
+     * the loser simply finds the row and reports it as already existing.
      * 
      * @param dto The CloudEvent DTO to store
      * @return The stored or existing event
@@ -39,35 +64,101 @@ public class EventService {
 
         log.debugf("Storing event: id=%s, type=%s, subject=%s", event.id(), event.type(), event.subject());
 
-        // Check for idempotency - if event already exists, return it
-        return CloudEvent.<CloudEvent>findById(event.id())
-                .flatMap(existing -> {
-                    if (existing != null) {
-                        log.infof("Event %s already exists, returning existing (idempotent)", event.id());
-                        return Uni.createFrom().item(new EventResult(existing, true));
+        // Persist - the projector service will handle aggregation
+        return store(toEntity(event));
+    }
+
+    /**
+     * Store an event received in binary content mode. The payload is written as
+     * sent, without being decoded. Idempotent like {@link #storeEvent(CloudEventDTO)}.
+     *
+     * @param dto The event attributes and raw JSON payload
+     * @return The stored or existing event
+     */
+    @WithTransaction
+    public Uni<EventResult> storeBinaryEvent(BinaryCloudEventDTO dto) {
+        BinaryCloudEventDTO event = dto.withDefaults();
+
+        log.debugf("Storing binary event: id=%s, type=%s, subject=%s", event.id(), event.type(), event.subject());
+
+        CloudEvent entity = new CloudEvent();
+        entity.setId(event.id());
+        entity.setSource(event.source());
+        entity.setSpecversion(event.specversion());
+        entity.setType(event.type());
+        entity.setSubject(event.subject());
+        entity.setTime(event.time());
+        entity.setDatacontenttype(event.datacontenttype());
+        entity.setDataschema(event.dataschema());
+        entity.setRawData(event.data());
+        return store(entity);
+    }
+
+    /**
+     * Store a batch of events. Each chunk of {@link #INSERT_CHUNK_SIZE} events is
+     * written with one multi-row INSERT; existing IDs are skipped instead of
+     * failing the batch.
+     *
+     * @param dtos The CloudEvent DTOs to store, in request order
+     * @return One result per DTO, in the same order
+     */
+    @WithTransaction
+    public Uni<List<BatchItemResult>> storeEvents(List<CloudEventDTO> dtos) {
+        List<CloudEvent> entities = dtos.stream().map(dto -> toEntity(dto.withDefaults())).toList();
+
+        return insertChunked(entities)
+                .call(inserted -> inlineProjector.project(created(entities, inserted)))
+                .map(inserted -> {
+                    boolean[] created = createdFlags(entities, inserted);
+                    List<BatchItemResult> results = new ArrayList<>(entities.size());
+                    for (int i = 0; i < entities.size(); i++) {
+                        results.add(new BatchItemResult(entities.get(i).getId(),
+                                created[i] ? BatchItemStatus.CREATED : BatchItemStatus.DUPLICATE));
                     }
+                    log.infof("Stored batch of %d events (%d new)", entities.size(), inserted.size());
+                    return results;
+                });
+    }
 
-                    // Convert Map to JsonObject for JSONB storage
-                    JsonObject dataJson = new JsonObject(event.data());
-
-                    // Create new event entity
-                    CloudEvent entity = new CloudEvent();
-                    entity.setId(event.id());
-                    entity.setSource(event.source());
-                    entity.setSpecversion(event.specversion());
-                    entity.setType(event.type());
-                    entity.setSubject(event.subject());
-                    entity.setTime(event.time());
-                    entity.setDatacontenttype(event.datacontenttype());
-                    entity.setDataschema(event.dataschema());
-                    entity.setData(dataJson);
-
-                    // Persist - the projector service will handle aggregation
-                    return entity.<CloudEvent>persist()
-                            .map(persisted -> {
-                                log.infof("Event %s stored successfully, type=%s", event.id(), event.type());
-                                return new EventResult(persisted, false);
-                            });
+    /**
+     * Store a group of independent single-event requests in one transaction.
+     * Unlike {@link #storeEvents(List)} the full event is returned for every
+     * request, so each caller gets the same answer as from
+     * {@link #storeEvent(CloudEventDTO)}.
+     *
+     * @param dtos The CloudEvent DTOs to store, one per caller
+     * @return One result per DTO, in the same order
+     */
+    @WithTransaction
+    public Uni<List<EventResult>> storeEventGroup(List<CloudEventDTO> dtos) {
+        List<CloudEvent> entities = dtos.stream().map(dto -> toEntity(dto.withDefaults())).toList();
+
+        return insertChunked(entities)
+                .call(inserted -> inlineProjector.project(created(entities, inserted)))
+                .chain(inserted -> {
+                    boolean[] created = createdFlags(entities, inserted);
+                    List<UUID> existingIds = new ArrayList<>();
+                    for (int i = 0; i < entities.size(); i++) {
+                        if (!created[i]) {
+                            existingIds.add(entities.get(i).getId());
+                        }
+                    }
+                    Uni<List<CloudEvent>> existing = existingIds.isEmpty()
+                            ? Uni.createFrom().item(List.of())
+                            : CloudEvent.list("id in ?1", existingIds);
+                    return existing.map(rows -> {
+                        Map<UUID, CloudEvent> byId = new HashMap<>();
+                        rows.forEach(row -> byId.put(row.getId(), row));
+                        List<EventResult> results = new ArrayList<>(entities.size());
+                        for (int i = 0; i < entities.size(); i++) {
+                            CloudEvent entity = entities.get(i);
+                            results.add(created[i]
+                                    ? new EventResult(entity, false)
+                                    : new EventResult(byId.get(entity.getId()), true));
+                        }
+                        log.debugf("Stored group of %d events (%d new)", entities.size(), inserted.size());
+                        return results;
+                    });
                 });
     }
 
@@ -79,17 +170,130 @@ public class EventService {
     }
 
     /**
-     * Find all events for a given subject (aggregate ID).
+     * Find one page of events for a given subject (aggregate ID), in log order.
+     * Archived events (see {@link EventArchive}) come first, then the events
+     * still in the database.
+     *
+     * @param from  inclusive lower bound on createdAt, or null
+     * @param to    exclusive upper bound on createdAt, or null
+     * @param after cursor returned with the previous page, or null for the first page
+     */
+    public Uni<EventPage> findBySubject(String subject, OffsetDateTime from, OffsetDateTime to, EventCursor after,
+            int limit) {
+        long archived = archive.archivedPosition();
+        long afterPosition = after != null ? after.position() : 0;
+        // One extra row tells whether another page follows; the database only fills up what the archive lacks
+        return archive.findBySubject(subject, afterPosition, event -> inRange(event, from, to), limit + 1)
+                .chain(archivedEvents -> {
+                    int missing = limit + 1 - archivedEvents.size();
+                    if (missing == 0) {
+                        return Uni.createFrom().item(toPage(archivedEvents, limit));
+                    }
+                    return CloudEvent.findBySubject(subject, from, to, Math.max(afterPosition, archived), missing)
+                            .map(live -> {
+                                List<CloudEvent> page = new ArrayList<>(archivedEvents);
+                                page.addAll(live);
+                                return toPage(page, limit);
+                            });
+                });
+    }
+
+    /**
+     * Find one page of events of a given type, in log order, up to the
+     * {@linkplain EventLogHead safe position}, so a later page never misses an
+     * event that committed late. Parameters as for {@link #findBySubject}.
+     */
+    public Uni<EventPage> findByType(String type, OffsetDateTime from, OffsetDateTime to, EventCursor after,
+            int limit) {
+        return logHead.safePosition()
+                .chain(upTo -> CloudEvent.findByType(type, from, to, afterPosition(after), upTo, limit + 1))
+                .map(events -> toPage(events, limit));
+    }
+
+    private static Long afterPosition(EventCursor after) {
+        return after != null ? after.position() : null;
+    }
+
+    private static boolean inRange(CloudEvent event, OffsetDateTime from, OffsetDateTime to) {
+        return (from == null || !event.getCreatedAt().isBefore(from))
+                && (to == null || event.getCreatedAt().isBefore(to));
+    }
+
+    private static EventPage toPage(List<CloudEvent> events, int limit) {
+        if (events.size() <= limit) {
+            return new EventPage(events, null);
+        }
+        List<CloudEvent> page = events.subList(0, limit);
+        CloudEvent last = page.get(limit - 1);
+        return new EventPage(page, new EventCursor(last.getPosition()));
+    }
+
+    private Uni<EventResult> store(CloudEvent entity) {
+        return CloudEvent.insertAll(List.of(entity))
+                .chain(inserted -> {
+                    if (inserted.contains(entity.getId())) {
+                        log.infof("Event %s stored successfully, type=%s", entity.getId(), entity.getType());
+                        return inlineProjector.project(List.of(entity))
+                                .replaceWith(new EventResult(entity, false));
+                    }
+                    // Lost the race (or a retry) - the committed row is visible to the next statement
+                    log.infof("Event %s already exists, returning existing (idempotent)", entity.getId());
+                    return CloudEvent.<CloudEvent>findById(entity.getId())
+                            .map(existing -> new EventResult(existing, true));
+                });
+    }
+
+    private Uni<Set<UUID>> insertChunked(List<CloudEvent> entities) {
+        List<List<CloudEvent>> chunks = new ArrayList<>();
+        for (int i = 0; i < entities.size(); i += INSERT_CHUNK_SIZE) {
+            chunks.add(entities.subList(i, Math.min(i + INSERT_CHUNK_SIZE, entities.size())));
+        }
+        return Multi.createFrom().iterable(chunks)
+                .onItem().transformToUniAndConcatenate(CloudEvent::insertAll)
+                .collect().in(HashSet<UUID>::new, Set::addAll);
+    }
+
+    /**
+     * The entities created by this call, in order.
      */
-    public Uni<List<CloudEvent>> findBySubject(String subject) {
-        return CloudEvent.findBySubject(subject);
+    private static List<CloudEvent> created(List<CloudEvent> entities, Set<UUID> inserted) {
+        boolean[] created = createdFlags(entities, inserted);
+        List<CloudEvent> result = new ArrayList<>();
+        for (int i = 0; i < entities.size(); i++) {
+            if (created[i]) {
+                result.add(entities.get(i));
+            }
+        }
+        return result;
     }
 
     /**
-     * Find all events of a given type.
+     * Marks which entities were created by this call. An ID that appears twice
+     * in the same request is only created once; later occurrences are duplicates.
      */
-    public Uni<List<CloudEvent>> findByType(String type) {
-        return CloudEvent.findByType(type);
+    private static boolean[] createdFlags(List<CloudEvent> entities, Set<UUID> inserted) {
+        Set<UUID> seen = new HashSet<>();
+        boolean[] created = new boolean[entities.size()];
+        for (int i = 0; i < entities.size(); i++) {
+            UUID id = entities.get(i).getId();
+            created[i] = seen.add(id) && inserted.contains(id);
+        }
+        return created;
+    }
+
+    private CloudEvent toEntity(CloudEventDTO event) {
+        CloudEvent entity = new CloudEvent();
+        entity.setId(event.id());
+        entity.setSource(event.source());
+        entity.setSpecversion(event.specversion());
+        entity.setType(event.type());
+        entity.setSubject(event.subject());
+        entity.setTime(event.time());
+        entity.setDatacontenttype(event.datacontenttype());
+        entity.setDataschema(event.dataschema());
+        // Encode the Map straight to JSON text for the jsonb column, no JsonObject wrapper
+        entity.setRawData(Json.encode(event.data()));
+        return entity;
     }
 
     /**
@@ -97,4 +301,20 @@ public class EventService {
      */
     public record EventResult(CloudEvent event, boolean alreadyExisted) {
     }
+
+    /**
+     * One page of a query result. {@code next} is null on the last page.
+     */
+    public record EventPage(List<CloudEvent> events, EventCursor next) {
+    }
+
+    /**
+     * Per-event result of a batch store.
+     */
+    public record BatchItemResult(UUID id, BatchItemStatus status) {
+    }
+
+    public enum BatchItemStatus {
+        CREATED, DUPLICATE
+    }
 }
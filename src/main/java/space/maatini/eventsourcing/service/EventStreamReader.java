@@ -0,0 +1,255 @@
+package space.maatini.eventsourcing.service;
+
+import io.quarkus.logging.Log;
+import io.smallrye.mutiny.Multi;
+import io.smallrye.mutiny.Uni;
+import io.vertx.mutiny.pgclient.PgPool;
+import io.vertx.mutiny.sqlclient.Row;
+import io.vertx.mutiny.sqlclient.SqlConnection;
+import io.vertx.mutiny.sqlclient.Transaction;
+import io.vertx.mutiny.sqlclient.Tuple;
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.inject.Inject;
+import org.eclipse.microprofile.config.inject.ConfigProperty;
+import space.maatini.eventsourcing.dto.EventCursor;
+import space.maatini.eventsourcing.entity.CloudEvent;
+import space.maatini.eventsourcing.exception.TooManyStreamsException;
+
+import java.time.OffsetDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.Semaphore;
+
+/**
+ * Streams complete event query results from a server-side cursor.
+ * <p>
+ * Rows are fetched {@code fetch-size} at a time and only as fast as the client
+ * consumes them, so memory use does not depend on the result size. The payload
+ * is read as text and passed through without being decoded.
+ * <p>
+ * Uses the reactive pool directly instead of Hibernate: the returned events are
+ * detached, read-only snapshots.
+ * <p>
+ * Each open stream holds a pool connection and a read transaction until it
+ * ends. At most {@code max-cursors} streams, and never more than half the
+ * reactive pool, are open at a time; further ones fail with
+ * {@link TooManyStreamsException}. A cursor transaction is ended by the server
+ * when a fetch runs longer than {@code statement-timeout-ms} or the client
+ * stops reading for {@code idle-timeout-ms}.
+ */
+@ApplicationScoped
+public class EventStreamReader {
+
+    private static final String COLUMNS = "id, source, specversion, type, subject, time, datacontenttype, dataschema, "
+            + "data::text AS data, position, stream_version, created_at, processed_at, failed_at, retry_count, error_message";
+
+    /**
+     * Timeouts of the cursor transaction, reset when it ends.
+     */
+    private static final String TIMEOUTS = "SELECT set_config('statement_timeout', $1, true), "
+            + "set_config('idle_in_transaction_session_timeout', $2, true)";
+
+    private final PgPool pgPool;
+    private final EventArchive archive;
+    private final EventLogHead logHead;
+    private final int fetchSize;
+    private final int maxCursors;
+    private final Semaphore cursors;
+    private final String statementTimeout;
+    private final String idleTimeout;
+
+    @Inject
+    public EventStreamReader(PgPool pgPool, EventArchive archive, EventLogHead logHead,
+            @ConfigProperty(name = "eventsourcing.query.stream.fetch-size", defaultValue = "500") int fetchSize,
+            @ConfigProperty(name = "eventsourcing.query.stream.max-cursors", defaultValue = "10") int maxCursors,
+            @ConfigProperty(name = "quarkus.datasource.reactive.max-size", defaultValue = "20") int poolSize,
+            @ConfigProperty(name = "eventsourcing.query.stream.statement-timeout-ms", defaultValue = "30000") long statementTimeoutMs,
+            @ConfigProperty(name = "eventsourcing.query.stream.idle-timeout-ms", defaultValue = "60000") long idleTimeoutMs) {
+        this.pgPool = pgPool;
+        this.archive = archive;
+        this.logHead = logHead;
+        this.fetchSize = Math.max(1, fetchSize);
+        // The other half of the pool stays free for writes and short queries
+        this.maxCursors = Math.max(1, Math.min(maxCursors, poolSize / 2));
+        this.cursors = new Semaphore(this.maxCursors);
+        this.statementTimeout = Long.toString(Math.max(0, statementTimeoutMs));
+        this.idleTimeout = Long.toString(Math.max(0, idleTimeoutMs));
+    }
+
+    /**
+     * Stream all events for a subject in {@code position} order, archived
+     * events first.
+     *
+     * @param from  inclusive lower bound on createdAt, or null
+     * @param to    exclusive upper bound on createdAt, or null
+     * @param after resume after this position, or null to start at the beginning
+     */
+    public Multi<CloudEvent> streamBySubject(String subject, OffsetDateTime from, OffsetDateTime to, EventCursor after) {
+        long archived = archive.archivedPosition();
+        long afterPosition = after != null ? after.position() : 0;
+        Multi<CloudEvent> archivedEvents = archive.streamBySubject(subject, afterPosition,
+                e -> (from == null || !e.getCreatedAt().isBefore(from)) && (to == null || e.getCreatedAt().isBefore(to)));
+        Multi<CloudEvent> live = stream("subject", subject, from, to, new EventCursor(Math.max(afterPosition, archived)));
+        return Multi.createBy().concatenating().streams(archivedEvents, live);
+    }
+
+    /**
+     * Stream all events of a type in {@code position} order, up to the
+     * {@linkplain EventLogHead safe position}. Parameters as for
+     * {@link #streamBySubject}.
+     */
+    public Multi<CloudEvent> streamByType(String type, OffsetDateTime from, OffsetDateTime to, EventCursor after) {
+        return logHead.safePosition().onItem()
+                .transformToMulti(upTo -> stream("type", type, from, to, after, upTo));
+    }
+
+    private Multi<CloudEvent> stream(String column, String value, OffsetDateTime from, OffsetDateTime to,
+            EventCursor after) {
+        return stream(column, value, from, to, after, null);
+    }
+
+    /**
+     * @param upTo inclusive upper bound on position, or null
+     */
+    private Multi<CloudEvent> stream(String column, String value, OffsetDateTime from, OffsetDateTime to,
+            EventCursor after, Long upTo) {
+        StringBuilder sql = new StringBuilder("SELECT ").append(COLUMNS)
+                .append(" FROM events WHERE ").append(column).append(" = $1");
+        StringBuilder window = new StringBuilder();
+        Tuple params = Tuple.of(value);
+        if (from != null) {
+            params.addOffsetDateTime(from);
+            window.append(" AND created_at >= $").append(params.size());
+        }
+        if (to != null) {
+            params.addOffsetDateTime(to);
+            window.append(" AND created_at < $").append(params.size());
+        }
+        sql.append(window);
+        if (from != null) {
+            // Start at the first position inside the window instead of walking the earlier events (see V23)
+            sql.append(" AND position >= (SELECT min(position) FROM events WHERE ").append(column).append(" = $1")
+                    .append(window).append(")");
+        }
+        if (after != null) {
+            params.addLong(after.position());
+            sql.append(" AND position > $").append(params.size());
+        }
+        if (upTo != null) {
+            params.addLong(upTo);
+            sql.append(" AND position <= $").append(params.size());
+        }
+        sql.append(" ORDER BY position");
+        return openCursor(sql.toString(), params);
+    }
+
+    /**
+     * Stream all events after a position in {@code position} order, up to the
+     * {@linkplain EventLogHead safe position}, optionally restricted to some
+     * types. Archived events come first.
+     *
+     * @param types event types to include, or empty for all
+     */
+    public Multi<CloudEvent> streamAfter(long afterPosition, Set<String> types) {
+        long archived = archive.archivedPosition();
+        if (afterPosition < archived) {
+            Multi<CloudEvent> archivedEvents = archive.stream(afterPosition)
+                    .filter(e -> types.isEmpty() || types.contains(e.getType()));
+            return Multi.createBy().concatenating().streams(archivedEvents, streamAfter(archived, types));
+        }
+        return logHead.safePosition().onItem().transformToMulti(upTo -> {
+            StringBuilder sql = new StringBuilder("SELECT ").append(COLUMNS)
+                    .append(" FROM events WHERE position > $1 AND position <= $2");
+            Tuple params = Tuple.of(afterPosition, upTo);
+            if (!types.isEmpty()) {
+                params.addArrayOfString(types.toArray(String[]::new));
+                sql.append(" AND type = ANY($3)");
+            }
+            sql.append(" ORDER BY position");
+            return openCursor(sql.toString(), params);
+        });
+    }
+
+    /**
+     * Read up to {@code limit} events of any type after a position, in
+     * {@code position} order, up to the {@linkplain EventLogHead safe position}.
+     */
+    public Uni<List<CloudEvent>> readAfter(long afterPosition, int limit) {
+        return logHead.safePosition()
+                .chain(upTo -> pgPool.preparedQuery("SELECT " + COLUMNS
+                        + " FROM events WHERE position > $1 AND position <= $2 ORDER BY position LIMIT $3")
+                        .execute(Tuple.of(afterPosition, upTo, limit)))
+                .map(rows -> {
+                    List<CloudEvent> events = new ArrayList<>(rows.size());
+                    rows.forEach(row -> events.add(toEvent(row)));
+                    return events;
+                });
+    }
+
+    /**
+     * The {@linkplain EventLogHead safe position}, or 0 for an empty log.
+     */
+    public Uni<Long> headPosition() {
+        return logHead.safePosition();
+    }
+
+    private Multi<CloudEvent> openCursor(String sql, Tuple params) {
+        // Cursors (portals) only live inside a transaction
+        return Multi.createFrom().resourceFromUni(
+                () -> acquireCursor()
+                        .chain(() -> pgPool.getConnection())
+                        .chain(conn -> conn.begin()
+                                .call(() -> conn.preparedQuery(TIMEOUTS).execute(Tuple.of(statementTimeout, idleTimeout)))
+                                .map(tx -> new OpenCursor(conn, tx))
+                                .onFailure().call(conn::close))
+                        .onFailure(failure -> !(failure instanceof TooManyStreamsException))
+                        .invoke(() -> cursors.release()),
+                cursor -> cursor.connection().prepare(sql)
+                        .onItem().transformToMulti(statement -> statement.createStream(fetchSize, params).toMulti()))
+                .withFinalizer(this::close)
+                .map(EventStreamReader::toEvent);
+    }
+
+    private Uni<Void> acquireCursor() {
+        return Uni.createFrom().item(cursors::tryAcquire)
+                .invoke(acquired -> {
+                    if (!acquired) {
+                        throw new TooManyStreamsException(maxCursors);
+                    }
+                })
+                .replaceWithVoid();
+    }
+
+    private Uni<Void> close(OpenCursor cursor) {
+        return cursor.transaction().rollback()
+                .onFailure().invoke(failure -> Log.debug("Failed to end read transaction", failure))
+                .onFailure().recoverWithNull()
+                .chain(() -> cursor.connection().close())
+                .eventually(() -> cursors.release());
+    }
+
+    private static CloudEvent toEvent(Row row) {
+        CloudEvent event = new CloudEvent();
+        event.setId(row.getUUID("id"));
+        event.setSource(row.getString("source"));
+        event.setSpecversion(row.getString("specversion"));
+        event.setType(row.getString("type"));
+        event.setSubject(row.getString("subject"));
+        event.setTime(row.getOffsetDateTime("time"));
+        event.setDatacontenttype(row.getString("datacontenttype"));
+        event.setDataschema(row.getString("dataschema"));
+        event.setRawData(row.getString("data"));
+        event.setPosition(row.getLong("position"));
+        event.setStreamVersion(row.getLong("stream_version"));
+        event.setCreatedAt(row.getOffsetDateTime("created_at"));
+        event.setProcessedAt(row.getOffsetDateTime("processed_at"));
+        event.setFailedAt(row.getOffsetDateTime("failed_at"));
+        event.setRetryCount(row.getInteger("retry_count"));
+        event.setErrorMessage(row.getString("error_message"));
+        return event;
+    }
+
+    private record OpenCursor(SqlConnection connection, Transaction transaction) {
+    }
+}
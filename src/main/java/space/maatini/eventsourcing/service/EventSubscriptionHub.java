@@ -0,0 +1,265 @@
+package space.maatini.eventsourcing.service;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.quarkus.logging.Log;
+import io.quarkus.runtime.ShutdownEvent;
+import io.quarkus.runtime.StartupEvent;
+import io.smallrye.mutiny.Multi;
+import io.smallrye.mutiny.Uni;
+import io.smallrye.mutiny.operators.multi.processors.UnicastProcessor;
+import io.smallrye.mutiny.subscription.BackPressureFailure;
+import io.vertx.mutiny.core.Vertx;
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.enterprise.event.Observes;
+import jakarta.inject.Inject;
+import org.eclipse.microprofile.config.inject.ConfigProperty;
+import space.maatini.eventsourcing.entity.CloudEvent;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Live event subscriptions: catch-up from the log, then tailing.
+ * <p>
+ * A subscription first streams the backlog from a server-side cursor. It then
+ * registers for live delivery and reads the events committed in the meantime
+ * once more; events already delivered are skipped by position, so the switch
+ * neither loses nor repeats events.
+ * <p>
+ * Live events are fetched once per wake-up for all subscribers of this
+ * instance, starting after the last fetched position, and fanned out in
+ * memory. Wake-ups come from {@link EventNotificationListener} and from a poll
+ * every {@code poll-interval-ms}. Each subscriber has a queue of
+ * {@code buffer-size} events; a subscriber that falls that far behind is
+ * disconnected and has to resume from its last position.
+ */
+@ApplicationScoped
+public class EventSubscriptionHub {
+
+    private static final long UNKNOWN = -1;
+
+    private final EventStreamReader reader;
+    private final Vertx vertx;
+    private final int bufferSize;
+    private final int fetchSize;
+    private final long pollIntervalMs;
+    private final Counter overflows;
+    private final List<Subscriber> subscribers = new ArrayList<>();
+    private final AtomicBoolean fetching = new AtomicBoolean(false);
+    private final AtomicBoolean fetchAgain = new AtomicBoolean(false);
+
+    /**
+     * Last position fanned out to subscribers; {@link #UNKNOWN} while nobody is
+     * subscribed. Guarded by {@code this}.
+     */
+    private long head = UNKNOWN;
+    private long pollTimerId = -1;
+
+    @Inject
+    public EventSubscriptionHub(EventStreamReader reader, Vertx vertx, MeterRegistry meterRegistry,
+            @ConfigProperty(name = "eventsourcing.subscribe.buffer-size", defaultValue = "1000") int bufferSize,
+            @ConfigProperty(name = "eventsourcing.subscribe.fetch-size", defaultValue = "500") int fetchSize,
+            @ConfigProperty(name = "eventsourcing.subscribe.poll-interval-ms", defaultValue = "1000") long pollIntervalMs) {
+        this.reader = reader;
+        this.vertx = vertx;
+        this.bufferSize = Math.max(1, bufferSize);
+        this.fetchSize = Math.max(1, fetchSize);
+        this.pollIntervalMs = Math.max(1, pollIntervalMs);
+        this.overflows = Counter.builder("events.subscriptions.overflows")
+                .description("Subscribers disconnected because their buffer was full")
+                .register(meterRegistry);
+        Gauge.builder("events.subscriptions.active", this, EventSubscriptionHub::activeSubscriptions)
+                .description("Live event subscriptions on this instance")
+                .register(meterRegistry);
+    }
+
+    void onStart(@Observes StartupEvent ev) {
+        pollTimerId = vertx.setPeriodic(pollIntervalMs, id -> onEventsAppended());
+    }
+
+    void onStop(@Observes ShutdownEvent ev) {
+        vertx.cancelTimer(pollTimerId);
+        List<Subscriber> open;
+        synchronized (this) {
+            open = List.copyOf(subscribers);
+        }
+        open.forEach(subscriber -> subscriber.processor.onComplete());
+    }
+
+    /**
+     * Subscribe to events in log order.
+     *
+     * @param fromPosition first position to deliver, or null to deliver only events appended from now on
+     * @param types        event types to deliver, or empty for all
+     */
+    public Multi<CloudEvent> subscribe(Long fromPosition, Set<String> types) {
+        AtomicLong last = new AtomicLong(fromPosition != null ? fromPosition - 1 : UNKNOWN);
+        Multi<CloudEvent> backlog = fromPosition != null
+                ? reader.streamAfter(fromPosition - 1, types)
+                : Multi.createFrom().empty();
+
+        Multi<CloudEvent> live = Multi.createFrom().resourceFromUni(
+                () -> register(types),
+                subscriber -> {
+                    if (last.get() == UNKNOWN) {
+                        last.set(subscriber.startPosition);
+                        return subscriber.processor;
+                    }
+                    // Events committed while the backlog was streamed
+                    Multi<CloudEvent> gap = Multi.createFrom().deferred(() -> reader.streamAfter(last.get(), types));
+                    return Multi.createBy().concatenating().streams(gap, subscriber.processor);
+                })
+                .withFinalizer(this::unregister);
+
+        return Multi.createBy().concatenating().streams(backlog, live)
+                .filter(event -> event.getPosition() > last.get())
+                .invoke(event -> last.set(event.getPosition()));
+    }
+
+    /**
+     * Fetch and fan out new events. Called on every wake-up; while a fetch is
+     * running, further calls are folded into one more fetch after it.
+     */
+    public void onEventsAppended() {
+        if (activeSubscriptions() == 0) {
+            return;
+        }
+        fetchAgain.set(true);
+        if (fetching.compareAndSet(false, true)) {
+            fetchNext();
+        }
+    }
+
+    private void fetchNext() {
+        fetchAgain.set(false);
+        long from;
+        synchronized (this) {
+            from = head;
+        }
+        if (from == UNKNOWN) {
+            fetching.set(false);
+            return;
+        }
+        reader.readAfter(from, fetchSize).subscribe().with(
+                events -> {
+                    publish(events);
+                    if (events.size() == fetchSize || fetchAgain.get()) {
+                        fetchNext();
+                        return;
+                    }
+                    fetching.set(false);
+                    // A wake-up may have arrived between the check above and releasing the flag
+                    if (fetchAgain.get() && fetching.compareAndSet(false, true)) {
+                        fetchNext();
+                    }
+                },
+                failure -> {
+                    Log.warn("Failed to fetch events for live subscriptions", failure);
+                    fetching.set(false);
+                });
+    }
+
+    private void publish(List<CloudEvent> events) {
+        List<Subscriber> overflowed = new ArrayList<>();
+        synchronized (this) {
+            if (head == UNKNOWN) {
+                return;
+            }
+            for (CloudEvent event : events) {
+                if (event.getPosition() <= head) {
+                    continue;
+                }
+                for (Subscriber subscriber : subscribers) {
+                    if (subscriber.accepts(event) && !subscriber.offer(event)) {
+                        overflowed.add(subscriber);
+                    }
+                }
+                head = event.getPosition();
+            }
+        }
+        for (Subscriber subscriber : overflowed) {
+            overflows.increment();
+            Log.warnf("Disconnecting slow subscriber after %d buffered events", bufferSize);
+            subscriber.processor.onError(new BackPressureFailure(
+                    "Subscriber fell more than " + bufferSize + " events behind"));
+        }
+    }
+
+    private Uni<Subscriber> register(Set<String> types) {
+        synchronized (this) {
+            if (head != UNKNOWN) {
+                return Uni.createFrom().item(add(types));
+            }
+        }
+        return reader.headPosition().map(position -> {
+            synchronized (this) {
+                if (head == UNKNOWN) {
+                    head = position;
+                }
+                return add(types);
+            }
+        });
+    }
+
+    private Subscriber add(Set<String> types) {
+        Subscriber subscriber = new Subscriber(types, head, bufferSize);
+        subscribers.add(subscriber);
+        return subscriber;
+    }
+
+    private Uni<Void> unregister(Subscriber subscriber) {
+        synchronized (this) {
+            subscribers.remove(subscriber);
+            if (subscribers.isEmpty()) {
+                head = UNKNOWN;
+            }
+        }
+        return Uni.createFrom().voidItem();
+    }
+
+    private synchronized int activeSubscriptions() {
+        return subscribers.size();
+    }
+
+    private static final class Subscriber {
+        private final Set<String> types;
+        private final long startPosition;
+        private final ArrayBlockingQueue<CloudEvent> queue;
+        private final UnicastProcessor<CloudEvent> processor;
+        private boolean overflowed;
+
+        Subscriber(Set<String> types, long startPosition, int bufferSize) {
+            this.types = types;
+            this.startPosition = startPosition;
+            this.queue = new ArrayBlockingQueue<>(bufferSize);
+            this.processor = UnicastProcessor.create(queue, () -> {
+            });
+        }
+
+        boolean accepts(CloudEvent event) {
+            return types.isEmpty() || types.contains(event.getType());
+        }
+
+        /**
+         * @return false if the buffer just ran full; later events are dropped until the
+         *         subscriber is unregistered
+         */
+        boolean offer(CloudEvent event) {
+            if (overflowed) {
+                return true;
+            }
+            if (queue.remainingCapacity() == 0) {
+                overflowed = true;
+                return false;
+            }
+            processor.onNext(event);
+            return true;
+        }
+    }
+}
@@ -0,0 +1,149 @@
+package space.maatini.eventsourcing.service;
+
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.quarkus.logging.Log;
+import io.quarkus.vertx.core.runtime.context.VertxContextSafetyToggle;
+import io.smallrye.mutiny.Multi;
+import io.smallrye.mutiny.Uni;
+import io.smallrye.mutiny.subscription.UniEmitter;
+import io.vertx.mutiny.core.Vertx;
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.inject.Inject;
+import org.eclipse.microprofile.config.inject.ConfigProperty;
+import space.maatini.eventsourcing.dto.CloudEventDTO;
+import space.maatini.eventsourcing.service.EventService.EventResult;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Optional group-commit front end for single-event ingestion.
+ * <p>
+ * Concurrent {@code POST /events} requests are collected until {@code max-size}
+ * events are pending or {@code max-wait-micros} have passed, then written in one
+ * transaction. Every caller's Uni completes after that shared commit, so the
+ * commit cost is paid once per group instead of once per event.
+ */
+@ApplicationScoped
+public class GroupCommitBuffer {
+
+    private final Vertx vertx;
+    private final EventService eventService;
+    private final boolean enabled;
+    private final int maxSize;
+    private final long maxWaitMicros;
+    private final DistributionSummary groupSize;
+    private final Timer addedWait;
+
+    private final Object lock = new Object();
+    private List<Pending> pending = new ArrayList<>();
+    private boolean timerScheduled;
+
+    @Inject
+    public GroupCommitBuffer(Vertx vertx, EventService eventService, MeterRegistry meterRegistry,
+            @ConfigProperty(name = "eventsourcing.ingest.group-commit.enabled", defaultValue = "false") boolean enabled,
+            @ConfigProperty(name = "eventsourcing.ingest.group-commit.max-size", defaultValue = "64") int maxSize,
+            @ConfigProperty(name = "eventsourcing.ingest.group-commit.max-wait-micros", defaultValue = "500") long maxWaitMicros) {
+        this.vertx = vertx;
+        this.eventService = eventService;
+        this.enabled = enabled;
+        this.maxSize = Math.max(1, maxSize);
+        this.maxWaitMicros = Math.max(1, maxWaitMicros);
+
+        groupSize = DistributionSummary.builder("ingest.group.size")
+                .description("Number of events written per group commit")
+                .register(meterRegistry);
+        addedWait = Timer.builder("ingest.group.wait")
+                .description("Time an event waited in the group-commit buffer before its group was flushed")
+                .register(meterRegistry);
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * Queue an event for the next group commit.
+     *
+     * @return The stored or existing event, once the group has been committed
+     */
+    public Uni<EventResult> submit(CloudEventDTO dto) {
+        return Uni.createFrom().emitter(emitter -> enqueue(new Pending(dto, emitter, System.nanoTime())));
+    }
+
+    private void enqueue(Pending request) {
+        List<Pending> full = null;
+        boolean startTimer = false;
+        synchronized (lock) {
+            pending.add(request);
+            if (pending.size() >= maxSize) {
+                full = pending;
+                pending = new ArrayList<>();
+            } else if (!timerScheduled) {
+                timerScheduled = true;
+                startTimer = true;
+            }
+        }
+        if (full != null) {
+            flush(full);
+        } else if (startTimer) {
+            vertx.getDelegate().timer(maxWaitMicros, TimeUnit.MICROSECONDS)
+                    .onComplete(ar -> flushOnTimer());
+        }
+    }
+
+    private void flushOnTimer() {
+        List<Pending> group;
+        synchronized (lock) {
+            timerScheduled = false;
+            group = pending;
+            pending = new ArrayList<>();
+        }
+        if (!group.isEmpty()) {
+            flush(group);
+        }
+    }
+
+    private void flush(List<Pending> group) {
+        long now = System.nanoTime();
+        group.forEach(p -> addedWait.record(now - p.enqueuedAt(), TimeUnit.NANOSECONDS));
+        groupSize.record(group.size());
+
+        // Hibernate Reactive needs a duplicated context flagged as safe
+        io.vertx.core.impl.ContextInternal context = ((io.vertx.core.impl.ContextInternal) vertx
+                .getDelegate().getOrCreateContext()).duplicate();
+        VertxContextSafetyToggle.setContextSafe(context, true);
+        context.runOnContext(v -> eventService.storeEventGroup(group.stream().map(Pending::dto).toList())
+                .subscribe().with(
+                        results -> {
+                            for (int i = 0; i < group.size(); i++) {
+                                group.get(i).emitter().complete(results.get(i));
+                            }
+                        },
+                        failure -> {
+                            Log.warnf(failure, "Group commit of %d events failed, storing them one by one", group.size());
+                            storeIndividually(group);
+                        }));
+    }
+
+    /**
+     * Fallback after a failed group: one bad event must not fail its neighbours.
+     * Runs sequentially because all calls share the same context.
+     */
+    private void storeIndividually(List<Pending> group) {
+        Multi.createFrom().iterable(group)
+                .onItem().transformToUniAndConcatenate(p -> eventService.storeEvent(p.dto())
+                        .invoke(result -> p.emitter().complete(result))
+                        .onFailure().invoke(failure -> p.emitter().fail(failure))
+                        .onFailure().recoverWithNull())
+                .collect().last()
+                .subscribe().with(v -> {
+                }, failure -> Log.error("Failed to store events individually", failure));
+    }
+
+    private record Pending(CloudEventDTO dto, UniEmitter<? super EventResult> emitter, long enqueuedAt) {
+    }
+}
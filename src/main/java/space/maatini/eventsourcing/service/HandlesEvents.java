@@ -23,4 +23,12 @@ public @interface HandlesEvents {
      * The aggregate class this handler works on.
      */
     Class<? extends AggregateRoot> aggregate();
+
+    /**
+     * Run the handler in the transaction that stores the event, so the
+     * projection is up to date when the write returns. A failing handler then
+     * fails the write. Events it cannot take in stream order are left to the
+     * {@link EventBatchProcessor}. Handlers sharing a prefix should agree on this.
+     */
+    boolean inline() default false;
 }
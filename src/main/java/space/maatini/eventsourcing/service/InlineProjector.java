@@ -0,0 +1,96 @@
+package space.maatini.eventsourcing.service;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.smallrye.mutiny.Multi;
+import io.smallrye.mutiny.Uni;
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.inject.Inject;
+import space.maatini.eventsourcing.entity.CloudEvent;
+
+import java.time.OffsetDateTime;
+import java.util.List;
+
+/**
+ * Runs {@link HandlesEvents#inline() inline} handlers for events that were
+ * just stored, in the storing transaction, and marks the events processed.
+ * <p>
+ * An event is only projected inline if no earlier event of its subject is
+ * still unprocessed; otherwise it is left to the {@link EventBatchProcessor},
+ * which keeps the projection in stream order. Events without an inline handler
+ * are always left to it.
+ */
+@ApplicationScoped
+public class InlineProjector {
+
+    private static final String OLDER_UNPROCESSED = """
+            SELECT 1 FROM events
+            WHERE subject = ?1 AND position < ?2 AND processed_at IS NULL
+            LIMIT 1""";
+
+    private static final String MARK_PROCESSED = "UPDATE events SET processed_at = ?1 WHERE id = ?2";
+
+    private final EventHandlerRegistry handlerRegistry;
+    private final ProjectionMetrics projectionMetrics;
+    private final Counter deferred;
+
+    @Inject
+    public InlineProjector(EventHandlerRegistry handlerRegistry, ProjectionMetrics projectionMetrics,
+            MeterRegistry meterRegistry) {
+        this.handlerRegistry = handlerRegistry;
+        this.projectionMetrics = projectionMetrics;
+        this.deferred = meterRegistry.counter("projection.inline.deferred.events");
+    }
+
+    /**
+     * Project stored events, in order. Must run in the transaction that
+     * inserted them; a failing handler fails it.
+     *
+     * @param events events with their assigned position
+     */
+    public Uni<Void> project(List<CloudEvent> events) {
+        if (events.isEmpty()) {
+            return Uni.createFrom().voidItem();
+        }
+        return Multi.createFrom().iterable(events)
+                .onItem().transformToUniAndConcatenate(this::project)
+                .collect().last()
+                .replaceWithVoid();
+    }
+
+    private Uni<Void> project(CloudEvent event) {
+        return handlerRegistry.findInlineHandler(event.getType())
+                .map(handler -> inOrder(event).chain(inOrder -> {
+                    if (!inOrder) {
+                        deferred.increment();
+                        return Uni.createFrom().voidItem();
+                    }
+                    return handler.handle(event).chain(() -> markProcessed(event));
+                }))
+                .orElseGet(() -> Uni.createFrom().voidItem());
+    }
+
+    private static Uni<Boolean> inOrder(CloudEvent event) {
+        if (event.getSubject() == null) {
+            return Uni.createFrom().item(true);
+        }
+        return CloudEvent.getSession().chain(session -> session.createNativeQuery(OLDER_UNPROCESSED)
+                .setParameter(1, event.getSubject())
+                .setParameter(2, event.getPosition())
+                .getResultList())
+                .map(List::isEmpty);
+    }
+
+    private Uni<Void> markProcessed(CloudEvent event) {
+        OffsetDateTime now = OffsetDateTime.now();
+        return CloudEvent.getSession().chain(session -> session.createNativeQuery(MARK_PROCESSED)
+                .setParameter(1, now)
+                .setParameter(2, event.getId())
+                .executeUpdate())
+                .invoke(() -> {
+                    event.setProcessedAt(now);
+                    projectionMetrics.incrementProcessed();
+                })
+                .replaceWithVoid();
+    }
+}
@@ -1,33 +1,76 @@
 package space.maatini.eventsourcing.service;
 
-import io.quarkus.hibernate.reactive.panache.common.WithTransaction;
+import io.quarkus.hibernate.reactive.panache.Panache;
 import io.quarkus.logging.Log;
 import io.smallrye.mutiny.Multi;
 import io.smallrye.mutiny.Uni;
 import jakarta.enterprise.context.ApplicationScoped;
 import jakarta.inject.Inject;
+import org.eclipse.microprofile.config.inject.ConfigProperty;
 import space.maatini.eventsourcing.entity.CloudEvent;
 import jakarta.persistence.Entity;
+import jakarta.persistence.PersistenceException;
 
+import java.sql.SQLException;
+import java.util.List;
 import java.util.UUID;
+import java.util.stream.Collectors;
 
+/**
+ * Rebuilds the projections from the event log.
+ * <p>
+ * The projections are deleted, archived events are applied here, and events
+ * still in the database are reset so the {@link EventBatchProcessor} projects
+ * them again. Each step, and each batch of {@code replay.batch-size} archived
+ * events, runs in its own transaction, so memory and transaction length do not
+ * grow with the archive. A replay that fails half-way leaves the projections
+ * incomplete; running it again starts over.
+ */
 @ApplicationScoped
 public class ProjectionReplayService {
 
     private final EventHandlerRegistry handlerRegistry;
+    private final EventArchive archive;
+    private final int batchSize;
 
     @Inject
-    public ProjectionReplayService(EventHandlerRegistry handlerRegistry) {
+    public ProjectionReplayService(EventHandlerRegistry handlerRegistry, EventArchive archive,
+            @ConfigProperty(name = "eventsourcing.replay.batch-size", defaultValue = "500") int batchSize) {
         this.handlerRegistry = handlerRegistry;
+        this.archive = archive;
+        this.batchSize = Math.max(1, batchSize);
     }
 
-    @WithTransaction
+    /**
+     * @param fromEventId replay from this event on, or null for the whole log
+     * @throws IllegalArgumentException (as failure) if {@code fromEventId} is neither in the database nor archived
+     */
     public Uni<Integer> replayAll(UUID fromEventId) {
+        if (fromEventId == null) {
+            return replayAfter(0);
+        }
+        return Panache.withSession(() -> CloudEvent.<CloudEvent>findById(fromEventId))
+                .chain(ref -> ref != null
+                        ? Uni.createFrom().item(ref.getPosition())
+                        : archivedPosition(fromEventId))
+                .chain(position -> replayAfter(position - 1));
+    }
+
+    private Uni<Long> archivedPosition(UUID eventId) {
+        return archive.stream(0)
+                .filter(event -> eventId.equals(event.getId()))
+                .select().first()
+                .map(CloudEvent::getPosition)
+                .toUni()
+                .onItem().ifNull().failWith(() -> new IllegalArgumentException("Unknown event " + eventId));
+    }
+
+    private Uni<Integer> replayAfter(long afterPosition) {
         Log.info("Starting generic replay for all aggregates");
 
         // KRITISCHER FIX – Replay-Bug behoben
         // Verwende den tatsächlichen Entity-Namen (aus @Entity-Annotation) statt clazz.getSimpleName()
-        Uni<Void> deleteAll = Multi.createFrom().iterable(handlerRegistry.getAggregateClasses())
+        Uni<Void> deleteAll = Panache.withTransaction(() -> Multi.createFrom().iterable(handlerRegistry.getAggregateClasses())
                 .onItem().transformToUniAndConcatenate(clazz -> {
                     String entityName = clazz.getSimpleName();
                     Entity entityAnnotation = clazz.getAnnotation(Entity.class);
@@ -39,17 +82,63 @@ public class ProjectionReplayService {
                             .chain(s -> s.createQuery("DELETE FROM " + finalEntityName).executeUpdate())
                             .replaceWithVoid();
                 })
-                .collect().last().replaceWithVoid();
-
-        return deleteAll.chain(() -> {
-            String update = "UPDATE CloudEvent SET processedAt = null, failedAt = null, retryCount = 0, errorMessage = null";
-            if (fromEventId != null) {
-                return CloudEvent.<CloudEvent>findById(fromEventId)
-                        .chain(ref -> ref != null
-                                ? CloudEvent.update(update + " WHERE createdAt >= ?1", ref.getCreatedAt())
-                                : CloudEvent.update(update));
+                .collect().last().replaceWithVoid());
+
+        // Archived events are applied right here; events in the database are reset for the projector.
+        // Rows at or below the archived position may still await deletion and are left alone.
+        long archived = archive.archivedPosition();
+        String update = "UPDATE CloudEvent SET processedAt = null, failedAt = null, retryCount = 0, errorMessage = null"
+                + " WHERE position > ?1 AND position > ?2";
+        return deleteAll
+                .chain(() -> replayArchived(afterPosition))
+                .chain(replayed -> Panache.withTransaction(() -> CloudEvent.update(update, archived, afterPosition))
+                        .map(reset -> replayed + reset))
+                .invoke(count -> Log.infof("Replay finished – %d events replayed or reset", count));
+    }
+
+    /**
+     * Apply archived events after a position to the projections, in log order
+     * and in batches of one transaction each. Archived events were all
+     * processed before, so a failing handler is logged and skipped instead of
+     * being retried; a database error ends the replay.
+     */
+    private Uni<Integer> replayArchived(long afterPosition) {
+        if (afterPosition >= archive.archivedPosition()) {
+            return Uni.createFrom().item(0);
+        }
+        return archive.stream(afterPosition)
+                .group().intoLists().of(batchSize)
+                .onItem().transformToUniAndConcatenate(batch -> Panache.withTransaction(() -> apply(batch)))
+                .collect().with(Collectors.summingInt(Integer::intValue))
+                .invoke(count -> Log.infof("Replayed %d archived events", count));
+    }
+
+    private Uni<Integer> apply(List<CloudEvent> batch) {
+        return Multi.createFrom().iterable(batch)
+                .onItem().transformToUniAndConcatenate(event -> handlerRegistry.findHandler(event.getType())
+                        .map(handler -> handler.handle(event)
+                                .onFailure(failure -> !isDatabaseError(failure))
+                                .invoke(t -> Log.errorf(t, "Failed to replay archived event %s", event.getId()))
+                                .onFailure(failure -> !isDatabaseError(failure)).recoverWithNull())
+                        .orElseGet(() -> Uni.createFrom().voidItem())
+                        .replaceWith(1))
+                .collect().with(Collectors.summingInt(Integer::intValue));
+    }
+
+    /**
+     * A failed statement aborts the whole transaction, so later events of the
+     * batch could not be written either.
+     */
+    private static boolean isDatabaseError(Throwable failure) {
+        for (Throwable t = failure; t != null; t = t.getCause()) {
+            if (t instanceof PersistenceException || t instanceof SQLException
+                    || t instanceof io.vertx.sqlclient.DatabaseException) {
+                return true;
+            }
+            if (t.getCause() == t) {
+                break;
             }
-            return CloudEvent.update(update);
-        }).invoke(count -> Log.infof("Replay finished – %d events reset", count));
+        }
+        return false;
     }
 }
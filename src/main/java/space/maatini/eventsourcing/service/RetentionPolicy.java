@@ -0,0 +1,86 @@
+package space.maatini.eventsourcing.service;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * How long processed events of a type prefix are kept.
+ * <p>
+ * Written as {@code <type prefix>=<rule>} with the rules {@code forever},
+ * {@code <n>d} (keep n days) and {@code latest} (keep only the newest event of
+ * each subject). For a given type the policy with the longest matching prefix
+ * applies; types without a policy are kept forever.
+ *
+ * @param days retention in days, only used by {@link Kind#DAYS}
+ */
+public record RetentionPolicy(String typePrefix, Kind kind, int days) {
+
+    public enum Kind {
+        FOREVER, DAYS, LATEST_PER_SUBJECT
+    }
+
+    /**
+     * @throws IllegalArgumentException if the definition is malformed
+     */
+    public static RetentionPolicy parse(String definition) {
+        int separator = definition.lastIndexOf('=');
+        if (separator < 0) {
+            throw new IllegalArgumentException("Retention policy must be <type prefix>=<rule>: " + definition);
+        }
+        String prefix = definition.substring(0, separator).trim();
+        String rule = definition.substring(separator + 1).trim();
+        if (rule.equals("forever")) {
+            return new RetentionPolicy(prefix, Kind.FOREVER, 0);
+        }
+        if (rule.equals("latest")) {
+            return new RetentionPolicy(prefix, Kind.LATEST_PER_SUBJECT, 0);
+        }
+        if (rule.endsWith("d")) {
+            try {
+                int days = Integer.parseInt(rule.substring(0, rule.length() - 1));
+                if (days > 0) {
+                    return new RetentionPolicy(prefix, Kind.DAYS, days);
+                }
+            } catch (NumberFormatException e) {
+                // reported below
+            }
+        }
+        throw new IllegalArgumentException("Unknown retention rule '" + rule + "' (use forever, latest or <days>d): " + definition);
+    }
+
+    /**
+     * Parse all definitions, longest prefix first.
+     */
+    public static List<RetentionPolicy> parseAll(List<String> definitions) {
+        List<RetentionPolicy> policies = new ArrayList<>();
+        for (String definition : definitions) {
+            if (!definition.isBlank()) {
+                policies.add(parse(definition));
+            }
+        }
+        policies.sort(Comparator.comparingInt((RetentionPolicy p) -> p.typePrefix().length()).reversed());
+        return policies;
+    }
+
+    /**
+     * The policy that applies to an event type.
+     *
+     * @param policies as returned by {@link #parseAll}
+     */
+    public static Optional<RetentionPolicy> forType(List<RetentionPolicy> policies, String type) {
+        return policies.stream().filter(p -> type.startsWith(p.typePrefix())).findFirst();
+    }
+
+    /**
+     * Prefixes of other policies that take precedence over this one for some of
+     * its types.
+     */
+    List<String> overriddenBy(List<RetentionPolicy> policies) {
+        return policies.stream()
+                .map(RetentionPolicy::typePrefix)
+                .filter(prefix -> prefix.length() > typePrefix.length() && prefix.startsWith(typePrefix))
+                .toList();
+    }
+}
@@ -0,0 +1,75 @@
+package space.maatini.eventsourcing.service;
+
+import io.smallrye.mutiny.Uni;
+import io.vertx.core.json.JsonObject;
+import jakarta.enterprise.context.ApplicationScoped;
+import space.maatini.eventsourcing.domain.AggregateRoot;
+import space.maatini.eventsourcing.entity.CloudEvent;
+
+import java.util.List;
+
+/**
+ * Snapshots of command-side aggregates (see V17). Runs in the caller's
+ * session and transaction.
+ */
+@ApplicationScoped
+public class SnapshotStore {
+
+    private static final String FIND_LATEST = """
+            SELECT version, position, state::text FROM aggregate_snapshots
+            WHERE aggregate_type = ?1 AND aggregate_id = ?2
+            ORDER BY version DESC
+            LIMIT 1""";
+
+    private static final String INSERT = """
+            INSERT INTO aggregate_snapshots (aggregate_type, aggregate_id, version, position, state)
+            VALUES (?1, ?2, ?3, ?4, CAST(?5 AS jsonb))
+            ON CONFLICT DO NOTHING""";
+
+    private static final String DELETE_OLDER = "DELETE FROM aggregate_snapshots WHERE aggregate_type = ?1 AND aggregate_id = ?2 AND version < ?3";
+
+    /**
+     * The latest snapshot of an aggregate, or null if there is none.
+     */
+    public Uni<Snapshot> findLatest(String aggregateType, String aggregateId) {
+        return CloudEvent.getSession().chain(session -> session.createNativeQuery(FIND_LATEST, Object[].class)
+                .setParameter(1, aggregateType)
+                .setParameter(2, aggregateId)
+                .getResultList())
+                .map(SnapshotStore::toSnapshot);
+    }
+
+    /**
+     * Store the current state of an aggregate and drop its older snapshots.
+     */
+    public Uni<Void> save(String aggregateType, AggregateRoot aggregate) {
+        String state = aggregate.snapshot().encode();
+        return CloudEvent.getSession().chain(session -> session.createNativeQuery(INSERT)
+                .setParameter(1, aggregateType)
+                .setParameter(2, aggregate.getId())
+                .setParameter(3, aggregate.getVersion())
+                .setParameter(4, aggregate.getPosition())
+                .setParameter(5, state)
+                .executeUpdate()
+                .chain(() -> session.createNativeQuery(DELETE_OLDER)
+                        .setParameter(1, aggregateType)
+                        .setParameter(2, aggregate.getId())
+                        .setParameter(3, aggregate.getVersion())
+                        .executeUpdate()))
+                .replaceWithVoid();
+    }
+
+    private static Snapshot toSnapshot(List<Object[]> rows) {
+        if (rows.isEmpty()) {
+            return null;
+        }
+        Object[] row = rows.get(0);
+        return new Snapshot(((Number) row[0]).intValue(), ((Number) row[1]).longValue(), new JsonObject((String) row[2]));
+    }
+
+    /**
+     * Aggregate state after {@code version} events, the last at {@code position}.
+     */
+    public record Snapshot(int version, long position, JsonObject state) {
+    }
+}
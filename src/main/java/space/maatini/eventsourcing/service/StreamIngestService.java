@@ -0,0 +1,168 @@
+package space.maatini.eventsourcing.service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.quarkus.logging.Log;
+import io.quarkus.vertx.core.runtime.context.VertxContextSafetyToggle;
+import io.smallrye.mutiny.Multi;
+import io.smallrye.mutiny.Uni;
+import io.smallrye.mutiny.infrastructure.Infrastructure;
+import io.vertx.mutiny.core.Vertx;
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.inject.Inject;
+import jakarta.validation.ConstraintViolation;
+import jakarta.validation.Validator;
+import org.eclipse.microprofile.config.inject.ConfigProperty;
+import space.maatini.eventsourcing.dto.CloudEventDTO;
+import space.maatini.eventsourcing.service.EventService.BatchItemStatus;
+
+import java.io.BufferedReader;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Collectors;
+
+/**
+ * Streaming ingestion of newline-delimited CloudEvents.
+ * <p>
+ * The body is read line by line on a worker thread and only as fast as the
+ * database accepts chunks: each chunk is stored with
+ * {@link EventService#storeEvents(List)} before the next one is requested, so
+ * memory stays bounded by {@code chunk-size} regardless of the upload size.
+ */
+@ApplicationScoped
+public class StreamIngestService {
+
+    private final Vertx vertx;
+    private final EventService eventService;
+    private final ObjectMapper objectMapper;
+    private final Validator validator;
+    private final int chunkSize;
+
+    @Inject
+    public StreamIngestService(Vertx vertx, EventService eventService, ObjectMapper objectMapper, Validator validator,
+            @ConfigProperty(name = "eventsourcing.ingest.stream.chunk-size", defaultValue = "500") int chunkSize) {
+        this.vertx = vertx;
+        this.eventService = eventService;
+        this.objectMapper = objectMapper;
+        this.validator = validator;
+        this.chunkSize = Math.max(1, chunkSize);
+    }
+
+    /**
+     * Ingest an NDJSON stream of CloudEvents.
+     * <p>
+     * Lines that cannot be parsed or fail validation are rejected and reported in
+     * the acknowledgement of their chunk; the remaining lines are stored.
+     *
+     * @param body NDJSON request body, closed when the stream terminates
+     * @return One acknowledgement per stored chunk, in input order
+     */
+    public Multi<ChunkAck> ingest(InputStream body) {
+        AtomicLong lineNumber = new AtomicLong();
+        AtomicLong chunkNumber = new AtomicLong();
+
+        return Multi.createFrom().resource(
+                () -> new BufferedReader(new InputStreamReader(body, StandardCharsets.UTF_8)),
+                reader -> Multi.createFrom().items(reader.lines()))
+                .withFinalizer(this::close)
+                // Blocking reads stay on the worker pool, including later request(n) calls
+                .runSubscriptionOn(Infrastructure.getDefaultWorkerPool())
+                .map(line -> parse(lineNumber.incrementAndGet(), line))
+                .filter(parsed -> !parsed.blank())
+                .group().intoLists().of(chunkSize)
+                .emitOn(safeContext(), 1)
+                .onItem().transformToUniAndConcatenate(chunk -> store(chunkNumber.incrementAndGet(), chunk));
+    }
+
+    private ParsedLine parse(long line, String text) {
+        if (text.isBlank()) {
+            return new ParsedLine(line, null, null);
+        }
+        CloudEventDTO event;
+        try {
+            event = objectMapper.readValue(text, CloudEventDTO.class);
+        } catch (JsonProcessingException e) {
+            return ParsedLine.rejected(line, "Malformed JSON: " + e.getOriginalMessage());
+        }
+        Set<ConstraintViolation<CloudEventDTO>> violations = validator.validate(event);
+        if (!violations.isEmpty()) {
+            return ParsedLine.rejected(line, violations.stream()
+                    .map(v -> v.getPropertyPath() + ": " + v.getMessage())
+                    .sorted()
+                    .collect(Collectors.joining(", ")));
+        }
+        return new ParsedLine(line, event, null);
+    }
+
+    private Uni<ChunkAck> store(long chunk, List<ParsedLine> lines) {
+        List<CloudEventDTO> events = new ArrayList<>(lines.size());
+        List<RejectedLine> rejected = new ArrayList<>();
+        for (ParsedLine line : lines) {
+            if (line.event() != null) {
+                events.add(line.event());
+            } else {
+                rejected.add(new RejectedLine(line.line(), line.error()));
+            }
+        }
+        long firstLine = lines.get(0).line();
+        long lastLine = lines.get(lines.size() - 1).line();
+
+        if (events.isEmpty()) {
+            return Uni.createFrom().item(new ChunkAck(chunk, firstLine, lastLine, 0, 0, rejected));
+        }
+        return eventService.storeEvents(events)
+                .map(results -> {
+                    int created = (int) results.stream().filter(r -> r.status() == BatchItemStatus.CREATED).count();
+                    return new ChunkAck(chunk, firstLine, lastLine, created, results.size() - created, rejected);
+                });
+    }
+
+    /**
+     * Hibernate Reactive needs a duplicated context flagged as safe. All chunks of
+     * one upload run on the same context, one after the other.
+     */
+    private Executor safeContext() {
+        io.vertx.core.impl.ContextInternal context = ((io.vertx.core.impl.ContextInternal) vertx
+                .getDelegate().getOrCreateContext()).duplicate();
+        VertxContextSafetyToggle.setContextSafe(context, true);
+        return command -> context.runOnContext(v -> command.run());
+    }
+
+    private void close(BufferedReader reader) {
+        try {
+            reader.close();
+        } catch (Exception e) {
+            Log.debug("Failed to close NDJSON request body", e);
+        }
+    }
+
+    private record ParsedLine(long line, CloudEventDTO event, String error) {
+        boolean blank() {
+            return event == null && error == null;
+        }
+
+        static ParsedLine rejected(long line, String error) {
+            return new ParsedLine(line, null, error);
+        }
+    }
+
+    /**
+     * Acknowledgement for one chunk of a streamed upload. Line numbers are
+     * 1-based and refer to the request body.
+     */
+    public record ChunkAck(long chunk, long firstLine, long lastLine, int created, int duplicates,
+            List<RejectedLine> rejected) {
+    }
+
+    /**
+     * A line that was not stored, with the reason.
+     */
+    public record RejectedLine(long line, String error) {
+    }
+}
@@ -0,0 +1,244 @@
+package space.maatini.eventsourcing.service;
+
+import io.quarkus.hibernate.reactive.panache.common.WithSession;
+import io.quarkus.hibernate.reactive.panache.common.WithTransaction;
+import io.quarkus.logging.Log;
+import io.smallrye.mutiny.Uni;
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.inject.Inject;
+import jakarta.persistence.LockModeType;
+import org.eclipse.microprofile.config.inject.ConfigProperty;
+import space.maatini.eventsourcing.entity.CloudEvent;
+import space.maatini.eventsourcing.entity.Subscription;
+
+import java.time.OffsetDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Server-side consumer groups with at-least-once delivery.
+ * <p>
+ * Workers of a group poll batches of events and ack them when processed.
+ * Polled events are leased for {@code lease-ms}; unacked events whose lease
+ * expired are handed out again before new events. Expired leases are claimed
+ * with {@code FOR UPDATE SKIP LOCKED}, like {@link CloudEvent#findUnprocessed},
+ * so concurrent workers never receive the same event at the same time. New
+ * events are read with a keyset seek past the subscription's
+ * {@code leased_position}, up to the {@linkplain EventLogHead safe position},
+ * so an event that commits late below the seek position is never skipped.
+ * <p>
+ * The committed position only moves over contiguously acked events, so it is
+ * a safe restart point for the whole group.
+ */
+@ApplicationScoped
+public class SubscriptionService {
+
+    /**
+     * Claim expired leases; rows claimed by a concurrent poll are skipped.
+     */
+    private static final String REDELIVER = """
+            WITH expired AS (
+                SELECT position FROM subscription_leases
+                WHERE subscription = ?1 AND NOT acked AND leased_until < NOW()
+                ORDER BY position
+                LIMIT ?2
+                FOR UPDATE SKIP LOCKED
+            ), renewed AS (
+                UPDATE subscription_leases l
+                SET leased_until = ?3, delivery_count = l.delivery_count + 1
+                FROM expired
+                WHERE l.subscription = ?1 AND l.position = expired.position
+                RETURNING l.position
+            )
+            SELECT position FROM renewed""";
+
+    /**
+     * Lease the next events after {@code leased_position}. The subscription row is
+     * locked for the duration of the statement's transaction, so allocations of one
+     * group do not overlap. If fewer than {@code limit} events match, every event
+     * up to the safe position {@code ?4} has been seen, so {@code leased_position}
+     * moves there; otherwise a group whose types rarely occur would rescan the
+     * same non-matching events on every poll.
+     */
+    private static final String ALLOCATE = """
+            WITH sub AS (
+                SELECT leased_position, types FROM subscriptions WHERE name = ?1 FOR UPDATE
+            ), next AS (
+                SELECT e.position FROM events e, sub
+                WHERE e.position > sub.leased_position AND e.position <= ?4
+                  AND (sub.types IS NULL OR e.type = ANY(sub.types))
+                ORDER BY e.position
+                LIMIT ?2
+            ), leased AS (
+                INSERT INTO subscription_leases (subscription, position, leased_until)
+                SELECT ?1, position, ?3 FROM next
+                RETURNING position
+            ), target AS (
+                SELECT CASE WHEN (SELECT COUNT(*) FROM leased) < ?2 THEN ?4
+                            ELSE (SELECT MAX(position) FROM leased) END AS position
+            ), moved AS (
+                UPDATE subscriptions s SET leased_position = target.position, updated_at = NOW()
+                FROM target, sub
+                WHERE s.name = ?1 AND target.position > sub.leased_position
+            )
+            SELECT position FROM leased""";
+
+    private static final String MARK_ACKED = "UPDATE subscription_leases SET acked = TRUE WHERE subscription = ?1 AND position IN (?2)";
+
+    /**
+     * Move the committed position up to the first unacked lease and drop the
+     * acked leases behind it. Runs after acks and after allocations, so a group
+     * without outstanding leases follows its leased position.
+     */
+    private static final String ADVANCE = """
+            WITH bound AS (
+                SELECT COALESCE(
+                    (SELECT MIN(position) - 1 FROM subscription_leases WHERE subscription = ?1 AND NOT acked),
+                    s.leased_position) AS committed
+                FROM subscriptions s WHERE s.name = ?1
+            ), advanced AS (
+                UPDATE subscriptions SET committed_position = bound.committed, updated_at = NOW()
+                FROM bound
+                WHERE name = ?1 AND committed_position < bound.committed
+            )
+            DELETE FROM subscription_leases
+            WHERE subscription = ?1 AND acked AND position <= (SELECT committed FROM bound)""";
+
+    private final EventLogHead logHead;
+    private final long leaseMs;
+
+    @Inject
+    public SubscriptionService(EventLogHead logHead,
+            @ConfigProperty(name = "eventsourcing.subscriptions.lease-ms", defaultValue = "30000") long leaseMs) {
+        this.logHead = logHead;
+        this.leaseMs = Math.max(1, leaseMs);
+    }
+
+    /**
+     * Create a subscription unless it exists. Settings of an existing
+     * subscription are left unchanged.
+     *
+     * @param fromPosition first position to deliver, or null for the whole log
+     * @param types        event types to deliver, or null/empty for all
+     */
+    @WithTransaction
+    public Uni<CreateResult> create(String name, Long fromPosition, List<String> types) {
+        return Subscription.<Subscription>findById(name).chain(existing -> {
+            if (existing != null) {
+                return Uni.createFrom().item(new CreateResult(existing, false));
+            }
+            Subscription subscription = new Subscription();
+            subscription.setName(name);
+            subscription.setTypes(types == null || types.isEmpty() ? null : types.toArray(String[]::new));
+            long start = fromPosition != null ? fromPosition - 1 : 0;
+            subscription.setCommittedPosition(start);
+            subscription.setLeasedPosition(start);
+            Log.infof("Creating subscription %s from position %d", name, start + 1);
+            return subscription.<Subscription>persist().map(created -> new CreateResult(created, true));
+        });
+    }
+
+    @WithSession
+    public Uni<Subscription> find(String name) {
+        return Subscription.findById(name);
+    }
+
+    /**
+     * @return true if the subscription existed
+     */
+    @WithTransaction
+    public Uni<Boolean> delete(String name) {
+        return Subscription.deleteById(name);
+    }
+
+    /**
+     * Lease up to {@code max} events: expired leases first, then new events.
+     *
+     * @return the leased events in position order, or null if the subscription does not exist
+     */
+    @WithTransaction
+    public Uni<Batch> poll(String name, int max) {
+        return Subscription.<Subscription>findById(name).chain(subscription -> {
+            if (subscription == null) {
+                return Uni.createFrom().nullItem();
+            }
+            OffsetDateTime leasedUntil = OffsetDateTime.now().plusNanos(leaseMs * 1_000_000);
+            return positions(REDELIVER, name, max, leasedUntil)
+                    .chain(redelivered -> {
+                        if (redelivered.size() >= max) {
+                            return Uni.createFrom().item(redelivered);
+                        }
+                        return logHead.safePosition()
+                                .chain(upTo -> allocate(name, max - redelivered.size(), leasedUntil, upTo))
+                                .call(() -> advance(name))
+                                .map(allocated -> {
+                                    List<Long> all = new ArrayList<>(redelivered);
+                                    all.addAll(allocated);
+                                    return all;
+                                });
+                    })
+                    .chain(positions -> positions.isEmpty()
+                            ? Uni.createFrom().item(List.<CloudEvent>of())
+                            : CloudEvent.<CloudEvent>list("position in ?1 order by position", positions))
+                    .map(events -> new Batch(events, leasedUntil));
+        });
+    }
+
+    /**
+     * Acknowledge processed events. Positions that are not leased to this
+     * subscription are ignored.
+     *
+     * @return the subscription with its new committed position, or null if it does not exist
+     */
+    @WithTransaction
+    public Uni<Subscription> ack(String name, List<Long> positions) {
+        // Locking the subscription serializes acks of the group, so each one sees the previous ones
+        return Subscription.<Subscription>findById(name, LockModeType.PESSIMISTIC_WRITE).chain(subscription -> {
+            if (subscription == null) {
+                return Uni.createFrom().nullItem();
+            }
+            return Subscription.getSession().chain(session -> session.createNativeQuery(MARK_ACKED)
+                    .setParameter(1, name)
+                    .setParameter(2, positions)
+                    .executeUpdate()
+                    .chain(() -> advance(name))
+                    .chain(() -> session.refresh(subscription))
+                    .replaceWith(subscription));
+        });
+    }
+
+    private static Uni<Integer> advance(String name) {
+        return Subscription.getSession().chain(session -> session.createNativeQuery(ADVANCE)
+                .setParameter(1, name)
+                .executeUpdate());
+    }
+
+    private static Uni<List<Long>> allocate(String name, int limit, OffsetDateTime leasedUntil, long upTo) {
+        return Subscription.getSession().chain(session -> session.createNativeQuery(ALLOCATE, Long.class)
+                .setParameter(1, name)
+                .setParameter(2, limit)
+                .setParameter(3, leasedUntil)
+                .setParameter(4, upTo)
+                .getResultList());
+    }
+
+    private static Uni<List<Long>> positions(String sql, String name, int limit, OffsetDateTime leasedUntil) {
+        return Subscription.getSession().chain(session -> session.createNativeQuery(sql, Long.class)
+                .setParameter(1, name)
+                .setParameter(2, limit)
+                .setParameter(3, leasedUntil)
+                .getResultList());
+    }
+
+    /**
+     * Outcome of {@link #create}: the subscription and whether it was new.
+     */
+    public record CreateResult(Subscription subscription, boolean created) {
+    }
+
+    /**
+     * Events leased by one poll, valid until {@code leasedUntil}.
+     */
+    public record Batch(List<CloudEvent> events, OffsetDateTime leasedUntil) {
+    }
+}
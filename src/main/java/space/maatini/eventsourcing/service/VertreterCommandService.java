@@ -1,59 +1,205 @@
 package space.maatini.eventsourcing.service;
 
-import io.quarkus.hibernate.reactive.panache.common.WithTransaction;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.quarkus.hibernate.reactive.panache.Panache;
+import io.quarkus.logging.Log;
 import io.smallrye.mutiny.Multi;
 import io.smallrye.mutiny.Uni;
+import io.vertx.mutiny.core.Vertx;
 import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.inject.Inject;
+import org.eclipse.microprofile.config.inject.ConfigProperty;
 import space.maatini.eventsourcing.domain.Vertreter;
 import space.maatini.eventsourcing.dto.command.CreateVertreterCommand;
 import space.maatini.eventsourcing.dto.command.UpdateVertreterCommand;
-import space.maatini.eventsourcing.entity.CloudEvent;
+import space.maatini.eventsourcing.dto.command.VertreterBatchCommand;
+import space.maatini.eventsourcing.exception.StreamVersionConflictException;
+import space.maatini.eventsourcing.service.CommandLanes.Outcome;
 
-import java.time.OffsetDateTime;
-import java.util.UUID;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Consumer;
 
+/**
+ * Executes Vertreter commands with optimistic concurrency.
+ * <p>
+ * Commands for the same Vertreter run one after another on a
+ * {@link CommandLanes lane}, so this instance never races itself on a stream;
+ * commands that queued up behind each other are committed together.
+ * <p>
+ * Every new event carries the stream version it expects to get, and the
+ * database rejects it if another writer appended first (see V18). A command
+ * that pins an expected version fails with a
+ * {@link StreamVersionConflictException} once the stream has moved past it.
+ * Conflicts with other instances are retried against the reloaded aggregate,
+ * which re-checks the invariants and expected versions on the current state.
+ */
 @ApplicationScoped
 public class VertreterCommandService {
 
-    @WithTransaction
-    public Uni<Void> createVertreter(CreateVertreterCommand cmd) {
-        return loadAggregate(cmd.id()).chain(vertreter -> {
-            vertreter.create(cmd);
-            return saveEvents(vertreter);
-        });
-    }
-
-    @WithTransaction
-    public Uni<Void> updateVertreter(UpdateVertreterCommand cmd) {
-        return loadAggregate(cmd.id()).chain(vertreter -> {
-            vertreter.update(cmd);
-            return saveEvents(vertreter);
-        });
-    }
-    
-    @WithTransaction
-    public Uni<Void> deleteVertreter(String id) {
-        return loadAggregate(id).chain(vertreter -> {
-            vertreter.delete();
-            return saveEvents(vertreter);
-        });
-    }
-
-    private Uni<Vertreter> loadAggregate(String id) {
-        return CloudEvent.<CloudEvent>find("subject = ?1 ORDER BY createdAt ASC", id).list()
-                .map(events -> {
-                    Vertreter v = new Vertreter(id);
-                    events.forEach(v::apply);
-                    return v;
-                });
-    }
-
-    private Uni<Void> saveEvents(Vertreter vertreter) {
-        if (vertreter.getUncommittedEvents().isEmpty()) {
-            return Uni.createFrom().voidItem();
+    private final AggregateLoader aggregateLoader;
+    private final AggregateCache cache;
+    private final CommandLanes<PendingCommand, Long> lanes;
+    private final int maxRetries;
+    private final int batchConcurrency;
+    private final Counter conflicts;
+
+    @Inject
+    public VertreterCommandService(Vertx vertx, AggregateLoader aggregateLoader, MeterRegistry meterRegistry,
+            @ConfigProperty(name = "eventsourcing.aggregates.cache.max-entries", defaultValue = "10000") int cacheSize,
+            @ConfigProperty(name = "eventsourcing.commands.max-retries", defaultValue = "5") int maxRetries,
+            @ConfigProperty(name = "eventsourcing.commands.lanes", defaultValue = "16") int laneCount,
+            @ConfigProperty(name = "eventsourcing.commands.max-batch", defaultValue = "32") int maxBatch) {
+        this.aggregateLoader = aggregateLoader;
+        this.cache = new AggregateCache("Vertreter", cacheSize, meterRegistry);
+        this.maxRetries = Math.max(0, maxRetries);
+        this.conflicts = meterRegistry.counter("aggregate.command.conflicts", "aggregate", "Vertreter");
+        this.batchConcurrency = Math.max(1, laneCount);
+        this.lanes = new CommandLanes<>(vertx, "Vertreter", laneCount, maxBatch, meterRegistry, this::executeBatch);
+    }
+
+    /**
+     * @return the stream version after the command
+     */
+    public Uni<Long> createVertreter(CreateVertreterCommand cmd) {
+        return execute(cmd.id(), null, vertreter -> vertreter.create(cmd));
+    }
+
+    /**
+     * @return the stream version after the command
+     */
+    public Uni<Long> updateVertreter(UpdateVertreterCommand cmd) {
+        return execute(cmd.id(), cmd.expectedVersion(), vertreter -> vertreter.update(cmd));
+    }
+
+    /**
+     * @param expectedVersion stream version the delete is based on, or null
+     * @return the stream version after the command
+     */
+    public Uni<Long> deleteVertreter(String id, Long expectedVersion) {
+        return execute(id, expectedVersion, Vertreter::delete);
+    }
+
+    /**
+     * Execute many commands, grouped by Vertreter. The commands of one Vertreter
+     * run in order on its lane and are committed in one transaction, whatever
+     * {@code commands.max-batch} says; different Vertreter run in parallel. A
+     * failure only affects the commands of its Vertreter's transaction.
+     *
+     * @return one result per command, in request order
+     */
+    public Uni<List<CommandResult>> executeAll(List<VertreterBatchCommand> commands) {
+        Map<String, List<Integer>> byId = new LinkedHashMap<>();
+        for (int i = 0; i < commands.size(); i++) {
+            byId.computeIfAbsent(commands.get(i).id(), id -> new ArrayList<>()).add(i);
         }
-        return Multi.createFrom().iterable(vertreter.getUncommittedEvents())
-                .onItem().transformToUniAndConcatenate(event -> event.persist())
-                .collect().last().replaceWithVoid();
+        CommandResult[] results = new CommandResult[commands.size()];
+        return Multi.createFrom().iterable(byId.entrySet())
+                .onItem().transformToUni(group -> lanes.submitAll(group.getKey(),
+                                group.getValue().stream().map(i -> toPending(commands.get(i))).toList())
+                        .invoke(outcomes -> {
+                            for (int j = 0; j < outcomes.size(); j++) {
+                                int index = group.getValue().get(j);
+                                results[index] = CommandResult.of(index, group.getKey(), outcomes.get(j));
+                            }
+                        }))
+                .merge(batchConcurrency)
+                .collect().last()
+                .map(ignored -> Arrays.asList(results));
+    }
+
+    private static PendingCommand toPending(VertreterBatchCommand command) {
+        return switch (command.type()) {
+            case CREATE -> new PendingCommand(null, vertreter -> vertreter.create(command.toCreate()));
+            case UPDATE -> new PendingCommand(command.expectedVersion(), vertreter -> vertreter.update(command.toUpdate()));
+            case DELETE -> new PendingCommand(command.expectedVersion(), Vertreter::delete);
+        };
+    }
+
+    private Uni<Long> execute(String id, Long expectedVersion, Consumer<Vertreter> command) {
+        return lanes.submit(id, new PendingCommand(expectedVersion, command));
+    }
+
+    /**
+     * Run consecutive commands for one Vertreter in a single transaction. A
+     * command that is rejected by the aggregate or by its expected version
+     * fails on its own; the others still commit. The cache is only updated
+     * once the transaction has committed.
+     */
+    private Uni<List<Outcome<Long>>> executeBatch(String id, List<PendingCommand> commands) {
+        Uni<List<Outcome<Long>>> attempt = Panache.withTransaction(() -> aggregateLoader.load(id, Vertreter::new, cache)
+                .chain(vertreter -> {
+                    List<Outcome<Long>> outcomes = new ArrayList<>(commands.size());
+                    for (PendingCommand pending : commands) {
+                        outcomes.add(apply(id, vertreter, pending));
+                    }
+                    return aggregateLoader.save(vertreter)
+                            .map(streamVersion -> new Saved(vertreter, streamVersion, outcomes));
+                }))
+                .invoke(saved -> cache.put(saved.vertreter(), saved.streamVersion()))
+                .onFailure().invoke(() -> cache.invalidate(id))
+                .onFailure(StreamVersionConflictException::isConflict).transform(failure -> {
+                    conflicts.increment();
+                    return failure instanceof StreamVersionConflictException
+                            ? failure
+                            : new StreamVersionConflictException(id, "Concurrent append to stream " + id, failure);
+                })
+                .map(Saved::outcomes);
+        if (maxRetries == 0) {
+            return attempt;
+        }
+        // Only another instance can have appended; expected versions are checked again on the retry
+        return attempt
+                .onFailure(StreamVersionConflictException.class)
+                .invoke(failure -> Log.debugf("Retrying commands on %s after a concurrent append", id))
+                .onFailure(StreamVersionConflictException.class).retry().atMost(maxRetries);
+    }
+
+    private static Outcome<Long> apply(String id, Vertreter vertreter, PendingCommand pending) {
+        try {
+            if (pending.expectedVersion() != null && vertreter.getStreamVersion() != pending.expectedVersion()) {
+                throw new StreamVersionConflictException(id, pending.expectedVersion(), vertreter.getStreamVersion());
+            }
+            // Commands check their invariants before applying any event
+            pending.command().accept(vertreter);
+            return Outcome.success(vertreter.getStreamVersion());
+        } catch (IllegalStateException | StreamVersionConflictException e) {
+            return Outcome.failure(e);
+        }
+    }
+
+    /**
+     * Result of one command of a batch.
+     *
+     * @param index   position of the command in the request
+     * @param version stream version after the command, if it succeeded
+     * @param error   why the command failed, if it did
+     */
+    public record CommandResult(int index, String id, CommandStatus status, Long version, String error) {
+
+        static CommandResult of(int index, String id, Outcome<Long> outcome) {
+            Throwable failure = outcome.failure();
+            if (failure == null) {
+                return new CommandResult(index, id, CommandStatus.SUCCEEDED, outcome.result(), null);
+            }
+            CommandStatus status = failure instanceof IllegalStateException ? CommandStatus.REJECTED
+                    : failure instanceof StreamVersionConflictException ? CommandStatus.CONFLICT
+                    : CommandStatus.FAILED;
+            return new CommandResult(index, id, status, null, failure.getMessage());
+        }
+    }
+
+    public enum CommandStatus {
+        SUCCEEDED, REJECTED, CONFLICT, FAILED
+    }
+
+    private record PendingCommand(Long expectedVersion, Consumer<Vertreter> command) {
+    }
+
+    private record Saved(Vertreter vertreter, long streamVersion, List<Outcome<Long>> outcomes) {
     }
 }
@@ -0,0 +1,13 @@
+-- V11: Allow bulk imports to suppress per-row notifications
+-- A session that sets eventsourcing.suppress_notify = 'on' (SET LOCAL, so only
+-- for its own transaction) inserts without firing one NOTIFY per row and sends a
+-- single wake-up itself once the import is merged.
+CREATE OR REPLACE FUNCTION notify_event() RETURNS TRIGGER AS $$
+BEGIN
+    IF current_setting('eventsourcing.suppress_notify', true) = 'on' THEN
+        RETURN NEW;
+    END IF;
+    PERFORM pg_notify('events_channel', NEW.id::text);
+    RETURN NEW;
+END;
+$$ LANGUAGE plpgsql;
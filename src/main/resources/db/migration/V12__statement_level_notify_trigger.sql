@@ -0,0 +1,36 @@
+-- V12: One notification per INSERT statement instead of one per row
+-- A multi-row insert of 1,000 events used to queue 1,000 notifications. The
+-- statement-level trigger reads the transition table once and sends a compact
+-- summary; statements that inserted nothing (ON CONFLICT DO NOTHING) stay silent.
+CREATE OR REPLACE FUNCTION notify_events_inserted() RETURNS TRIGGER AS $$
+DECLARE
+    summary RECORD;
+BEGIN
+    -- Bulk imports suppress notifications and send a single one themselves (see V11)
+    IF current_setting('eventsourcing.suppress_notify', true) = 'on' THEN
+        RETURN NULL;
+    END IF;
+
+    SELECT count(*) AS cnt, min(created_at) AS first_created, max(created_at) AS last_created
+    INTO summary
+    FROM inserted_events;
+
+    IF summary.cnt > 0 THEN
+        PERFORM pg_notify('events_channel', json_build_object(
+            'count', summary.cnt,
+            'from', summary.first_created,
+            'to', summary.last_created)::text);
+    END IF;
+    RETURN NULL;
+END;
+$$ LANGUAGE plpgsql;
+
+DROP TRIGGER IF EXISTS trg_notify_event ON events;
+
+CREATE TRIGGER trg_notify_event
+    AFTER INSERT ON events
+    REFERENCING NEW TABLE AS inserted_events
+    FOR EACH STATEMENT
+    EXECUTE FUNCTION notify_events_inserted();
+
+DROP FUNCTION IF EXISTS notify_event();
@@ -0,0 +1,5 @@
+-- V13: Indexes for keyset-paginated queries by type and by subject
+-- Both endpoints page in (created_at, id) order, optionally bounded by a
+-- created_at range, so each query is a single index range scan.
+CREATE INDEX IF NOT EXISTS idx_events_type_created_at ON events(type, created_at, id);
+CREATE INDEX IF NOT EXISTS idx_events_subject_created_at ON events(subject, created_at, id);
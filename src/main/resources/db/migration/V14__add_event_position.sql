@@ -0,0 +1,105 @@
+-- V14: Gap-free global position and per-subject stream version
+--
+-- created_at comes from the JVM clock: it is not unique and skews across
+-- instances. position is a counter assigned by the database inside the inserting
+-- transaction. The counter row stays locked until commit, so writers are
+-- serialized and positions become visible in commit order; a rolled-back insert
+-- also rolls back its increment, so no gaps appear.
+
+ALTER TABLE events ADD COLUMN IF NOT EXISTS position BIGINT;
+ALTER TABLE events ADD COLUMN IF NOT EXISTS stream_version BIGINT;
+
+-- 1. Backfill existing events in their previous (created_at) order
+WITH ordered AS (
+    SELECT id,
+           row_number() OVER (ORDER BY created_at, id) AS pos,
+           CASE WHEN subject IS NOT NULL
+                THEN row_number() OVER (PARTITION BY subject ORDER BY created_at, id)
+           END AS ver
+    FROM events
+)
+UPDATE events e
+SET position = o.pos, stream_version = o.ver
+FROM ordered o
+WHERE e.id = o.id;
+
+-- 2. Counters: one row for the log head, one row per subject
+CREATE TABLE IF NOT EXISTS event_log_head (
+    id BOOLEAN PRIMARY KEY DEFAULT TRUE CHECK (id),
+    position BIGINT NOT NULL
+);
+INSERT INTO event_log_head (position) SELECT COALESCE(MAX(position), 0) FROM events;
+
+CREATE TABLE IF NOT EXISTS event_streams (
+    subject VARCHAR(255) PRIMARY KEY,
+    version BIGINT NOT NULL
+);
+INSERT INTO event_streams (subject, version)
+SELECT subject, MAX(stream_version) FROM events WHERE subject IS NOT NULL GROUP BY subject;
+
+-- 3. Assign position and stream version on insert
+CREATE OR REPLACE FUNCTION assign_event_position() RETURNS TRIGGER AS $$
+BEGIN
+    -- Taking the head lock first also waits for a concurrent insert of the same ID to commit
+    UPDATE event_log_head SET position = position + 1 RETURNING position INTO NEW.position;
+
+    -- Duplicate ID: skip the row (as ON CONFLICT DO NOTHING would) without burning a position.
+    -- Rows inserted earlier by the same statement are visible here as well.
+    IF EXISTS (SELECT 1 FROM events WHERE id = NEW.id) THEN
+        UPDATE event_log_head SET position = position - 1;
+        RETURN NULL;
+    END IF;
+
+    IF NEW.subject IS NOT NULL THEN
+        INSERT INTO event_streams (subject, version) VALUES (NEW.subject, 1)
+        ON CONFLICT (subject) DO UPDATE SET version = event_streams.version + 1
+        RETURNING version INTO NEW.stream_version;
+    END IF;
+    RETURN NEW;
+END;
+$$ LANGUAGE plpgsql;
+
+DROP TRIGGER IF EXISTS trg_assign_event_position ON events;
+
+CREATE TRIGGER trg_assign_event_position
+    BEFORE INSERT ON events
+    FOR EACH ROW
+    EXECUTE FUNCTION assign_event_position();
+
+ALTER TABLE events ALTER COLUMN position SET NOT NULL;
+
+-- 4. Indexes: log order, stream order, and the query/processing paths by position
+CREATE UNIQUE INDEX IF NOT EXISTS uq_events_position ON events(position);
+CREATE UNIQUE INDEX IF NOT EXISTS uq_events_subject_stream_version ON events(subject, stream_version);
+
+DROP INDEX IF EXISTS idx_events_type_created_at;
+DROP INDEX IF EXISTS idx_events_subject_created_at;
+CREATE INDEX IF NOT EXISTS idx_events_type_position ON events(type, position);
+CREATE INDEX IF NOT EXISTS idx_events_subject_position ON events(subject, position);
+
+DROP INDEX IF EXISTS idx_events_unprocessed;
+CREATE INDEX idx_events_unprocessed ON events(position)
+WHERE processed_at IS NULL AND retry_count < 5;
+
+-- 5. Notification summary by position instead of created_at (see V12)
+CREATE OR REPLACE FUNCTION notify_events_inserted() RETURNS TRIGGER AS $$
+DECLARE
+    summary RECORD;
+BEGIN
+    IF current_setting('eventsourcing.suppress_notify', true) = 'on' THEN
+        RETURN NULL;
+    END IF;
+
+    SELECT count(*) AS cnt, min(position) AS first_position, max(position) AS last_position
+    INTO summary
+    FROM inserted_events;
+
+    IF summary.cnt > 0 THEN
+        PERFORM pg_notify('events_channel', json_build_object(
+            'count', summary.cnt,
+            'from', summary.first_position,
+            'to', summary.last_position)::text);
+    END IF;
+    RETURN NULL;
+END;
+$$ LANGUAGE plpgsql;
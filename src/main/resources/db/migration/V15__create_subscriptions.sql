@@ -0,0 +1,29 @@
+-- V15: Server-side consumer groups
+-- A subscription is a named cursor over the event log, shared by all workers
+-- of one consumer group. Polled events are leased to a worker until acked or
+-- until the lease expires, when they are handed out again (at-least-once).
+CREATE TABLE IF NOT EXISTS subscriptions (
+    name VARCHAR(255) PRIMARY KEY,
+    types TEXT[],
+    -- Every event up to this position has been acked
+    committed_position BIGINT NOT NULL DEFAULT 0,
+    -- Every matching event up to this position has been leased at least once
+    leased_position BIGINT NOT NULL DEFAULT 0,
+    created_at TIMESTAMPTZ NOT NULL DEFAULT NOW(),
+    updated_at TIMESTAMPTZ NOT NULL DEFAULT NOW(),
+    CONSTRAINT chk_subscriptions_positions CHECK (committed_position <= leased_position)
+);
+
+-- Leases between committed_position and leased_position; acked leases are removed
+-- once the committed position moves past them
+CREATE TABLE IF NOT EXISTS subscription_leases (
+    subscription VARCHAR(255) NOT NULL REFERENCES subscriptions(name) ON DELETE CASCADE,
+    position BIGINT NOT NULL,
+    leased_until TIMESTAMPTZ NOT NULL,
+    delivery_count INTEGER NOT NULL DEFAULT 1,
+    acked BOOLEAN NOT NULL DEFAULT FALSE,
+    PRIMARY KEY (subscription, position)
+);
+
+CREATE INDEX IF NOT EXISTS idx_subscription_leases_pending ON subscription_leases(subscription, position)
+WHERE NOT acked;
@@ -0,0 +1,98 @@
+-- V16: Range-partition events by created_at, one partition per month (UTC)
+--
+-- Old months stop receiving writes, so vacuum and the hot indexes (above all
+-- idx_events_unprocessed) only work on recent partitions, and queries bounded
+-- by created_at are pruned to the matching months. EventPartitionManager keeps
+-- partitions ahead of time and optionally detaches old ones.
+--
+-- A primary key on a partitioned table must contain the partition key, so the
+-- key becomes (id, created_at). ID uniqueness across partitions is enforced by
+-- the insert trigger assign_event_position(). Here (see V14) it still checks
+-- for the ID under the log head lock; V19 removed that lock, and since V21 the
+-- trigger claims each ID in the non-partitioned event_ids table instead, which
+-- also replaces the dead-letter foreign key dropped below (V22).
+
+ALTER TABLE events RENAME TO events_unpartitioned;
+DROP TRIGGER IF EXISTS trg_assign_event_position ON events_unpartitioned;
+DROP TRIGGER IF EXISTS trg_notify_event ON events_unpartitioned;
+
+-- A foreign key would need a unique index on events(id) alone
+ALTER TABLE events_dead_letter DROP CONSTRAINT IF EXISTS events_dead_letter_event_id_fkey;
+
+CREATE TABLE events (
+    id UUID NOT NULL,
+    source VARCHAR(255) NOT NULL,
+    specversion VARCHAR(10) NOT NULL DEFAULT '1.0',
+    type VARCHAR(255) NOT NULL,
+    subject VARCHAR(255),
+    time TIMESTAMPTZ NOT NULL DEFAULT NOW(),
+    datacontenttype VARCHAR(100) DEFAULT 'application/json',
+    dataschema VARCHAR(255),
+    data JSONB,
+    processed_at TIMESTAMPTZ,
+    created_at TIMESTAMPTZ NOT NULL DEFAULT NOW(),
+    failed_at TIMESTAMPTZ,
+    retry_count INTEGER NOT NULL DEFAULT 0,
+    error_message TEXT,
+    position BIGINT NOT NULL,
+    stream_version BIGINT,
+    PRIMARY KEY (id, created_at)
+) PARTITION BY RANGE (created_at);
+
+-- Creates the partition for the month containing the given day, if missing
+CREATE OR REPLACE FUNCTION create_events_partition(month DATE) RETURNS TEXT AS $$
+DECLARE
+    first_day DATE := date_trunc('month', month)::date;
+    partition_name TEXT := 'events_p' || to_char(first_day, 'YYYYMM');
+BEGIN
+    EXECUTE format('CREATE TABLE IF NOT EXISTS %I PARTITION OF events FOR VALUES FROM (%L) TO (%L)',
+        partition_name,
+        first_day::timestamp AT TIME ZONE 'UTC',
+        (first_day + INTERVAL '1 month')::timestamp AT TIME ZONE 'UTC');
+    RETURN partition_name;
+END;
+$$ LANGUAGE plpgsql;
+
+-- Partitions for all existing data and the next three months
+DO $$
+DECLARE
+    month DATE := date_trunc('month', COALESCE(
+        (SELECT MIN(created_at) FROM events_unpartitioned), NOW()) AT TIME ZONE 'UTC')::date;
+    last_month DATE := (date_trunc('month', NOW() AT TIME ZONE 'UTC') + INTERVAL '3 months')::date;
+BEGIN
+    WHILE month <= last_month LOOP
+        PERFORM create_events_partition(month);
+        month := (month + INTERVAL '1 month')::date;
+    END LOOP;
+END $$;
+
+-- Safety net for created_at values outside the prepared months (e.g. a skewed clock)
+CREATE TABLE IF NOT EXISTS events_default PARTITION OF events DEFAULT;
+
+-- Positions and stream versions are copied as they are: the triggers are created afterwards
+INSERT INTO events (id, source, specversion, type, subject, time, datacontenttype, dataschema, data,
+                    processed_at, created_at, failed_at, retry_count, error_message, position, stream_version)
+SELECT id, source, specversion, type, subject, time, datacontenttype, dataschema, data,
+       processed_at, created_at, failed_at, retry_count, error_message, position, stream_version
+FROM events_unpartitioned;
+
+DROP TABLE events_unpartitioned;
+
+-- Indexes are created on every partition
+CREATE INDEX IF NOT EXISTS idx_events_position ON events(position);
+CREATE INDEX IF NOT EXISTS idx_events_type_position ON events(type, position);
+CREATE INDEX IF NOT EXISTS idx_events_subject_position ON events(subject, position);
+CREATE INDEX IF NOT EXISTS idx_events_subject_stream_version ON events(subject, stream_version);
+CREATE INDEX IF NOT EXISTS idx_events_unprocessed ON events(position)
+WHERE processed_at IS NULL AND retry_count < 5;
+
+CREATE TRIGGER trg_assign_event_position
+    BEFORE INSERT ON events
+    FOR EACH ROW
+    EXECUTE FUNCTION assign_event_position();
+
+CREATE TRIGGER trg_notify_event
+    AFTER INSERT ON events
+    REFERENCING NEW TABLE AS inserted_events
+    FOR EACH STATEMENT
+    EXECUTE FUNCTION notify_events_inserted();
@@ -0,0 +1,15 @@
+-- V17: Snapshots of command-side aggregates
+-- A snapshot holds the state of an aggregate after all of its events up to
+-- position. Loading starts from the latest snapshot and applies only the events
+-- after it. Older snapshots of an aggregate are removed when a new one is written.
+CREATE TABLE IF NOT EXISTS aggregate_snapshots (
+    aggregate_type VARCHAR(255) NOT NULL,
+    aggregate_id VARCHAR(255) NOT NULL,
+    -- Number of events applied to the aggregate
+    version INTEGER NOT NULL,
+    -- Position of the last applied event
+    position BIGINT NOT NULL,
+    state JSONB NOT NULL,
+    created_at TIMESTAMPTZ NOT NULL DEFAULT NOW(),
+    PRIMARY KEY (aggregate_type, aggregate_id, version)
+);
@@ -0,0 +1,37 @@
+-- V18: Optimistic concurrency on event streams
+-- An insert may carry the stream_version it expects to get. The version is
+-- assigned under the row lock of the subject's event_streams entry, so
+-- concurrent appends to one stream are serialized; if the stream has moved on
+-- in the meantime, the insert fails with a unique violation on
+-- uq_events_subject_stream_version. A unique index cannot enforce this on the
+-- partitioned table (it would have to include created_at), hence the check in
+-- the trigger. Inserts without a stream_version are appended as before.
+CREATE OR REPLACE FUNCTION assign_event_position() RETURNS TRIGGER AS $$
+DECLARE
+    expected BIGINT := NEW.stream_version;
+BEGIN
+    -- Taking the head lock first also waits for a concurrent insert of the same ID to commit
+    UPDATE event_log_head SET position = position + 1 RETURNING position INTO NEW.position;
+
+    -- Duplicate ID: skip the row (as ON CONFLICT DO NOTHING would) without burning a position.
+    -- Rows inserted earlier by the same statement are visible here as well.
+    IF EXISTS (SELECT 1 FROM events WHERE id = NEW.id) THEN
+        UPDATE event_log_head SET position = position - 1;
+        RETURN NULL;
+    END IF;
+
+    NEW.stream_version := NULL;
+    IF NEW.subject IS NOT NULL THEN
+        INSERT INTO event_streams (subject, version) VALUES (NEW.subject, 1)
+        ON CONFLICT (subject) DO UPDATE SET version = event_streams.version + 1
+        RETURNING version INTO NEW.stream_version;
+
+        IF expected IS NOT NULL AND expected <> NEW.stream_version THEN
+            RAISE EXCEPTION 'Stream % is at version %, expected to append version %',
+                NEW.subject, NEW.stream_version - 1, expected
+                USING ERRCODE = 'unique_violation', CONSTRAINT = 'uq_events_subject_stream_version';
+        END IF;
+    END IF;
+    RETURN NEW;
+END;
+$$ LANGUAGE plpgsql;
@@ -0,0 +1,86 @@
+-- V19: Positions from a sequence instead of the event_log_head row lock
+--
+-- Until now every insert locked the single event_log_head row until commit, so
+-- all writing transactions of the system ran one after another. Positions now
+-- come from a sequence and writers only lock what they actually share:
+--   * the event ID, with a transaction-scoped advisory lock, so a concurrent
+--     insert of the same ID waits for the first one and is then skipped;
+--   * the subject's event_streams row, as before, so stream versions stay
+--     gap-free and positions increase with the stream version.
+-- Writers with different IDs and subjects no longer wait for each other. Two
+-- transactions that append to the same subjects in opposite order can now
+-- deadlock; PostgreSQL aborts one of them.
+--
+-- Positions still increase but are no longer gap-free (a rolled-back insert
+-- burns its position), and they no longer become visible in order: a
+-- transaction may commit position 12 while 11 is still in flight. Readers that
+-- page through the whole log by position must not read past the safe position
+-- (everything at or below it is final), see event_log_probe() below and
+-- EventLogHead. Reads of a single subject are unaffected, because the stream
+-- row lock is held until commit.
+
+-- 1. The sequence continues where the head counter stopped. CACHE 1 is
+-- required by event_log_probe(): a per-session cache would hand out positions
+-- below last_value in transactions that start later.
+CREATE SEQUENCE IF NOT EXISTS events_position_seq AS BIGINT CACHE 1;
+SELECT setval('events_position_seq', GREATEST(position, 1), position > 0) FROM event_log_head;
+
+-- 2. Assign position and stream version on insert
+CREATE OR REPLACE FUNCTION assign_event_position() RETURNS TRIGGER AS $$
+DECLARE
+    expected BIGINT := NEW.stream_version;
+BEGIN
+    -- Waits for a concurrent insert of the same ID to commit or roll back
+    PERFORM pg_advisory_xact_lock(hashtext('events.id'), hashtext(NEW.id::text));
+
+    -- Duplicate ID: skip the row (as ON CONFLICT DO NOTHING would) without burning a position.
+    -- Rows inserted earlier by the same statement are visible here as well.
+    IF EXISTS (SELECT 1 FROM events WHERE id = NEW.id) THEN
+        RETURN NULL;
+    END IF;
+
+    NEW.stream_version := NULL;
+    IF NEW.subject IS NOT NULL THEN
+        INSERT INTO event_streams (subject, version) VALUES (NEW.subject, 1)
+        ON CONFLICT (subject) DO UPDATE SET version = event_streams.version + 1
+        RETURNING version INTO NEW.stream_version;
+
+        IF expected IS NOT NULL AND expected <> NEW.stream_version THEN
+            RAISE EXCEPTION 'Stream % is at version %, expected to append version %',
+                NEW.subject, NEW.stream_version - 1, expected
+                USING ERRCODE = 'unique_violation', CONSTRAINT = 'uq_events_subject_stream_version';
+        END IF;
+    END IF;
+
+    -- The transaction ID must exist before the position is drawn, see event_log_probe()
+    PERFORM pg_current_xact_id();
+    NEW.position := nextval('events_position_seq');
+    RETURN NEW;
+END;
+$$ LANGUAGE plpgsql;
+
+DROP TABLE IF EXISTS event_log_head;
+
+-- 3. Safe read bound
+-- Returns the last drawn position and, from a snapshot taken afterwards, its
+-- xmin and xmax. Every transaction that drew a position up to last_position
+-- had its transaction ID before that, so its ID is below snapshot_xmax. Once a
+-- later probe reports snapshot_xmin >= this snapshot_xmax, all of them have
+-- ended and every position up to last_position is final. Each statement of
+-- the function takes a fresh snapshot only under READ COMMITTED.
+CREATE OR REPLACE FUNCTION event_log_probe(OUT last_position BIGINT, OUT snapshot_xmin BIGINT,
+                                           OUT snapshot_xmax BIGINT) AS $$
+BEGIN
+    IF current_setting('transaction_isolation') <> 'read committed' THEN
+        RAISE EXCEPTION 'event_log_probe() requires READ COMMITTED, not %', current_setting('transaction_isolation');
+    END IF;
+
+    SELECT CASE WHEN is_called THEN last_value ELSE last_value - 1 END
+    INTO last_position
+    FROM events_position_seq;
+
+    SELECT pg_snapshot_xmin(s)::text::bigint, pg_snapshot_xmax(s)::text::bigint
+    INTO snapshot_xmin, snapshot_xmax
+    FROM pg_current_snapshot() s;
+END;
+$$ LANGUAGE plpgsql VOLATILE;
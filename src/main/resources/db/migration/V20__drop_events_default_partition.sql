@@ -0,0 +1,42 @@
+-- V20: Drop the default partition of events
+--
+-- Once a row had landed in events_default, creating the partition for its
+-- month failed (the new partition would overlap rows of the default one), so
+-- EventPartitionManager could never prepare that month again. The default
+-- partition also rules out DETACH PARTITION ... CONCURRENTLY.
+--
+-- Rows already in events_default are moved into their monthly partitions,
+-- keeping their positions and stream versions. Without a default partition an
+-- event whose created_at lies outside the prepared months is rejected with
+-- "no partition of relation events found for row" instead of being stored
+-- somewhere maintenance cannot handle. created_at comes from the JVM clock and
+-- EventPartitionManager prepares premake-months ahead, so this only happens
+-- with a badly skewed clock or when partition maintenance has stopped.
+
+ALTER TABLE events DETACH PARTITION events_default;
+
+DO $$
+DECLARE
+    month DATE;
+BEGIN
+    FOR month IN
+        SELECT DISTINCT date_trunc('month', created_at AT TIME ZONE 'UTC')::date FROM events_default
+    LOOP
+        PERFORM create_events_partition(month);
+    END LOOP;
+END $$;
+
+-- The rows keep what the triggers assigned when they were first inserted
+ALTER TABLE events DISABLE TRIGGER trg_assign_event_position;
+ALTER TABLE events DISABLE TRIGGER trg_notify_event;
+
+INSERT INTO events (id, source, specversion, type, subject, time, datacontenttype, dataschema, data,
+                    processed_at, created_at, failed_at, retry_count, error_message, position, stream_version)
+SELECT id, source, specversion, type, subject, time, datacontenttype, dataschema, data,
+       processed_at, created_at, failed_at, retry_count, error_message, position, stream_version
+FROM events_default;
+
+ALTER TABLE events ENABLE TRIGGER trg_assign_event_position;
+ALTER TABLE events ENABLE TRIGGER trg_notify_event;
+
+DROP TABLE events_default;
@@ -0,0 +1,52 @@
+-- V21: Event ID uniqueness through a global ID table
+--
+-- Since V19 the insert trigger took one advisory lock per row to serialize
+-- inserts of the same ID and then probed events for it. Advisory locks live in
+-- the shared lock table until commit, so a bulk import of a few thousand rows
+-- in one transaction ran out of shared memory. The probe could not be pruned
+-- (created_at of an existing row is unknown), so every insert searched the
+-- primary key index of every partition.
+--
+-- event_ids is not partitioned and has a primary key on the ID alone. The
+-- trigger claims the ID with INSERT ... ON CONFLICT DO NOTHING: a concurrent
+-- insert of the same ID waits on that index entry for the first transaction
+-- and is then skipped. IDs stay in event_ids after their events are deleted,
+-- archived or detached, so a resent event is still recognized as a duplicate.
+-- The table grows by one UUID per stored event.
+
+CREATE TABLE IF NOT EXISTS event_ids (
+    id UUID PRIMARY KEY
+);
+INSERT INTO event_ids (id) SELECT id FROM events ON CONFLICT DO NOTHING;
+
+CREATE OR REPLACE FUNCTION assign_event_position() RETURNS TRIGGER AS $$
+DECLARE
+    expected BIGINT := NEW.stream_version;
+BEGIN
+    -- Duplicate ID: skip the row (as ON CONFLICT DO NOTHING would) without burning a position.
+    -- Waits for a concurrent insert of the same ID to commit or roll back; rows inserted
+    -- earlier by the same statement are found as well.
+    INSERT INTO event_ids (id) VALUES (NEW.id) ON CONFLICT DO NOTHING;
+    IF NOT FOUND THEN
+        RETURN NULL;
+    END IF;
+
+    NEW.stream_version := NULL;
+    IF NEW.subject IS NOT NULL THEN
+        INSERT INTO event_streams (subject, version) VALUES (NEW.subject, 1)
+        ON CONFLICT (subject) DO UPDATE SET version = event_streams.version + 1
+        RETURNING version INTO NEW.stream_version;
+
+        IF expected IS NOT NULL AND expected <> NEW.stream_version THEN
+            RAISE EXCEPTION 'Stream % is at version %, expected to append version %',
+                NEW.subject, NEW.stream_version - 1, expected
+                USING ERRCODE = 'unique_violation', CONSTRAINT = 'uq_events_subject_stream_version';
+        END IF;
+    END IF;
+
+    -- The transaction ID must exist before the position is drawn, see event_log_probe() (V19)
+    PERFORM pg_current_xact_id();
+    NEW.position := nextval('events_position_seq');
+    RETURN NEW;
+END;
+$$ LANGUAGE plpgsql;
@@ -0,0 +1,14 @@
+-- V22: Dead-letter entries reference a stored event again
+--
+-- V16 dropped the foreign key to events(id), because a partitioned events
+-- table cannot have a unique key on id alone. event_ids (V21) holds every
+-- stored ID, so the dead-letter queue references it instead: an entry can
+-- only be written for an event that was actually stored. IDs are never
+-- removed from event_ids, so deleting, archiving or detaching the event keeps
+-- its dead-letter entry until the retention job purges it by age.
+
+-- Entries whose event was deleted before V21 still name a real, stored event
+INSERT INTO event_ids (id) SELECT event_id FROM events_dead_letter ON CONFLICT DO NOTHING;
+
+ALTER TABLE events_dead_letter
+    ADD CONSTRAINT events_dead_letter_event_id_fkey FOREIGN KEY (event_id) REFERENCES event_ids(id);
@@ -0,0 +1,12 @@
+-- V23: Index the created_at window of type and subject queries
+--
+-- V14 replaced the (type, created_at, id) and (subject, created_at, id)
+-- indexes with (type, position) and (subject, position), which serve the keyset
+-- pages but not their from/to window: a window late in a long stream walked
+-- every earlier event of the type or subject in the pruned partitions.
+-- created_at does not follow position (JVM clocks), so the queries look up the
+-- smallest position inside the window here and seek to it on (attribute, position).
+-- INCLUDE (position) answers that lookup from the index alone.
+
+CREATE INDEX IF NOT EXISTS idx_events_type_created_at ON events(type, created_at) INCLUDE (position);
+CREATE INDEX IF NOT EXISTS idx_events_subject_created_at ON events(subject, created_at) INCLUDE (position);
@@ -0,0 +1,32 @@
+package space.maatini.eventsourcing.dto;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for EventCursor encoding.
+ */
+class EventCursorTest {
+
+    @Test
+    @DisplayName("Encoded cursor decodes to the same position")
+    void roundTrip() {
+        EventCursor cursor = new EventCursor(123456789L);
+
+        String token = cursor.encode();
+
+        assertFalse(token.contains("123456789"), "Token should be opaque");
+        assertEquals(cursor, EventCursor.decode(token));
+    }
+
+    @Test
+    @DisplayName("Garbage tokens are rejected")
+    void invalidToken_throws() {
+        assertThrows(IllegalArgumentException.class, () -> EventCursor.decode("not a cursor!"));
+        assertThrows(IllegalArgumentException.class, () -> EventCursor.decode("bm8tc2VwYXJhdG9y"));
+        assertThrows(IllegalArgumentException.class, () -> EventCursor.decode(
+                new EventCursor(123456789L).encode().substring(4)));
+    }
+}
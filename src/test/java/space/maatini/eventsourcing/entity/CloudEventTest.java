@@ -0,0 +1,87 @@
+package space.maatini.eventsourcing.entity;
+
+import io.vertx.core.json.JsonObject;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for the raw payload handling and the insert order of CloudEvent.
+ */
+class CloudEventTest {
+
+    @Test
+    @DisplayName("Raw payload is decoded lazily and only once")
+    void rawData_decodedOnceAndCached() {
+        CloudEvent event = new CloudEvent();
+        event.setRawData("{\"id\":\"v001\",\"name\":\"Max\"}");
+
+        JsonObject first = event.getData();
+        assertEquals("v001", first.getString("id"));
+        assertSame(first, event.getData());
+    }
+
+    @Test
+    @DisplayName("Replacing the raw payload invalidates the decoded one")
+    void setRawData_invalidatesCache() {
+        CloudEvent event = new CloudEvent();
+        event.setRawData("{\"id\":\"v001\"}");
+        event.getData();
+
+        event.setRawData("{\"id\":\"v002\"}");
+
+        assertEquals("v002", event.getData().getString("id"));
+    }
+
+    @Test
+    @DisplayName("setData encodes once and keeps the given object")
+    void setData_encodesAndCaches() {
+        CloudEvent event = new CloudEvent();
+        JsonObject data = new JsonObject().put("id", "v003");
+
+        event.setData(data);
+
+        assertEquals("{\"id\":\"v003\"}", event.getRawData());
+        assertSame(data, event.getData());
+    }
+
+    @Test
+    @DisplayName("Missing payload stays null")
+    void nullData() {
+        CloudEvent event = new CloudEvent();
+        event.setData(null);
+
+        assertNull(event.getRawData());
+        assertNull(event.getData());
+    }
+
+    @Test
+    @DisplayName("Inserts go in subject order, keep each subject's order and put events without a subject last by ID")
+    void insertOrder_bySubjectThenInputOrder() {
+        UUID low = new UUID(0, 1);
+        UUID high = new UUID(0, 2);
+        CloudEvent b1 = event(UUID.randomUUID(), "b");
+        CloudEvent a1 = event(UUID.randomUUID(), "a");
+        CloudEvent none2 = event(high, null);
+        CloudEvent b2 = event(new UUID(0, 0), "b");
+        CloudEvent none1 = event(low, null);
+        CloudEvent a2 = event(new UUID(0, 0), "a");
+        List<CloudEvent> rows = new ArrayList<>(List.of(b1, a1, none2, b2, none1, a2));
+
+        rows.sort(CloudEvent.INSERT_ORDER);
+
+        assertEquals(List.of(a1, a2, b1, b2, none1, none2), rows);
+    }
+
+    private static CloudEvent event(UUID id, String subject) {
+        CloudEvent event = new CloudEvent();
+        event.setId(id);
+        event.setSubject(subject);
+        return event;
+    }
+}
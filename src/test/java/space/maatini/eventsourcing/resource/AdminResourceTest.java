@@ -173,15 +173,174 @@ class AdminResourceTest {
     @Test
     @DisplayName("POST /admin/replay?fromEventId=... - Replay with filter parameter")
     void replayAll_withFromEventId() {
+        String eventId = UUID.randomUUID().toString();
+        String vertreterId = "replay-from-" + eventId.substring(0, 8);
         given()
-                .queryParam("fromEventId", UUID.randomUUID().toString())
+                .contentType(ContentType.JSON)
+                .body("""
+                        {
+                            "id": "%s",
+                            "source": "/test-service",
+                            "type": "space.maatini.vertreter.created",
+                            "data": {"id": "%s", "name": "Replay From", "email": "replay-from@test.com"}
+                        }
+                        """.formatted(eventId, vertreterId))
+                .when()
+                .post(EVENTS_PATH)
+                .then()
+                .statusCode(201);
+
+        given()
+                .queryParam("fromEventId", eventId)
                 .when()
                 .post(ADMIN_PATH + "/replay")
                 .then()
                 .statusCode(200)
-                .body("eventsReplayed", greaterThanOrEqualTo(0));
+                .body("eventsReplayed", greaterThanOrEqualTo(1));
 
         // IMPORTANT: drain ALL events to rebuild aggregates for other test classes
         drainAllEvents();
     }
+
+    @Test
+    @DisplayName("POST /admin/replay?fromEventId=... - Unknown event IDs are rejected")
+    void replayAll_withUnknownFromEventId_returns400() {
+        given()
+                .queryParam("fromEventId", UUID.randomUUID().toString())
+                .when()
+                .post(ADMIN_PATH + "/replay")
+                .then()
+                .statusCode(400);
+    }
+
+    @Test
+    @DisplayName("POST /admin/import - NDJSON import skips duplicates and rejects incomplete rows")
+    void importNdjson_reportsCounts() {
+        String existing = UUID.randomUUID().toString();
+        String fresh = UUID.randomUUID().toString();
+        String vertreterId = "import-" + fresh.substring(0, 8);
+
+        given()
+                .contentType(ContentType.JSON)
+                .body(importEvent(existing, "import-existing"))
+                .when()
+                .post(EVENTS_PATH)
+                .then()
+                .statusCode(201);
+
+        String body = importEvent(existing, "import-existing") + "\n"
+                + importEvent(fresh, vertreterId) + "\n"
+                + "{\"id\": \"%s\", \"source\": \"/test-service\", \"data\": {}}\n".formatted(UUID.randomUUID());
+
+        given()
+                .contentType("application/x-ndjson")
+                .body(body)
+                .when()
+                .post(ADMIN_PATH + "/import")
+                .then()
+                .statusCode(200)
+                .body("rows", equalTo(3))
+                .body("created", equalTo(1))
+                .body("duplicates", equalTo(1))
+                .body("rejected", equalTo(1));
+
+        given().get(EVENTS_PATH + "/" + fresh).then().statusCode(200)
+                .body("data.name", equalTo("Import Test"));
+
+        drainAllEvents();
+        given().get(AGGREGATES_PATH + "/" + vertreterId).then().statusCode(200);
+    }
+
+    @Test
+    @DisplayName("POST /admin/import - An import of more than 10k events runs in one transaction")
+    void importNdjson_large() {
+        int count = 12_000;
+        StringBuilder body = new StringBuilder();
+        for (int i = 0; i < count; i++) {
+            body.append("{\"id\": \"%s\", \"source\": \"/test-service\", \"type\": \"de.test.bulk\", \"subject\": \"bulk-%d\", \"data\": {\"n\": %d}}\n"
+                    .formatted(UUID.randomUUID(), i % 50, i));
+        }
+
+        given()
+                .contentType("application/x-ndjson")
+                .body(body.toString())
+                .when()
+                .post(ADMIN_PATH + "/import")
+                .then()
+                .statusCode(200)
+                .body("rows", equalTo(count))
+                .body("created", equalTo(count))
+                .body("duplicates", equalTo(0));
+
+        given().get(EVENTS_PATH + "/subject/bulk-7?limit=1000").then().statusCode(200)
+                .body("size()", equalTo(count / 50))
+                .body("[0].streamVersion", equalTo(1))
+                .body("[0].data.n", equalTo(7))
+                .body("[239].streamVersion", equalTo(count / 50));
+    }
+
+    @Test
+    @DisplayName("POST /admin/import - Uploads above the regular 10 MB body limit are accepted")
+    void importNdjson_aboveBodyLimit() {
+        String padding = "x".repeat(4000);
+        int count = 3000;
+        StringBuilder body = new StringBuilder();
+        for (int i = 0; i < count; i++) {
+            body.append("{\"id\": \"%s\", \"source\": \"/test-service\", \"type\": \"de.test.large\", \"data\": {\"pad\": \"%s\"}}\n"
+                    .formatted(UUID.randomUUID(), padding));
+        }
+
+        given()
+                .contentType("application/x-ndjson")
+                .body(body.toString())
+                .when()
+                .post(ADMIN_PATH + "/import")
+                .then()
+                .statusCode(200)
+                .body("created", equalTo(count));
+    }
+
+    @Test
+    @DisplayName("POST /admin/import - CSV import stores events")
+    void importCsv_storesEvents() {
+        String id = UUID.randomUUID().toString();
+
+        given()
+                .contentType("text/csv")
+                .body("""
+                        id,source,specversion,type,subject,time,datacontenttype,dataschema,data
+                        %s,/test-service,1.0,space.maatini.vertreter.created,csv-1,2024-01-01T00:00:00Z,,,"{""id"": ""csv-1"", ""name"": ""Csv Import"", ""email"": ""csv@test.com""}"
+                        """.formatted(id))
+                .when()
+                .post(ADMIN_PATH + "/import")
+                .then()
+                .statusCode(200)
+                .body("created", equalTo(1));
+
+        given().get(EVENTS_PATH + "/" + id).then().statusCode(200)
+                .body("subject", equalTo("csv-1"))
+                .body("datacontenttype", equalTo("application/json"));
+    }
+
+    @Test
+    @DisplayName("POST /admin/import - Malformed input returns 400 and imports nothing")
+    void importNdjson_malformed_returns400() {
+        String id = UUID.randomUUID().toString();
+
+        given()
+                .contentType("application/x-ndjson")
+                .body(importEvent(id, "import-bad") + "\n{not json\n")
+                .when()
+                .post(ADMIN_PATH + "/import")
+                .then()
+                .statusCode(400)
+                .body("error", equalTo("Import failed"));
+
+        given().get(EVENTS_PATH + "/" + id).then().statusCode(404);
+    }
+
+    private String importEvent(String eventId, String vertreterId) {
+        return "{\"id\": \"%s\", \"source\": \"/test-service\", \"type\": \"space.maatini.vertreter.created\", \"data\": {\"id\": \"%s\", \"name\": \"Import Test\", \"email\": \"%s@test.com\"}}"
+                .formatted(eventId, vertreterId, vertreterId);
+    }
 }
@@ -2,14 +2,22 @@ package space.maatini.eventsourcing.resource;
 
 import io.quarkus.test.junit.QuarkusTest;
 import io.restassured.http.ContentType;
+import io.restassured.path.json.JsonPath;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Nested;
 import org.junit.jupiter.api.Test;
 
+import java.util.ArrayList;
+import java.util.List;
 import java.util.UUID;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
 
 import static io.restassured.RestAssured.given;
 import static org.hamcrest.CoreMatchers.*;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
 
 import static org.hamcrest.Matchers.greaterThanOrEqualTo;
 
@@ -81,6 +89,25 @@ class EventResourceTest {
                     .body("id", equalTo(eventId));
         }
 
+        @Test
+        @DisplayName("POST /events - Concurrent duplicates never return 409")
+        void concurrentDuplicates_areIdempotent() {
+            String eventJson = createValidEvent(UUID.randomUUID().toString(), "test-concurrent");
+
+            List<Integer> statuses = IntStream.range(0, 8).parallel()
+                    .mapToObj(i -> given()
+                            .contentType(ContentType.JSON)
+                            .body(eventJson)
+                            .when()
+                            .post(EVENTS_PATH)
+                            .then()
+                            .extract().statusCode())
+                    .toList();
+
+            assertEquals(1, statuses.stream().filter(s -> s == 201).count(), "Statuses: " + statuses);
+            assertTrue(statuses.stream().allMatch(s -> s == 200 || s == 201), "Statuses: " + statuses);
+        }
+
         @Test
         @DisplayName("GET /events/{id} - Get existing event returns 200")
         void getExistingEvent_returns200() {
@@ -516,6 +543,639 @@ class EventResourceTest {
         }
     }
 
+    // ==================== BATCH TESTS ====================
+
+    @Nested
+    @DisplayName("Batch Ingestion")
+    class BatchIngestion {
+
+        @Test
+        @DisplayName("POST /events/batch - New events are created")
+        void batchOfNewEvents_returnsCreated() {
+            String first = UUID.randomUUID().toString();
+            String second = UUID.randomUUID().toString();
+
+            given()
+                    .contentType(ContentType.JSON)
+                    .body("[%s, %s]".formatted(createValidEvent(first, "batch-1"), createValidEvent(second, "batch-2")))
+                    .when()
+                    .post(EVENTS_PATH + "/batch")
+                    .then()
+                    .statusCode(200)
+                    .body("created", equalTo(2))
+                    .body("duplicates", equalTo(0))
+                    .body("results[0].id", equalTo(first))
+                    .body("results[0].status", equalTo("CREATED"))
+                    .body("results[1].id", equalTo(second));
+
+            given()
+                    .when()
+                    .get(EVENTS_PATH + "/" + second)
+                    .then()
+                    .statusCode(200)
+                    .body("data.id", equalTo("batch-2"));
+        }
+
+        @Test
+        @DisplayName("POST /events/batch - Existing and repeated IDs are reported as duplicates")
+        void batchWithDuplicates_reportsDuplicates() {
+            String existing = UUID.randomUUID().toString();
+            String repeated = UUID.randomUUID().toString();
+
+            given()
+                    .contentType(ContentType.JSON)
+                    .body(createValidEvent(existing, "batch-existing"))
+                    .when()
+                    .post(EVENTS_PATH)
+                    .then()
+                    .statusCode(201);
+
+            given()
+                    .contentType(ContentType.JSON)
+                    .body("[%s, %s, %s]".formatted(
+                            createValidEvent(existing, "batch-existing"),
+                            createValidEvent(repeated, "batch-repeated"),
+                            createValidEvent(repeated, "batch-repeated")))
+                    .when()
+                    .post(EVENTS_PATH + "/batch")
+                    .then()
+                    .statusCode(200)
+                    .body("created", equalTo(1))
+                    .body("duplicates", equalTo(2))
+                    .body("results[0].status", equalTo("DUPLICATE"))
+                    .body("results[1].status", equalTo("CREATED"))
+                    .body("results[2].status", equalTo("DUPLICATE"));
+        }
+
+        @Test
+        @DisplayName("POST /events/batch - CloudEvents batch content type is accepted")
+        void cloudEventsBatchContentType_accepted() {
+            given()
+                    .contentType(EventResource.CLOUDEVENTS_BATCH_JSON)
+                    .body("[%s]".formatted(createValidEvent(UUID.randomUUID().toString(), "batch-ce")))
+                    .when()
+                    .post(EVENTS_PATH + "/batch")
+                    .then()
+                    .statusCode(200)
+                    .body("created", equalTo(1));
+        }
+
+        @Test
+        @DisplayName("POST /events/batch - One invalid event rejects the batch")
+        void invalidEventInBatch_returns400() {
+            given()
+                    .contentType(ContentType.JSON)
+                    .body("""
+                            [%s, {"id": "%s", "source": "/test-service", "data": {"id": "v1"}}]
+                            """.formatted(createValidEvent(UUID.randomUUID().toString(), "batch-ok"), UUID.randomUUID()))
+                    .when()
+                    .post(EVENTS_PATH + "/batch")
+                    .then()
+                    .statusCode(400)
+                    .body("error", equalTo("Validation failed"));
+        }
+
+        @Test
+        @DisplayName("POST /events/batch - Empty batch returns 400")
+        void emptyBatch_returns400() {
+            given()
+                    .contentType(ContentType.JSON)
+                    .body("[]")
+                    .when()
+                    .post(EVENTS_PATH + "/batch")
+                    .then()
+                    .statusCode(400);
+        }
+    }
+
+    @Nested
+    @DisplayName("Streaming Ingestion")
+    class StreamIngestion {
+
+        private static final String NDJSON = "application/x-ndjson";
+
+        @Test
+        @DisplayName("POST /events/stream - Events are stored and acknowledged")
+        void ndjsonStream_storesEvents() {
+            String first = UUID.randomUUID().toString();
+            String second = UUID.randomUUID().toString();
+
+            List<String> acks = given()
+                    .contentType(NDJSON)
+                    .body(ndjson(createValidEvent(first, "stream-1"), createValidEvent(second, "stream-2")))
+                    .when()
+                    .post(EVENTS_PATH + "/stream")
+                    .then()
+                    .statusCode(200)
+                    .extract().asString().lines().toList();
+
+            assertEquals(1, acks.size());
+            JsonPath ack = JsonPath.from(acks.get(0));
+            assertEquals(1, ack.getInt("chunk"));
+            assertEquals(2, ack.getInt("created"));
+            assertEquals(0, ack.getInt("duplicates"));
+
+            given()
+                    .when()
+                    .get(EVENTS_PATH + "/" + second)
+                    .then()
+                    .statusCode(200)
+                    .body("data.id", equalTo("stream-2"));
+        }
+
+        @Test
+        @DisplayName("POST /events/stream - Invalid lines are rejected, the rest is stored")
+        void invalidLines_areReportedAndSkipped() {
+            String valid = UUID.randomUUID().toString();
+
+            String body = ndjson(
+                    "{not json",
+                    "{\"id\": \"%s\", \"source\": \"/test-service\", \"data\": {}}".formatted(UUID.randomUUID()),
+                    createValidEvent(valid, "stream-valid"));
+
+            String ack = given()
+                    .contentType(NDJSON)
+                    .body(body)
+                    .when()
+                    .post(EVENTS_PATH + "/stream")
+                    .then()
+                    .statusCode(200)
+                    .extract().asString().lines().findFirst().orElseThrow();
+
+            JsonPath json = JsonPath.from(ack);
+            assertEquals(1, json.getInt("created"));
+            assertEquals(1, json.getInt("rejected[0].line"));
+            assertEquals(2, json.getInt("rejected[1].line"));
+            assertTrue(json.getString("rejected[1].error").contains("type"));
+
+            given().get(EVENTS_PATH + "/" + valid).then().statusCode(200);
+        }
+
+        @Test
+        @DisplayName("POST /events/stream - Re-sent events are counted as duplicates")
+        void resentStream_isIdempotent() {
+            String body = ndjson(createValidEvent(UUID.randomUUID().toString(), "stream-dup"));
+
+            given().contentType(NDJSON).body(body).post(EVENTS_PATH + "/stream").then().statusCode(200);
+
+            String ack = given()
+                    .contentType(NDJSON)
+                    .body(body)
+                    .when()
+                    .post(EVENTS_PATH + "/stream")
+                    .then()
+                    .statusCode(200)
+                    .extract().asString().lines().findFirst().orElseThrow();
+
+            assertEquals(0, JsonPath.from(ack).getInt("created"));
+            assertEquals(1, JsonPath.from(ack).getInt("duplicates"));
+        }
+
+        @Test
+        @DisplayName("POST /events/stream - Uploads above the regular 10 MB body limit are accepted")
+        void largeStream_isAccepted() {
+            String padding = "x".repeat(4000);
+            int count = 3000;
+            StringBuilder body = new StringBuilder();
+            for (int i = 0; i < count; i++) {
+                body.append("{\"id\": \"%s\", \"source\": \"/test-service\", \"type\": \"de.test.large\", \"data\": {\"pad\": \"%s\"}}\n"
+                        .formatted(UUID.randomUUID(), padding));
+            }
+            assertTrue(body.length() > 10 * 1024 * 1024);
+
+            List<String> acks = given()
+                    .contentType(NDJSON)
+                    .body(body.toString())
+                    .when()
+                    .post(EVENTS_PATH + "/stream")
+                    .then()
+                    .statusCode(200)
+                    .extract().asString().lines().toList();
+
+            assertEquals(count, acks.stream().mapToInt(ack -> JsonPath.from(ack).getInt("created")).sum());
+        }
+
+        @Test
+        @DisplayName("POST /events/batch - Bodies above the regular body limit are rejected with 413")
+        void largeBatch_returns413() {
+            String padding = "x".repeat(11 * 1024 * 1024);
+
+            given()
+                    .contentType(ContentType.JSON)
+                    .body("[" + createValidEvent(UUID.randomUUID().toString(), padding) + "]")
+                    .when()
+                    .post(EVENTS_PATH + "/batch")
+                    .then()
+                    .statusCode(413)
+                    .body("error", equalTo("Request too large"));
+        }
+
+        private String ndjson(String... events) {
+            return Stream.of(events)
+                    .map(event -> event.replace("\n", "") + "\n")
+                    .collect(Collectors.joining());
+        }
+    }
+
+    @Nested
+    @DisplayName("Binary Content Mode")
+    class BinaryContentMode {
+
+        @Test
+        @DisplayName("POST /events with ce-* headers - Event is created from headers and raw body")
+        void binaryEvent_returnsCreated() {
+            String eventId = UUID.randomUUID().toString();
+
+            given()
+                    .contentType(ContentType.JSON)
+                    .header("ce-id", eventId)
+                    .header("ce-source", "/gateway")
+                    .header("ce-specversion", "1.0")
+                    .header("ce-type", "space.maatini.vertreter.updated")
+                    .header("ce-subject", "binary-1")
+                    .header("ce-time", "2024-01-15T10:30:00Z")
+                    .body("{\"id\": \"binary-1\", \"name\": \"Binary Vertreter\", \"tags\": [1, 2]}")
+                    .when()
+                    .post(EVENTS_PATH)
+                    .then()
+                    .statusCode(201)
+                    .header("Location", containsString("/events/" + eventId))
+                    .body("id", equalTo(eventId))
+                    .body("source", equalTo("/gateway"))
+                    .body("subject", equalTo("binary-1"))
+                    .body("datacontenttype", equalTo("application/json"));
+
+            given()
+                    .when()
+                    .get(EVENTS_PATH + "/" + eventId)
+                    .then()
+                    .statusCode(200)
+                    .body("data.name", equalTo("Binary Vertreter"))
+                    .body("data.tags[1]", equalTo(2));
+        }
+
+        @Test
+        @DisplayName("POST /events with ce-* headers - Duplicate returns 200")
+        void binaryDuplicate_returns200() {
+            String eventId = UUID.randomUUID().toString();
+
+            for (int expected : new int[] { 201, 200 }) {
+                given()
+                        .contentType(ContentType.JSON)
+                        .header("ce-id", eventId)
+                        .header("ce-source", "/gateway")
+                        .header("ce-type", "space.maatini.vertreter.updated")
+                        .body("{\"id\": \"binary-dup\"}")
+                        .when()
+                        .post(EVENTS_PATH)
+                        .then()
+                        .statusCode(expected)
+                        .body("id", equalTo(eventId));
+            }
+        }
+
+        @Test
+        @DisplayName("POST /events with ce-* headers - Missing ce-type returns 400")
+        void binaryMissingType_returns400() {
+            given()
+                    .contentType(ContentType.JSON)
+                    .header("ce-id", UUID.randomUUID().toString())
+                    .header("ce-source", "/gateway")
+                    .body("{\"id\": \"binary-invalid\"}")
+                    .when()
+                    .post(EVENTS_PATH)
+                    .then()
+                    .statusCode(400)
+                    .body("error", equalTo("Validation failed"));
+        }
+
+        @Test
+        @DisplayName("POST /events with ce-* headers - Non-object body returns 400")
+        void binaryMalformedBody_returns400() {
+            given()
+                    .contentType(ContentType.JSON)
+                    .header("ce-id", UUID.randomUUID().toString())
+                    .header("ce-source", "/gateway")
+                    .header("ce-type", "space.maatini.vertreter.updated")
+                    .body("{\"id\": ")
+                    .when()
+                    .post(EVENTS_PATH)
+                    .then()
+                    .statusCode(400)
+                    .body("error", equalTo("Invalid event data"));
+        }
+
+        @Test
+        @DisplayName("POST /events with ce-* headers - Non-JSON content type returns 415")
+        void binaryNonJsonContent_returns415() {
+            given()
+                    .contentType("text/plain")
+                    .header("ce-id", UUID.randomUUID().toString())
+                    .header("ce-source", "/gateway")
+                    .header("ce-type", "space.maatini.vertreter.updated")
+                    .body("hello")
+                    .when()
+                    .post(EVENTS_PATH)
+                    .then()
+                    .statusCode(415);
+        }
+    }
+
+    @Nested
+    @DisplayName("Pagination")
+    class Pagination {
+
+        @Test
+        @DisplayName("GET /events/subject/{subject} - Pages follow the cursor until exhausted")
+        void subjectPages_followCursor() {
+            String subject = "paged-" + UUID.randomUUID();
+            for (int i = 0; i < 5; i++) {
+                given()
+                        .contentType(ContentType.JSON)
+                        .body(createValidEventWithSubject(UUID.randomUUID().toString(), "paged-" + i, subject))
+                        .post(EVENTS_PATH)
+                        .then()
+                        .statusCode(201);
+            }
+
+            List<String> seen = new ArrayList<>();
+            String cursor = null;
+            int pages = 0;
+            do {
+                var request = given().queryParam("limit", 2);
+                if (cursor != null) {
+                    request.queryParam("after", cursor);
+                }
+                var response = request.get(EVENTS_PATH + "/subject/" + subject).then().statusCode(200).extract();
+                seen.addAll(response.jsonPath().getList("id"));
+                cursor = response.header(EventResource.NEXT_CURSOR_HEADER);
+                pages++;
+            } while (cursor != null && pages < 10);
+
+            assertEquals(3, pages);
+            assertEquals(5, seen.size());
+            assertEquals(5, seen.stream().distinct().count());
+        }
+
+        @Test
+        @DisplayName("GET /events/type/{type} - Last page has no cursor")
+        void typeSinglePage_hasNoCursor() {
+            String type = "de.test.paged." + UUID.randomUUID();
+            given()
+                    .contentType(ContentType.JSON)
+                    .body("""
+                            {"id": "%s", "source": "/test-service", "type": "%s", "data": {"id": "t1"}}
+                            """.formatted(UUID.randomUUID(), type))
+                    .post(EVENTS_PATH)
+                    .then()
+                    .statusCode(201);
+
+            given()
+                    .queryParam("limit", 10)
+                    .when()
+                    .get(EVENTS_PATH + "/type/" + type)
+                    .then()
+                    .statusCode(200)
+                    .body("size()", is(1))
+                    .header(EventResource.NEXT_CURSOR_HEADER, is(nullValue()));
+        }
+
+        @Test
+        @DisplayName("GET /events/type/{type} - Time range excludes events outside it")
+        void timeRange_filters() {
+            String type = "de.test.range." + UUID.randomUUID();
+            given()
+                    .contentType(ContentType.JSON)
+                    .body("""
+                            {"id": "%s", "source": "/test-service", "type": "%s", "data": {"id": "r1"}}
+                            """.formatted(UUID.randomUUID(), type))
+                    .post(EVENTS_PATH)
+                    .then()
+                    .statusCode(201);
+
+            given()
+                    .queryParam("to", "2000-01-01T00:00:00Z")
+                    .when()
+                    .get(EVENTS_PATH + "/type/" + type)
+                    .then()
+                    .statusCode(200)
+                    .body("size()", is(0));
+
+            given()
+                    .queryParam("from", "2000-01-01T00:00:00Z")
+                    .when()
+                    .get(EVENTS_PATH + "/type/" + type)
+                    .then()
+                    .statusCode(200)
+                    .body("size()", is(1));
+            given()
+                    .queryParam("from", "2100-01-01T00:00:00Z")
+                    .when()
+                    .get(EVENTS_PATH + "/type/" + type)
+                    .then()
+                    .statusCode(200)
+                    .body("size()", is(0));
+        }
+
+        @Test
+        @DisplayName("GET /events/type/{type} - Invalid cursor returns 400")
+        void invalidCursor_returns400() {
+            given()
+                    .queryParam("after", "garbage")
+                    .when()
+                    .get(EVENTS_PATH + "/type/anything")
+                    .then()
+                    .statusCode(400)
+                    .body("error", equalTo("Invalid cursor"));
+        }
+
+        @Test
+        @DisplayName("GET /events/type/{type} - Limit above maximum returns 400")
+        void limitTooLarge_returns400() {
+            given()
+                    .queryParam("limit", 1001)
+                    .when()
+                    .get(EVENTS_PATH + "/type/anything")
+                    .then()
+                    .statusCode(400);
+        }
+    }
+
+    @Nested
+    @DisplayName("Streaming Reads")
+    class StreamingReads {
+
+        @Test
+        @DisplayName("GET /events/subject/{subject} with Accept NDJSON - One event per line")
+        void subjectAsNdjson_streamsAllEvents() {
+            String subject = "streamed-" + UUID.randomUUID();
+            for (int i = 0; i < 3; i++) {
+                given()
+                        .contentType(ContentType.JSON)
+                        .body(createValidEventWithSubject(UUID.randomUUID().toString(), "streamed-" + i, subject))
+                        .post(EVENTS_PATH)
+                        .then()
+                        .statusCode(201);
+            }
+
+            List<String> lines = given()
+                    .accept("application/x-ndjson")
+                    .when()
+                    .get(EVENTS_PATH + "/subject/" + subject)
+                    .then()
+                    .statusCode(200)
+                    .contentType(containsString("application/x-ndjson"))
+                    .extract().asString().lines().filter(line -> !line.isBlank()).toList();
+
+            assertEquals(3, lines.size());
+            assertEquals("streamed-0", JsonPath.from(lines.get(0)).getString("data.id"));
+            assertEquals(subject, JsonPath.from(lines.get(2)).getString("subject"));
+        }
+
+        @Test
+        @DisplayName("GET /events/subject/{subject} with Accept NDJSON - Time window seeks into the stream")
+        void subjectStream_timeWindow() {
+            String subject = "windowed-" + UUID.randomUUID();
+            for (int i = 0; i < 3; i++) {
+                given()
+                        .contentType(ContentType.JSON)
+                        .body(createValidEventWithSubject(UUID.randomUUID().toString(), "windowed-" + i, subject))
+                        .post(EVENTS_PATH)
+                        .then()
+                        .statusCode(201);
+            }
+
+            List<String> inWindow = given()
+                    .accept("application/x-ndjson")
+                    .queryParam("from", "2000-01-01T00:00:00Z")
+                    .queryParam("to", "2100-01-01T00:00:00Z")
+                    .when()
+                    .get(EVENTS_PATH + "/subject/" + subject)
+                    .then()
+                    .statusCode(200)
+                    .extract().asString().lines().filter(line -> !line.isBlank()).toList();
+            String afterWindow = given()
+                    .accept("application/x-ndjson")
+                    .queryParam("from", "2100-01-01T00:00:00Z")
+                    .when()
+                    .get(EVENTS_PATH + "/subject/" + subject)
+                    .then()
+                    .statusCode(200)
+                    .extract().asString();
+
+            assertEquals(3, inWindow.size());
+            assertEquals("windowed-0", JsonPath.from(inWindow.get(0)).getString("data.id"));
+            assertTrue(afterWindow.isBlank(), afterWindow);
+        }
+
+        @Test
+        @DisplayName("GET /events/type/{type} with Accept text/event-stream - Events as SSE")
+        void typeAsSse_streamsEvents() {
+            String type = "de.test.sse." + UUID.randomUUID();
+            String eventId = UUID.randomUUID().toString();
+            given()
+                    .contentType(ContentType.JSON)
+                    .body("""
+                            {"id": "%s", "source": "/test-service", "type": "%s", "data": {"id": "sse-1"}}
+                            """.formatted(eventId, type))
+                    .post(EVENTS_PATH)
+                    .then()
+                    .statusCode(201);
+
+            String body = given()
+                    .accept("text/event-stream")
+                    .when()
+                    .get(EVENTS_PATH + "/type/" + type)
+                    .then()
+                    .statusCode(200)
+                    .contentType(containsString("text/event-stream"))
+                    .extract().asString();
+
+            assertTrue(body.contains("data:"), body);
+            assertTrue(body.contains(eventId), body);
+        }
+
+        @Test
+        @DisplayName("GET /events/type/{type} without streaming Accept - Still a JSON array")
+        void defaultAccept_returnsJsonArray() {
+            given()
+                    .when()
+                    .get(EVENTS_PATH + "/type/unknown-" + UUID.randomUUID())
+                    .then()
+                    .statusCode(200)
+                    .contentType(ContentType.JSON)
+                    .body("size()", is(0));
+        }
+
+        @Test
+        @DisplayName("GET /events/type/{type}/stream - Invalid cursor returns 400")
+        void invalidCursor_returns400() {
+            given()
+                    .accept("application/x-ndjson")
+                    .queryParam("after", "garbage")
+                    .when()
+                    .get(EVENTS_PATH + "/type/anything/stream")
+                    .then()
+                    .statusCode(400);
+        }
+    }
+
+    @Nested
+    @DisplayName("Log Position")
+    class LogPosition {
+
+        @Test
+        @DisplayName("POST /events - Positions are consecutive and stream versions count per subject")
+        void positionsAndStreamVersions() {
+            String subject = "positioned-" + UUID.randomUUID();
+            List<Long> positions = new ArrayList<>();
+            for (int i = 1; i <= 3; i++) {
+                Number position = given()
+                        .contentType(ContentType.JSON)
+                        .body(createValidEventWithSubject(UUID.randomUUID().toString(), "pos-" + i, subject))
+                        .post(EVENTS_PATH)
+                        .then()
+                        .statusCode(201)
+                        .body("streamVersion", is(i))
+                        .extract().path("position");
+                positions.add(position.longValue());
+            }
+
+            assertEquals(positions.get(0) + 1, positions.get(1));
+            assertEquals(positions.get(1) + 1, positions.get(2));
+        }
+
+        @Test
+        @DisplayName("POST /events - Duplicates do not consume a position")
+        void duplicate_doesNotConsumePosition() {
+            String eventId = UUID.randomUUID().toString();
+            Number first = given()
+                    .contentType(ContentType.JSON)
+                    .body(createValidEvent(eventId, "dup"))
+                    .post(EVENTS_PATH)
+                    .then()
+                    .statusCode(201)
+                    .extract().path("position");
+            given()
+                    .contentType(ContentType.JSON)
+                    .body(createValidEvent(eventId, "dup"))
+                    .post(EVENTS_PATH)
+                    .then()
+                    .statusCode(200)
+                    .body("position", is(first.intValue()));
+
+            Number next = given()
+                    .contentType(ContentType.JSON)
+                    .body(createValidEvent(UUID.randomUUID().toString(), "next"))
+                    .post(EVENTS_PATH)
+                    .then()
+                    .statusCode(201)
+                    .extract().path("position");
+
+            assertEquals(first.longValue() + 1, next.longValue());
+        }
+    }
+
     // ==================== HELPER METHODS ====================
 
     private String createValidEvent(String eventId, String dataId) {
@@ -0,0 +1,93 @@
+package space.maatini.eventsourcing.resource;
+
+import io.quarkus.test.junit.QuarkusTest;
+import io.quarkus.test.junit.QuarkusTestProfile;
+import io.quarkus.test.junit.TestProfile;
+import io.restassured.http.ContentType;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.stream.IntStream;
+
+import static io.restassured.RestAssured.given;
+import static org.hamcrest.CoreMatchers.equalTo;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Integration tests for POST /events with group commit enabled.
+ */
+@QuarkusTest
+@TestProfile(GroupCommitEventResourceTest.GroupCommitProfile.class)
+class GroupCommitEventResourceTest {
+
+    private static final String EVENTS_PATH = "/events";
+
+    public static class GroupCommitProfile implements QuarkusTestProfile {
+        @Override
+        public Map<String, String> getConfigOverrides() {
+            return Map.of(
+                    "eventsourcing.ingest.group-commit.enabled", "true",
+                    "eventsourcing.ingest.group-commit.max-size", "4",
+                    "eventsourcing.ingest.group-commit.max-wait-micros", "2000");
+        }
+    }
+
+    @BeforeEach
+    void cleanup() {
+        given().post("/test-support/wipe").then().statusCode(200);
+    }
+
+    @Test
+    @DisplayName("Concurrent events are all stored and answered individually")
+    void concurrentEvents_allCreated() {
+        List<String> ids = IntStream.range(0, 10).mapToObj(i -> UUID.randomUUID().toString()).toList();
+
+        List<Integer> statuses = ids.parallelStream()
+                .map(id -> given()
+                        .contentType(ContentType.JSON)
+                        .body(event(id))
+                        .when()
+                        .post(EVENTS_PATH)
+                        .then()
+                        .extract().statusCode())
+                .toList();
+
+        assertTrue(statuses.stream().allMatch(s -> s == 201), "Statuses: " + statuses);
+        ids.forEach(id -> given().get(EVENTS_PATH + "/" + id).then().statusCode(200).body("id", equalTo(id)));
+    }
+
+    @Test
+    @DisplayName("Duplicates within the same group keep idempotent semantics")
+    void duplicatesInGroup_areIdempotent() {
+        String eventJson = event(UUID.randomUUID().toString());
+
+        List<Integer> statuses = IntStream.range(0, 6).parallel()
+                .mapToObj(i -> given()
+                        .contentType(ContentType.JSON)
+                        .body(eventJson)
+                        .when()
+                        .post(EVENTS_PATH)
+                        .then()
+                        .extract().statusCode())
+                .toList();
+
+        assertEquals(1, statuses.stream().filter(s -> s == 201).count(), "Statuses: " + statuses);
+        assertTrue(statuses.stream().allMatch(s -> s == 200 || s == 201), "Statuses: " + statuses);
+    }
+
+    private String event(String id) {
+        return """
+                {
+                    "id": "%s",
+                    "source": "/test-service",
+                    "type": "de.test.group-commit",
+                    "data": {"id": "%s"}
+                }
+                """.formatted(id, id);
+    }
+}
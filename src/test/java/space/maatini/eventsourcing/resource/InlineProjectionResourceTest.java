@@ -0,0 +1,110 @@
+package space.maatini.eventsourcing.resource;
+
+import io.quarkus.test.junit.QuarkusTest;
+import io.quarkus.test.junit.QuarkusTestProfile;
+import io.quarkus.test.junit.TestProfile;
+import io.restassured.http.ContentType;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.Map;
+import java.util.UUID;
+
+import static io.restassured.RestAssured.given;
+import static org.hamcrest.CoreMatchers.equalTo;
+
+/**
+ * Integration tests for projections that run in the writing transaction.
+ */
+@QuarkusTest
+@TestProfile(InlineProjectionResourceTest.InlineProfile.class)
+class InlineProjectionResourceTest {
+
+    private static final String CMD_PATH = "/commands/vertreter";
+    private static final String AGGREGATES_PATH = "/aggregates/vertreter";
+
+    public static class InlineProfile implements QuarkusTestProfile {
+        @Override
+        public Map<String, String> getConfigOverrides() {
+            return Map.of("eventsourcing.projections.inline", "space.maatini.vertreter.");
+        }
+    }
+
+    @BeforeEach
+    void cleanup() {
+        given().post("/test-support/wipe").then().statusCode(200);
+    }
+
+    @Test
+    @DisplayName("Commands are readable from the projection as soon as they return")
+    void commands_readYourWrites() {
+        String id = UUID.randomUUID().toString();
+
+        given()
+                .contentType(ContentType.JSON)
+                .body("""
+                        {"id": "%s", "name": "Inline", "email": "inline@test.com"}
+                        """.formatted(id))
+                .when()
+                .post(CMD_PATH)
+                .then()
+                .statusCode(201);
+
+        given()
+                .when()
+                .get(AGGREGATES_PATH + "/" + id)
+                .then()
+                .statusCode(200)
+                .body("name", equalTo("Inline"));
+
+        given()
+                .contentType(ContentType.JSON)
+                .body("""
+                        {"id": "%s", "name": "Inline 2"}
+                        """.formatted(id))
+                .when()
+                .put(CMD_PATH + "/" + id)
+                .then()
+                .statusCode(200);
+
+        given()
+                .when()
+                .get(AGGREGATES_PATH + "/" + id)
+                .then()
+                .statusCode(200)
+                .body("name", equalTo("Inline 2"));
+
+        // Nothing is left for the batch processor
+        given()
+                .when()
+                .post("/admin/projection/trigger")
+                .then()
+                .statusCode(200)
+                .body("processed", equalTo(0));
+    }
+
+    @Test
+    @DisplayName("Ingested events are projected in the storing transaction")
+    void ingestedEvents_readYourWrites() {
+        String id = UUID.randomUUID().toString();
+
+        given()
+                .contentType(ContentType.JSON)
+                .body("""
+                        {"id": "%s", "source": "/test-service", "type": "space.maatini.vertreter.created",
+                         "subject": "%s", "data": {"id": "%s", "name": "Ingested"}}
+                        """.formatted(UUID.randomUUID(), id, id))
+                .when()
+                .post("/events")
+                .then()
+                .statusCode(201);
+
+        given()
+                .when()
+                .get(AGGREGATES_PATH + "/" + id)
+                .then()
+                .statusCode(200)
+                .body("name", equalTo("Ingested"));
+    }
+}
@@ -0,0 +1,180 @@
+package space.maatini.eventsourcing.resource;
+
+import io.quarkus.test.junit.QuarkusTest;
+import io.restassured.http.ContentType;
+import io.restassured.response.ValidatableResponse;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.UUID;
+
+import static io.restassured.RestAssured.given;
+import static org.hamcrest.CoreMatchers.*;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Integration tests for the consumer group endpoints.
+ */
+@QuarkusTest
+class SubscriptionResourceTest {
+
+    private static final String SUBSCRIPTIONS_PATH = "/subscriptions";
+
+    @BeforeEach
+    void cleanup() {
+        given().post("/test-support/wipe").then().statusCode(200);
+    }
+
+    @Test
+    @DisplayName("PUT /subscriptions/{name} - Created once, then returned unchanged")
+    void create_isIdempotent() {
+        given()
+                .contentType(ContentType.JSON)
+                .body("{\"fromPosition\": 5}")
+                .when()
+                .put(SUBSCRIPTIONS_PATH + "/billing")
+                .then()
+                .statusCode(201)
+                .body("committedPosition", is(4));
+
+        given()
+                .contentType(ContentType.JSON)
+                .body("{\"fromPosition\": 1}")
+                .when()
+                .put(SUBSCRIPTIONS_PATH + "/billing")
+                .then()
+                .statusCode(200)
+                .body("committedPosition", is(4));
+    }
+
+    @Test
+    @DisplayName("POST /subscriptions/{name}/poll - Unknown subscription returns 404")
+    void pollUnknown_returns404() {
+        given()
+                .when()
+                .post(SUBSCRIPTIONS_PATH + "/unknown/poll")
+                .then()
+                .statusCode(404);
+    }
+
+    @Test
+    @DisplayName("POST /subscriptions/{name}/poll - Workers of a group receive disjoint batches in order")
+    void poll_leasesDisjointBatches() {
+        String type = "de.test.group." + UUID.randomUUID();
+        List<Long> stored = new ArrayList<>();
+        for (int i = 0; i < 4; i++) {
+            stored.add(store(type));
+        }
+        create("workers", stored.get(0), type);
+
+        List<Long> first = poll("workers", 2);
+        List<Long> second = poll("workers", 2);
+
+        assertEquals(stored.subList(0, 2), first);
+        assertEquals(stored.subList(2, 4), second);
+        assertTrue(poll("workers", 2).isEmpty());
+    }
+
+    @Test
+    @DisplayName("POST /subscriptions/{name}/ack - Committed position only moves over contiguous acks")
+    void ack_advancesContiguously() {
+        String type = "de.test.ack." + UUID.randomUUID();
+        long p1 = store(type);
+        long p2 = store(type);
+        create("acks", p1, type);
+        poll("acks", 2);
+
+        ack("acks", p2).body("committedPosition", is((int) p1 - 1));
+        ack("acks", p1).body("committedPosition", is((int) p2));
+    }
+
+    @Test
+    @DisplayName("POST /subscriptions/{name}/poll - A type-filtered group moves past events of other types")
+    void poll_withoutMatches_advancesPositions() {
+        String type = "de.test.rare." + UUID.randomUUID();
+        String other = "de.test.other." + UUID.randomUUID();
+        long first = store(other);
+        create("rare", first, type);
+        long last = first;
+        for (int i = 0; i < 5; i++) {
+            last = store(other);
+        }
+
+        assertTrue(poll("rare", 10).isEmpty());
+
+        given().get(SUBSCRIPTIONS_PATH + "/rare").then().statusCode(200)
+                .body("leasedPosition", is((int) last))
+                .body("committedPosition", is((int) last));
+
+        long match = store(type);
+        store(other);
+        assertEquals(List.of(match), poll("rare", 10));
+        ack("rare", match).body("committedPosition", is((int) match + 1));
+    }
+
+    @Test
+    @DisplayName("POST /subscriptions/{name}/ack - Empty positions return 400")
+    void ackEmpty_returns400() {
+        create("empty", 1L, "de.test.empty");
+
+        given()
+                .contentType(ContentType.JSON)
+                .body("{\"positions\": []}")
+                .when()
+                .post(SUBSCRIPTIONS_PATH + "/empty/ack")
+                .then()
+                .statusCode(400);
+    }
+
+    // ==================== HELPER METHODS ====================
+
+    private long store(String type) {
+        Number position = given()
+                .contentType(ContentType.JSON)
+                .body("""
+                        {"id": "%s", "source": "/test-service", "type": "%s", "data": {"id": "g1"}}
+                        """.formatted(UUID.randomUUID(), type))
+                .post("/events")
+                .then()
+                .statusCode(201)
+                .extract().path("position");
+        return position.longValue();
+    }
+
+    private void create(String name, long fromPosition, String type) {
+        given()
+                .contentType(ContentType.JSON)
+                .body("{\"fromPosition\": %d, \"types\": [\"%s\"]}".formatted(fromPosition, type))
+                .when()
+                .put(SUBSCRIPTIONS_PATH + "/" + name)
+                .then()
+                .statusCode(201);
+    }
+
+    private List<Long> poll(String name, int max) {
+        List<Number> positions = given()
+                .queryParam("max", max)
+                .when()
+                .post(SUBSCRIPTIONS_PATH + "/" + name + "/poll")
+                .then()
+                .statusCode(200)
+                .body("leasedUntil", notNullValue())
+                .extract().jsonPath().getList("events.position");
+        return positions.stream().map(Number::longValue).toList();
+    }
+
+    private ValidatableResponse ack(String name, long... positions) {
+        return given()
+                .contentType(ContentType.JSON)
+                .body("{\"positions\": %s}".formatted(Arrays.toString(positions)))
+                .when()
+                .post(SUBSCRIPTIONS_PATH + "/" + name + "/ack")
+                .then()
+                .statusCode(200);
+    }
+}
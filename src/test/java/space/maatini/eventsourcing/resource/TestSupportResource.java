@@ -6,6 +6,7 @@ import jakarta.ws.rs.POST;
 import jakarta.ws.rs.Path;
 import jakarta.ws.rs.core.Response;
 import space.maatini.eventsourcing.entity.CloudEvent;
+import space.maatini.eventsourcing.entity.Subscription;
 
 @Path("/test-support")
 public class TestSupportResource {
@@ -18,7 +19,14 @@ public class TestSupportResource {
                 session.createNativeQuery("DELETE FROM events_dead_letter").executeUpdate()
         )
         .chain(() -> space.maatini.eventsourcing.entity.VertreterAggregate.deleteAll())
+        .chain(() -> Subscription.deleteAll())
         .chain(() -> CloudEvent.deleteAll())
+        .chain(() -> CloudEvent.getSession().chain(session ->
+                session.createNativeQuery("DELETE FROM event_ids").executeUpdate()))
+        .chain(() -> CloudEvent.getSession().chain(session ->
+                session.createNativeQuery("DELETE FROM event_streams").executeUpdate()))
+        .chain(() -> CloudEvent.getSession().chain(session ->
+                session.createNativeQuery("DELETE FROM aggregate_snapshots").executeUpdate()))
         .replaceWith(Response.ok().build());
     }
 }
@@ -6,10 +6,19 @@ import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Test;
 
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
 import java.util.UUID;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
 
 import static io.restassured.RestAssured.given;
 import static org.hamcrest.CoreMatchers.equalTo;
+import static org.junit.jupiter.api.Assertions.assertEquals;
 
 @QuarkusTest
 class VertreterCommandResourceTest {
@@ -111,4 +120,215 @@ class VertreterCommandResourceTest {
                 .statusCode(400)
                 .body(equalTo("Vertreter does not exist or was not created yet"));
     }
+
+    @Test
+    @DisplayName("Invariants still hold once the aggregate is loaded from a snapshot")
+    void invariantsHoldAcrossSnapshots() {
+        String id = UUID.randomUUID().toString();
+
+        given()
+                .contentType(ContentType.JSON)
+                .body("""
+                        {"id": "%s", "name": "Snapshot 0"}
+                        """.formatted(id))
+                .when()
+                .post(CMD_PATH)
+                .then()
+                .statusCode(201);
+
+        // More updates than eventsourcing.snapshots.every in the test profile
+        for (int i = 1; i <= 5; i++) {
+            given()
+                    .contentType(ContentType.JSON)
+                    .body("""
+                            {"id": "%s", "name": "Snapshot %d"}
+                            """.formatted(id, i))
+                    .when()
+                    .put(CMD_PATH + "/" + id)
+                    .then()
+                    .statusCode(200);
+        }
+
+        given()
+                .when()
+                .delete(CMD_PATH + "/" + id)
+                .then()
+                .statusCode(200);
+
+        given()
+                .contentType(ContentType.JSON)
+                .body("""
+                        {"id": "%s", "name": "After delete"}
+                        """.formatted(id))
+                .when()
+                .put(CMD_PATH + "/" + id)
+                .then()
+                .statusCode(400)
+                .body(equalTo("Vertreter was deleted"));
+    }
+
+    @Test
+    @DisplayName("Events written outside the command side are seen despite the aggregate cache")
+    void cacheSeesExternalEvents() {
+        String id = UUID.randomUUID().toString();
+
+        given()
+                .contentType(ContentType.JSON)
+                .body("""
+                        {"id": "%s", "name": "Cached"}
+                        """.formatted(id))
+                .when()
+                .post(CMD_PATH)
+                .then()
+                .statusCode(201);
+
+        given()
+                .contentType(ContentType.JSON)
+                .body("""
+                        {"id": "%s", "source": "/test-service", "type": "space.maatini.vertreter.deleted",
+                         "subject": "%s", "data": {"id": "%s"}}
+                        """.formatted(UUID.randomUUID(), id, id))
+                .when()
+                .post("/events")
+                .then()
+                .statusCode(201);
+
+        given()
+                .contentType(ContentType.JSON)
+                .body("""
+                        {"id": "%s", "name": "Stale"}
+                        """.formatted(id))
+                .when()
+                .put(CMD_PATH + "/" + id)
+                .then()
+                .statusCode(400)
+                .body(equalTo("Vertreter was deleted"));
+    }
+
+    @Test
+    @DisplayName("If-Match with an outdated stream version returns 409")
+    void ifMatch_outdatedVersionConflicts() {
+        String id = UUID.randomUUID().toString();
+
+        String created = given()
+                .contentType(ContentType.JSON)
+                .body("""
+                        {"id": "%s", "name": "Versioned"}
+                        """.formatted(id))
+                .when()
+                .post(CMD_PATH)
+                .then()
+                .statusCode(201)
+                .header("ETag", equalTo("\"1\""))
+                .extract().header("ETag");
+
+        given()
+                .contentType(ContentType.JSON)
+                .header("If-Match", created)
+                .body("""
+                        {"id": "%s", "name": "Versioned 2"}
+                        """.formatted(id))
+                .when()
+                .put(CMD_PATH + "/" + id)
+                .then()
+                .statusCode(200)
+                .header("ETag", equalTo("\"2\""));
+
+        given()
+                .contentType(ContentType.JSON)
+                .body("""
+                        {"id": "%s", "name": "Versioned 3", "expectedVersion": 1}
+                        """.formatted(id))
+                .when()
+                .put(CMD_PATH + "/" + id)
+                .then()
+                .statusCode(409);
+
+        given()
+                .header("If-Match", created)
+                .when()
+                .delete(CMD_PATH + "/" + id)
+                .then()
+                .statusCode(409);
+    }
+
+    @Test
+    @DisplayName("Concurrent updates without expected version are all applied in turn")
+    void concurrentUpdates_areRetried() throws Exception {
+        String id = UUID.randomUUID().toString();
+        given()
+                .contentType(ContentType.JSON)
+                .body("""
+                        {"id": "%s", "name": "Contended"}
+                        """.formatted(id))
+                .when()
+                .post(CMD_PATH)
+                .then()
+                .statusCode(201);
+
+        int writers = 4;
+        ExecutorService executor = Executors.newFixedThreadPool(writers);
+        try {
+            List<Future<String>> tags = new ArrayList<>();
+            for (int i = 0; i < writers; i++) {
+                int n = i;
+                tags.add(executor.submit(() -> given()
+                        .contentType(ContentType.JSON)
+                        .body("""
+                                {"id": "%s", "name": "Writer %d"}
+                                """.formatted(id, n))
+                        .when()
+                        .put(CMD_PATH + "/" + id)
+                        .then()
+                        .statusCode(200)
+                        .extract().header("ETag")));
+            }
+            Set<String> versions = new HashSet<>();
+            for (Future<String> tag : tags) {
+                versions.add(tag.get(30, TimeUnit.SECONDS));
+            }
+            assertEquals(Set.of("\"2\"", "\"3\"", "\"4\"", "\"5\""), versions);
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    @DisplayName("Batch commands are applied in order with failures isolated per Vertreter")
+    void batch_isolatesFailuresPerVertreter() {
+        String ok = UUID.randomUUID().toString();
+        String rejected = UUID.randomUUID().toString();
+
+        given()
+                .contentType(ContentType.JSON)
+                .body("""
+                        [
+                          {"type": "CREATE", "id": "%1$s", "name": "Batch 1"},
+                          {"type": "UPDATE", "id": "%2$s", "name": "Never created"},
+                          {"type": "UPDATE", "id": "%1$s", "name": "Batch 2"},
+                          {"type": "UPDATE", "id": "%1$s", "name": "Batch 3", "expectedVersion": 1},
+                          {"type": "DELETE", "id": "%1$s", "expectedVersion": 2}
+                        ]
+                        """.formatted(ok, rejected))
+                .when()
+                .post(CMD_PATH + "/batch")
+                .then()
+                .statusCode(200)
+                .body("succeeded", equalTo(3))
+                .body("failed", equalTo(2))
+                .body("results[0].version", equalTo(1))
+                .body("results[1].status", equalTo("REJECTED"))
+                .body("results[2].version", equalTo(2))
+                .body("results[3].status", equalTo("CONFLICT"))
+                .body("results[4].status", equalTo("SUCCEEDED"))
+                .body("results[4].version", equalTo(3));
+
+        given()
+                .contentType(ContentType.JSON)
+                .body("[]")
+                .when()
+                .post(CMD_PATH + "/batch")
+                .then()
+                .statusCode(400);
+    }
 }
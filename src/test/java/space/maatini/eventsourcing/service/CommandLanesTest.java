@@ -0,0 +1,105 @@
+package space.maatini.eventsourcing.service;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import io.smallrye.mutiny.Uni;
+import io.smallrye.mutiny.subscription.UniEmitter;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import space.maatini.eventsourcing.service.CommandLanes.Outcome;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for ordering and batching of CommandLanes.
+ */
+class CommandLanesTest {
+
+    private final List<List<String>> batches = new ArrayList<>();
+    private final List<UniEmitter<? super List<Outcome<String>>>> running = new ArrayList<>();
+    private final SimpleMeterRegistry registry = new SimpleMeterRegistry();
+
+    private final CommandLanes<String, String> lanes = new CommandLanes<>(null, "Test", 1, 10, registry, (id, commands) -> {
+        batches.add(commands);
+        return Uni.createFrom().emitter(running::add);
+    });
+
+    @Test
+    @DisplayName("Commands queued behind a running batch are executed together")
+    void queuedCommands_areBatched() {
+        CompletableFuture<String> first = lanes.submit("a", "a1").subscribeAsCompletionStage();
+        CompletableFuture<String> second = lanes.submit("a", "a2").subscribeAsCompletionStage();
+        CompletableFuture<String> third = lanes.submit("a", "a3").subscribeAsCompletionStage();
+
+        assertEquals(List.of(List.of("a1")), batches);
+        assertEquals(3.0, registry.get("commands.lanes.queue.depth").gauge().value());
+
+        running.get(0).complete(List.of(Outcome.success("r1")));
+        assertEquals("r1", first.join());
+        assertEquals(List.of("a2", "a3"), batches.get(1));
+
+        running.get(1).complete(List.of(Outcome.success("r2"), Outcome.failure(new IllegalStateException("rejected"))));
+        assertEquals("r2", second.join());
+        assertInstanceOf(IllegalStateException.class, assertThrows(Exception.class, third::join).getCause());
+        assertEquals(0.0, registry.get("commands.lanes.queue.depth").gauge().value());
+        assertEquals(2, registry.get("commands.lanes.batch.size").summary().count());
+    }
+
+    @Test
+    @DisplayName("Batches never mix aggregates and a failed batch fails all its commands")
+    void batches_perAggregate() {
+        CompletableFuture<String> a = lanes.submit("a", "a1").subscribeAsCompletionStage();
+        CompletableFuture<String> b = lanes.submit("b", "b1").subscribeAsCompletionStage();
+
+        running.get(0).fail(new IllegalArgumentException("broken"));
+        assertInstanceOf(IllegalArgumentException.class, assertThrows(Exception.class, a::join).getCause());
+        assertEquals(List.of(List.of("a1"), List.of("b1")), batches);
+
+        running.get(1).complete(List.of(Outcome.success("rb")));
+        assertEquals("rb", b.join());
+    }
+
+    @Test
+    @DisplayName("Commands submitted together run as one batch and report one outcome each")
+    void submitAll_singleBatch() {
+        CompletableFuture<List<Outcome<String>>> all = lanes.submitAll("a", List.of("a1", "a2")).subscribeAsCompletionStage();
+
+        assertEquals(List.of(List.of("a1", "a2")), batches);
+        running.get(0).complete(List.of(Outcome.success("r1"), Outcome.success("r2")));
+        assertEquals(List.of("r1", "r2"), all.join().stream().map(Outcome::result).toList());
+    }
+
+    @Test
+    @DisplayName("Commands submitted together are never split, even beyond the batch limit")
+    void submitAll_neverSplit() {
+        lanes.submit("a", "a0").subscribeAsCompletionStage();
+        List<String> group = new ArrayList<>();
+        for (int i = 1; i <= 15; i++) {
+            group.add("a" + i);
+        }
+        lanes.submitAll("a", group).subscribeAsCompletionStage();
+        lanes.submit("a", "a16").subscribeAsCompletionStage();
+
+        running.get(0).complete(List.of(Outcome.success("r0")));
+        assertEquals(group, batches.get(1));
+        running.get(1).complete(group.stream().map(Outcome::success).toList());
+        assertEquals(List.of("a16"), batches.get(2));
+    }
+
+    @Test
+    @DisplayName("Ids are spread over all lanes")
+    void laneOf_inRange() {
+        boolean[] used = new boolean[8];
+        for (int i = 0; i < 1000; i++) {
+            int lane = CommandLanes.laneOf("vertreter-" + i, used.length);
+            assertTrue(lane >= 0 && lane < used.length);
+            used[lane] = true;
+        }
+        for (boolean lane : used) {
+            assertTrue(lane);
+        }
+    }
+}
@@ -0,0 +1,103 @@
+package space.maatini.eventsourcing.service;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLTimeoutException;
+import java.sql.Statement;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.BiFunction;
+import java.util.function.Supplier;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for the safe position bookkeeping of EventLogHead.
+ */
+class EventLogHeadTest {
+
+    private final EventLogHead head = new EventLogHead(null, 1000);
+
+    @Test
+    @DisplayName("Without running transactions the last position is safe at once")
+    void idle_safeImmediately() {
+        assertEquals(0, head.advance(0, 100, 100));
+        assertEquals(7, head.advance(7, 105, 105));
+    }
+
+    @Test
+    @DisplayName("A position only becomes safe once every transaction running at its probe has ended")
+    void running_waitsForOldestTransaction() {
+        assertEquals(-1, head.advance(10, 95, 100));
+        // Transaction 95 is still running
+        assertEquals(-1, head.advance(12, 95, 103));
+        // 95 ended, 100 and above may still hold positions up to 12
+        assertEquals(10, head.advance(14, 101, 104));
+        assertEquals(14, head.advance(14, 104, 104));
+    }
+
+    @Test
+    @DisplayName("The safe position never moves backwards")
+    void safe_monotonic() {
+        assertEquals(20, head.advance(20, 50, 50));
+        assertEquals(20, head.advance(18, 50, 50));
+    }
+
+    @Test
+    @DisplayName("Candidates beyond the limit are merged without losing safety")
+    void candidates_capped() {
+        for (int i = 0; i < EventLogHead.MAX_CANDIDATES + 10; i++) {
+            assertEquals(-1, head.advance(i, 1, 2 + i));
+        }
+        // The merged newest candidate waits for the newest xmax
+        assertEquals(EventLogHead.MAX_CANDIDATES - 2, head.advance(5000, EventLogHead.MAX_CANDIDATES + 100, 6000));
+        assertEquals(5000, head.advance(5000, 6000, 6000));
+    }
+
+    @Test
+    @DisplayName("The blocking variant gives up after the timeout while a transaction stays open")
+    void blocking_timesOut() {
+        EventLogHead slow = new EventLogHead(null, 50);
+        // Transaction 1 never ends, while later probes see new transactions start
+        AtomicLong xmax = new AtomicLong(10);
+        Connection connection = probeConnection(() -> new long[] { 5, 1, xmax.incrementAndGet() });
+
+        assertThrows(SQLTimeoutException.class, () -> slow.safePosition(connection));
+    }
+
+    @Test
+    @DisplayName("The blocking variant returns as soon as a probe is safe")
+    void blocking_returnsSafePosition() throws Exception {
+        Connection connection = probeConnection(() -> new long[] { 9, 20, 20 });
+
+        assertEquals(9, head.safePosition(connection));
+    }
+
+    // ==================== HELPER METHODS ====================
+
+    private static Connection probeConnection(Supplier<long[]> probe) {
+        return proxy(Connection.class, (method, args) -> switch (method) {
+            case "createStatement" -> proxy(Statement.class, (statementMethod, statementArgs) -> switch (statementMethod) {
+                case "executeQuery" -> resultSet(probe.get());
+                default -> null;
+            });
+            default -> null;
+        });
+    }
+
+    private static ResultSet resultSet(long[] row) {
+        return proxy(ResultSet.class, (method, args) -> switch (method) {
+            case "next" -> true;
+            case "getLong" -> row[(Integer) args[0] - 1];
+            default -> null;
+        });
+    }
+
+    private static <T> T proxy(Class<T> type, BiFunction<String, Object[], Object> handler) {
+        return type.cast(Proxy.newProxyInstance(type.getClassLoader(), new Class<?>[] { type },
+                (proxy, method, args) -> handler.apply(method.getName(), args)));
+    }
+}
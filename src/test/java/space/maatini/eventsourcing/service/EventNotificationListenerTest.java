@@ -0,0 +1,78 @@
+package space.maatini.eventsourcing.service;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import space.maatini.eventsourcing.service.EventNotificationListener.Debounce;
+import space.maatini.eventsourcing.service.EventNotificationListener.PollSchedule;
+import space.maatini.eventsourcing.service.EventNotificationListener.WakeupSource;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for the wake-up debounce and the poll backoff of
+ * EventNotificationListener.
+ */
+class EventNotificationListenerTest {
+
+    @Test
+    @DisplayName("Notifications are coalesced until the armed wake-up has fired")
+    void debounce_coalesces() {
+        Debounce debounce = new Debounce();
+
+        assertTrue(debounce.arm());
+        assertFalse(debounce.arm());
+        assertFalse(debounce.arm());
+
+        debounce.fired();
+
+        assertTrue(debounce.arm());
+    }
+
+    @Test
+    @DisplayName("Without LISTEN the fallback delay doubles up to the maximum")
+    void fallback_backsOff() {
+        PollSchedule schedule = new PollSchedule(30_000, 100, 500);
+
+        assertEquals(100, schedule.nextDelay());
+        assertEquals(WakeupSource.FALLBACK_POLL, schedule.poll());
+        assertEquals(200, schedule.nextDelay());
+        schedule.poll();
+        assertEquals(400, schedule.nextDelay());
+        schedule.poll();
+        assertEquals(500, schedule.nextDelay());
+        schedule.poll();
+        assertEquals(500, schedule.nextDelay());
+    }
+
+    @Test
+    @DisplayName("While LISTEN is healthy only safety polls run, and a lost listener backs off from the start")
+    void listening_safetyInterval_thenResetOnLoss() {
+        PollSchedule schedule = new PollSchedule(30_000, 100, 500);
+        schedule.poll();
+        schedule.poll();
+
+        schedule.listening();
+
+        assertTrue(schedule.isListening());
+        assertEquals(30_000, schedule.nextDelay());
+        assertEquals(WakeupSource.SAFETY_POLL, schedule.poll());
+        assertEquals(30_000, schedule.nextDelay());
+
+        assertTrue(schedule.lost());
+        assertFalse(schedule.lost(), "Only the first loss is reported");
+        assertFalse(schedule.isListening());
+        assertEquals(100, schedule.nextDelay());
+    }
+
+    @Test
+    @DisplayName("Invalid delays are clamped")
+    void schedule_clampsDelays() {
+        PollSchedule schedule = new PollSchedule(0, 0, -5);
+
+        assertEquals(1, schedule.nextDelay());
+        schedule.poll();
+        assertEquals(1, schedule.nextDelay());
+        schedule.listening();
+        assertEquals(1, schedule.nextDelay());
+    }
+}
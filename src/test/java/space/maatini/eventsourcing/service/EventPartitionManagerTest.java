@@ -0,0 +1,31 @@
+package space.maatini.eventsourcing.service;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.time.YearMonth;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for the partition naming of EventPartitionManager.
+ */
+class EventPartitionManagerTest {
+
+    @Test
+    @DisplayName("Monthly partitions are recognized by name")
+    void monthOf_monthlyPartition() {
+        assertEquals(Optional.of(YearMonth.of(2024, 1)), EventPartitionManager.monthOf("events_p202401"));
+        assertEquals(Optional.of(YearMonth.of(2025, 12)), EventPartitionManager.monthOf("events_p202512"));
+    }
+
+    @Test
+    @DisplayName("Other tables are never treated as monthly partitions")
+    void monthOf_otherTables() {
+        assertTrue(EventPartitionManager.monthOf("events_default").isEmpty());
+        assertTrue(EventPartitionManager.monthOf("events_p2024").isEmpty());
+        assertTrue(EventPartitionManager.monthOf("events_p202413").isEmpty());
+        assertTrue(EventPartitionManager.monthOf("events_dead_letter").isEmpty());
+    }
+}
@@ -0,0 +1,171 @@
+package space.maatini.eventsourcing.service;
+
+import io.agroal.api.AgroalDataSource;
+import io.quarkus.test.junit.QuarkusTest;
+import io.quarkus.test.junit.QuarkusTestProfile;
+import io.quarkus.test.junit.TestProfile;
+import io.restassured.http.ContentType;
+import jakarta.inject.Inject;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.time.OffsetDateTime;
+import java.util.Map;
+import java.util.UUID;
+
+import static io.restassured.RestAssured.given;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Integration tests for EventRetentionService.purge().
+ * <p>
+ * Events are inserted directly, so their created_at can lie in the past.
+ * Unprocessed events are inserted with exhausted retries, so the projection
+ * never picks them up during the test.
+ */
+@QuarkusTest
+@TestProfile(EventRetentionServiceTest.RetentionProfile.class)
+class EventRetentionServiceTest {
+
+    private static final String EVENTS_PATH = "/events";
+    private static final String SUBSCRIPTIONS_PATH = "/subscriptions";
+
+    public static class RetentionProfile implements QuarkusTestProfile {
+        @Override
+        public Map<String, String> getConfigOverrides() {
+            return Map.of(
+                    "eventsourcing.retention.policies",
+                    "de.test.retention.=30d,de.test.retention.keep.=forever,de.test.latest.=latest",
+                    // Small batches, so every purge runs more than one
+                    "eventsourcing.retention.batch-size", "2",
+                    "eventsourcing.retention.pause-ms", "0",
+                    // Only the test runs the job
+                    "eventsourcing.retention.check-interval", "off");
+        }
+    }
+
+    @Inject
+    EventRetentionService retention;
+
+    @Inject
+    AgroalDataSource dataSource;
+
+    @BeforeEach
+    void cleanup() throws SQLException {
+        given().post("/test-support/wipe").then().statusCode(200);
+        // Partitions only exist from the first stored month on
+        try (Connection connection = dataSource.getConnection();
+                PreparedStatement statement = connection.prepareStatement("SELECT create_events_partition(?::date)")) {
+            statement.setObject(1, daysAgo(40).toLocalDate());
+            statement.execute();
+        }
+    }
+
+    @Test
+    @DisplayName("A days policy deletes old processed events and keeps young, unprocessed and overridden ones")
+    void days_deletesOldProcessedEvents() throws Exception {
+        UUID old1 = insert("de.test.retention.audit", "a", daysAgo(40), true);
+        UUID old2 = insert("de.test.retention.audit", "b", daysAgo(40), true);
+        UUID old3 = insert("de.test.retention.audit", "c", daysAgo(40), true);
+        UUID young = insert("de.test.retention.audit", "d", OffsetDateTime.now(), true);
+        UUID unprocessed = insert("de.test.retention.audit", "e", daysAgo(40), false);
+        UUID overridden = insert("de.test.retention.keep.audit", "f", daysAgo(40), true);
+        UUID ungoverned = insert("de.test.other", "g", daysAgo(40), true);
+
+        assertEquals(3, retention.purge());
+
+        assertDeleted(old1);
+        assertDeleted(old2);
+        assertDeleted(old3);
+        assertKept(young);
+        assertKept(unprocessed);
+        assertKept(overridden);
+        assertKept(ungoverned);
+    }
+
+    @Test
+    @DisplayName("A latest policy keeps only the newest processed event of each subject")
+    void latest_keepsNewestPerSubject() throws Exception {
+        UUID a1 = insert("de.test.latest.status", "a", OffsetDateTime.now(), true);
+        UUID a2 = insert("de.test.latest.status", "a", OffsetDateTime.now(), true);
+        UUID a3 = insert("de.test.latest.status", "a", OffsetDateTime.now(), true);
+        UUID b1 = insert("de.test.latest.status", "b", OffsetDateTime.now(), true);
+        UUID withoutSubject = insert("de.test.latest.status", null, OffsetDateTime.now(), true);
+        UUID otherType = insert("de.test.other", "a", OffsetDateTime.now(), true);
+
+        assertEquals(2, retention.purge());
+
+        assertDeleted(a1);
+        assertDeleted(a2);
+        assertKept(a3);
+        assertKept(b1);
+        assertKept(withoutSubject);
+        assertKept(otherType);
+    }
+
+    @Test
+    @DisplayName("Events a consumer group has not committed yet are kept")
+    void uncommittedEvents_areKept() throws Exception {
+        UUID committed = insert("de.test.retention.audit", "a", daysAgo(40), true);
+        UUID pending = insert("de.test.retention.audit", "b", daysAgo(40), true);
+        given()
+                .contentType(ContentType.JSON)
+                .body("{\"fromPosition\": %d}".formatted(position(pending)))
+                .when()
+                .put(SUBSCRIPTIONS_PATH + "/retention-" + UUID.randomUUID())
+                .then()
+                .statusCode(201);
+
+        assertEquals(1, retention.purge());
+
+        assertDeleted(committed);
+        assertKept(pending);
+    }
+
+    // ==================== HELPER METHODS ====================
+
+    private static OffsetDateTime daysAgo(int days) {
+        return OffsetDateTime.now().minusDays(days);
+    }
+
+    private UUID insert(String type, String subject, OffsetDateTime createdAt, boolean processed) throws SQLException {
+        UUID id = UUID.randomUUID();
+        try (Connection connection = dataSource.getConnection();
+                PreparedStatement statement = connection.prepareStatement(
+                        "INSERT INTO events (id, source, type, subject, data, created_at, processed_at, retry_count) "
+                                + "VALUES (?, '/test', ?, ?, '{}'::jsonb, ?, ?, ?)")) {
+            statement.setObject(1, id);
+            statement.setString(2, type);
+            statement.setString(3, subject);
+            statement.setObject(4, createdAt);
+            statement.setObject(5, processed ? createdAt : null);
+            statement.setInt(6, processed ? 0 : 5);
+            assertEquals(1, statement.executeUpdate());
+        }
+        return id;
+    }
+
+    private long position(UUID id) throws SQLException {
+        try (Connection connection = dataSource.getConnection();
+                PreparedStatement statement = connection.prepareStatement("SELECT position FROM events WHERE id = ?")) {
+            statement.setObject(1, id);
+            try (ResultSet rs = statement.executeQuery()) {
+                rs.next();
+                return rs.getLong(1);
+            }
+        }
+    }
+
+    private static void assertDeleted(UUID id) {
+        given().when().get(EVENTS_PATH + "/" + id).then().statusCode(404);
+    }
+
+    private static void assertKept(UUID id) {
+        given().when().get(EVENTS_PATH + "/" + id).then().statusCode(200);
+    }
+}
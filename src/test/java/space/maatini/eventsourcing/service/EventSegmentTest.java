@@ -0,0 +1,139 @@
+package space.maatini.eventsourcing.service;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import space.maatini.eventsourcing.entity.CloudEvent;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.OffsetDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for the archive segment file format.
+ */
+class EventSegmentTest {
+
+    @TempDir
+    Path dir;
+
+    @Test
+    @DisplayName("Events are read back unchanged and in position order")
+    void write_thenReadBlocks() throws IOException {
+        List<CloudEvent> events = events(10, 25);
+
+        EventSegment segment = EventSegment.write(dir, events, 4);
+
+        assertEquals(10, segment.firstPosition());
+        assertEquals(34, segment.lastPosition());
+        assertEquals(25, segment.eventCount());
+        assertEquals(7, segment.blockCount());
+        List<CloudEvent> read = new ArrayList<>();
+        for (int i = 0; i < segment.blockCount(); i++) {
+            read.addAll(segment.readBlock(i));
+        }
+        assertEquals(events.size(), read.size());
+        for (int i = 0; i < events.size(); i++) {
+            assertSameEvent(events.get(i), read.get(i));
+        }
+    }
+
+    @Test
+    @DisplayName("Subject lookup returns only that subject's events after the position")
+    void readBySubject() throws IOException {
+        EventSegment segment = EventSegment.write(dir, events(1, 30), 4);
+
+        List<CloudEvent> all = segment.readBySubject("agg-1", 0);
+        List<CloudEvent> after = segment.readBySubject("agg-1", 20);
+
+        assertEquals(List.of(2L, 5L, 8L, 11L, 14L, 17L, 20L, 23L, 26L, 29L), all.stream().map(CloudEvent::getPosition).toList());
+        assertEquals(List.of(23L, 26L, 29L), after.stream().map(CloudEvent::getPosition).toList());
+        assertTrue(segment.readBySubject("unknown", 0).isEmpty());
+    }
+
+    @Test
+    @DisplayName("Subject lookup stops at the limit and applies the filter")
+    void readBySubject_filterAndLimit() throws IOException {
+        EventSegment segment = EventSegment.write(dir, events(1, 30), 4);
+
+        List<CloudEvent> page = segment.readBySubject("agg-1", 2, e -> e.getPosition() != 8, 3);
+
+        assertEquals(List.of(5L, 11L, 14L), page.stream().map(CloudEvent::getPosition).toList());
+    }
+
+    @Test
+    @DisplayName("Subject blocks list only the blocks holding the subject after the position")
+    void subjectBlocks() throws IOException {
+        EventSegment segment = EventSegment.write(dir, events(1, 30), 4);
+
+        assertEquals(List.of(0, 1, 2, 3, 4, 5, 6, 7), segment.subjectBlocks("agg-1", 0));
+        assertEquals(List.of(5, 6, 7), segment.subjectBlocks("agg-1", 21));
+        assertTrue(segment.subjectBlocks("unknown", 0).isEmpty());
+        assertTrue(segment.subjectBlocks("agg-1", 30).isEmpty());
+    }
+
+    @Test
+    @DisplayName("A reopened segment finds the first block after a position")
+    void open_firstBlockAfter() throws IOException {
+        EventSegment written = EventSegment.write(dir, events(1, 12), 4);
+
+        EventSegment segment = EventSegment.open(written.file());
+
+        assertEquals(EventSegment.fileName(1), segment.file().getFileName().toString());
+        assertEquals(0, segment.firstBlockAfter(0));
+        assertEquals(0, segment.firstBlockAfter(3));
+        assertEquals(1, segment.firstBlockAfter(4));
+        assertEquals(2, segment.firstBlockAfter(11));
+        try (var files = Files.list(dir)) {
+            assertEquals(1, files.count(), "No temporary file is left behind");
+        }
+    }
+
+    @Test
+    @DisplayName("Files that are not segments are rejected")
+    void open_rejectsOtherFiles() throws IOException {
+        Path file = dir.resolve("junk" + EventSegment.SUFFIX);
+        Files.writeString(file, "not a segment, but long enough to hold a trailer of fifty-two bytes");
+
+        assertThrows(IllegalStateException.class, () -> EventSegment.open(file));
+    }
+
+    // ==================== HELPER METHODS ====================
+
+    private static List<CloudEvent> events(long firstPosition, int count) {
+        List<CloudEvent> events = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            CloudEvent event = new CloudEvent();
+            event.setId(UUID.randomUUID());
+            event.setSource("/test");
+            event.setType("de.test.archived");
+            event.setSubject("agg-" + (i % 3));
+            event.setRawData("{\"n\":" + i + ",\"text\":\"Grüße\"}");
+            event.setPosition(firstPosition + i);
+            event.setStreamVersion((long) i / 3 + 1);
+            event.setProcessedAt(OffsetDateTime.now());
+            events.add(event);
+        }
+        return events;
+    }
+
+    private static void assertSameEvent(CloudEvent expected, CloudEvent actual) {
+        assertEquals(expected.getId(), actual.getId());
+        assertEquals(expected.getSource(), actual.getSource());
+        assertEquals(expected.getType(), actual.getType());
+        assertEquals(expected.getSubject(), actual.getSubject());
+        assertEquals(expected.getRawData(), actual.getRawData());
+        assertEquals(expected.getPosition(), actual.getPosition());
+        assertEquals(expected.getStreamVersion(), actual.getStreamVersion());
+        assertEquals(expected.getTime(), actual.getTime());
+        assertEquals(expected.getCreatedAt(), actual.getCreatedAt());
+        assertEquals(expected.getProcessedAt(), actual.getProcessedAt());
+        assertNull(actual.getDataschema());
+    }
+}
@@ -0,0 +1,80 @@
+package space.maatini.eventsourcing.service;
+
+import io.quarkus.test.junit.QuarkusTest;
+import io.restassured.http.ContentType;
+import jakarta.inject.Inject;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import space.maatini.eventsourcing.entity.CloudEvent;
+
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+import static io.restassured.RestAssured.given;
+import static org.junit.jupiter.api.Assertions.*;
+
+@QuarkusTest
+class EventSubscriptionHubTest {
+
+    @Inject
+    EventSubscriptionHub hub;
+
+    @BeforeEach
+    void cleanup() {
+        given().post("/test-support/wipe").then().statusCode(200);
+    }
+
+    @Test
+    @DisplayName("Backlog and live events arrive in order without gaps or repeats")
+    void backlogThenLive() throws Exception {
+        String type = "de.test.subscribe." + UUID.randomUUID();
+        long first = store(type);
+        store(type);
+
+        CompletableFuture<List<CloudEvent>> received = hub.subscribe(first, Set.of(type))
+                .select().first(3)
+                .collect().asList()
+                .subscribeAsCompletionStage();
+        long live = store(type);
+
+        List<Long> positions = received.get(10, TimeUnit.SECONDS).stream().map(CloudEvent::getPosition).toList();
+        assertEquals(3, positions.size());
+        assertEquals(first, positions.get(0));
+        assertEquals(live, positions.get(2));
+        assertTrue(positions.get(0) < positions.get(1) && positions.get(1) < positions.get(2), "Positions: " + positions);
+    }
+
+    @Test
+    @DisplayName("Only the subscribed types are delivered")
+    void typeFilter() throws Exception {
+        String type = "de.test.subscribe." + UUID.randomUUID();
+        long first = store("de.test.other");
+        store(type);
+
+        List<CloudEvent> received = hub.subscribe(first, Set.of(type))
+                .select().first(1)
+                .collect().asList()
+                .subscribeAsCompletionStage()
+                .get(10, TimeUnit.SECONDS);
+
+        assertEquals(type, received.get(0).getType());
+    }
+
+    private long store(String type) {
+        Number position = given()
+                .contentType(ContentType.JSON)
+                .body("""
+                        {"id": "%s", "source": "/test-service", "type": "%s", "data": {"id": "s1"}}
+                        """.formatted(UUID.randomUUID(), type))
+                .post("/events")
+                .then()
+                .statusCode(201)
+                .extract().path("position");
+        return position.longValue();
+    }
+}
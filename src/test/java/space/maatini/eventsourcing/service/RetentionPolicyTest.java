@@ -0,0 +1,43 @@
+package space.maatini.eventsourcing.service;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for parsing and matching retention policies.
+ */
+class RetentionPolicyTest {
+
+    @Test
+    @DisplayName("All rules are parsed")
+    void parse_rules() {
+        assertEquals(new RetentionPolicy("de.audit.", RetentionPolicy.Kind.FOREVER, 0), RetentionPolicy.parse("de.audit.=forever"));
+        assertEquals(new RetentionPolicy("de.status.", RetentionPolicy.Kind.LATEST_PER_SUBJECT, 0), RetentionPolicy.parse(" de.status. = latest "));
+        assertEquals(new RetentionPolicy("de.", RetentionPolicy.Kind.DAYS, 90), RetentionPolicy.parse("de.=90d"));
+    }
+
+    @Test
+    @DisplayName("Malformed definitions are rejected")
+    void parse_rejectsMalformed() {
+        assertThrows(IllegalArgumentException.class, () -> RetentionPolicy.parse("de.audit."));
+        assertThrows(IllegalArgumentException.class, () -> RetentionPolicy.parse("de.=0d"));
+        assertThrows(IllegalArgumentException.class, () -> RetentionPolicy.parse("de.=xd"));
+        assertThrows(IllegalArgumentException.class, () -> RetentionPolicy.parse("de.=never"));
+    }
+
+    @Test
+    @DisplayName("The longest matching prefix wins")
+    void forType_longestPrefix() {
+        List<RetentionPolicy> policies = RetentionPolicy.parseAll(List.of("de.=30d", "de.audit.=forever", ""));
+
+        assertEquals(RetentionPolicy.Kind.FOREVER, RetentionPolicy.forType(policies, "de.audit.login").orElseThrow().kind());
+        assertEquals(RetentionPolicy.Kind.DAYS, RetentionPolicy.forType(policies, "de.vertreter.created").orElseThrow().kind());
+        assertTrue(RetentionPolicy.forType(policies, "com.other").isEmpty());
+        assertEquals(List.of("de.audit."), policies.get(1).overriddenBy(policies));
+        assertTrue(policies.get(0).overriddenBy(policies).isEmpty());
+    }
+}